@@ -1,5 +1,6 @@
 package com.digitalsign;
 
+import com.digitalsign.config.SecurityConfig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
@@ -7,6 +8,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 public class SignatureApplication {
 
 	public static void main(String[] args) {
+		SecurityConfig.registerProviders();
 		SpringApplication.run(SignatureApplication.class, args);
 	}
 
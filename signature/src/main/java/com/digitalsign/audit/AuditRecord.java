@@ -0,0 +1,19 @@
+package com.digitalsign.audit;
+
+import com.digitalsign.model.VerificationStatus;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Getter
+@RequiredArgsConstructor
+public final class AuditRecord {
+    private final Instant timestamp;
+    private final String tenantId;
+    private final String fileName;
+    private final String fileHash;
+    private final VerificationStatus overallStatus;
+    private final List<AuditSignature> signatures;
+}
@@ -0,0 +1,14 @@
+package com.digitalsign.audit;
+
+import com.digitalsign.model.VerificationStatus;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public final class AuditSignature {
+    private final String serialNumber;
+    private final String thumbprint;
+    private final String signerName;
+    private final VerificationStatus status;
+}
@@ -0,0 +1,10 @@
+package com.digitalsign.audit;
+
+/**
+ * Các khoá của chỉ mục phụ; thứ tự khai báo là thứ tự các bảng trong file chỉ mục.
+ */
+enum IndexKey {
+    SERIAL,
+    THUMBPRINT,
+    SIGNER
+}
@@ -0,0 +1,71 @@
+package com.digitalsign.audit;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chỉ mục trên heap của segment đang ghi. Khi segment đầy, chỉ mục được ghi ra {@link SealedIndex}
+ * và bản trên heap bị bỏ, nên heap chỉ giữ chỉ mục của một segment.
+ */
+final class MemoryIndex implements SegmentIndex {
+    // key trong file chỉ mục có độ dài short, 3 byte UTF-8 mỗi ký tự vẫn nằm trong giới hạn
+    private static final int MAX_KEY_LENGTH = 0x3FFF;
+
+    private final Map<IndexKey, Map<String, PostingList>> postings = new EnumMap<>(IndexKey.class);
+    private long[] timestamps = new long[1024];
+    private int[] offsets = new int[1024];
+    private int size;
+
+    MemoryIndex() {
+        for (IndexKey key : IndexKey.values()) {
+            postings.put(key, new ConcurrentHashMap<>());
+        }
+    }
+
+    // chỉ một luồng ghi (đã giữ khoá của audit log), luồng đọc thấy bản ghi sau khi size tăng
+    void add(int offset, long timestamp) {
+        synchronized (this) {
+            if (size == timestamps.length) {
+                int capacity = size + (size >> 1);
+                timestamps = Arrays.copyOf(timestamps, capacity);
+                offsets = Arrays.copyOf(offsets, capacity);
+            }
+            timestamps[size] = timestamp;
+            offsets[size] = offset;
+            size++;
+        }
+    }
+
+    void addPosting(IndexKey key, String value, int offset) {
+        if (value == null || value.isEmpty() || value.length() > MAX_KEY_LENGTH) return;
+
+        postings.get(key).computeIfAbsent(value, k -> new PostingList()).add(offset);
+    }
+
+    Map<String, PostingList> table(IndexKey key) {
+        return postings.get(key);
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized long timestamp(int record) {
+        return timestamps[record];
+    }
+
+    @Override
+    public synchronized int offset(int record) {
+        return offsets[record];
+    }
+
+    @Override
+    public int[] postings(IndexKey key, String value) {
+        PostingList list = value != null ? postings.get(key).get(value) : null;
+        return list != null ? list.snapshot() : new int[0];
+    }
+}
@@ -0,0 +1,30 @@
+package com.digitalsign.audit;
+
+import java.util.Arrays;
+
+/**
+ * Danh sách offset bản ghi trong một segment dạng int[] tăng dần, không boxing.
+ */
+final class PostingList {
+    private int[] values = new int[4];
+    private int size;
+
+    // bỏ qua nếu trùng phần tử cuối (một file có nhiều chữ ký cùng chứng thư)
+    synchronized void add(int value) {
+        if (size > 0 && values[size - 1] == value) {
+            return;
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size + (size >> 1) + 1);
+        }
+        values[size++] = value;
+    }
+
+    synchronized int[] snapshot() {
+        return Arrays.copyOf(values, size);
+    }
+
+    synchronized int size() {
+        return size;
+    }
+}
@@ -0,0 +1,183 @@
+package com.digitalsign.audit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Chỉ mục của một segment đã đầy, lưu cạnh segment và được map chỉ đọc, nên không chiếm heap và không cần
+ * quét lại segment khi khởi động.
+ *
+ * File: [int magic][int version][int crc32][int segmentEnd][int count] count x {[long timestamp][int offset]},
+ * sau đó với mỗi {@link IndexKey}: [int keyCount] keyCount x [int entryPosition], các entry
+ * {[short len][UTF-8 key][int postingCount] postingCount x [int offset]} sắp theo key để tìm nhị phân.
+ * crc32 tính từ segmentEnd đến hết file.
+ */
+final class SealedIndex implements SegmentIndex {
+    private static final int MAGIC = 0x41494458;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 20;
+    private static final int RECORD_SIZE = 12;
+
+    private final MappedByteBuffer buffer;
+    private final int segmentEnd;
+    private final int size;
+    private final int[] tablePositions = new int[IndexKey.values().length];
+    private final int[] keyCounts = new int[IndexKey.values().length];
+
+    private SealedIndex(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        this.segmentEnd = buffer.getInt(12);
+        this.size = buffer.getInt(16);
+        int position = HEADER_SIZE + size * RECORD_SIZE;
+        for (IndexKey key : IndexKey.values()) {
+            keyCounts[key.ordinal()] = buffer.getInt(position);
+            tablePositions[key.ordinal()] = position + 4;
+            position += 4 + keyCounts[key.ordinal()] * 4;
+        }
+    }
+
+    // null khi file không tồn tại, của phiên bản khác hoặc bị hỏng: segment sẽ được quét lại
+    static SealedIndex open(Path path) throws IOException {
+        if (!Files.exists(path)) return null;
+
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) return null;
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) return null;
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().position(12));
+        if ((int) crc.getValue() != buffer.getInt(8)) return null;
+        return new SealedIndex(buffer);
+    }
+
+    // ghi ra file tạm rồi đổi tên, nên file chỉ mục hoặc đầy đủ hoặc không có
+    static SealedIndex write(Path path, MemoryIndex index, int segmentEnd) throws IOException {
+        int size = index.size();
+        List<byte[]> tables = new ArrayList<>();
+        ByteArrayOutputStream entries = new ByteArrayOutputStream();
+        DataOutputStream entriesOut = new DataOutputStream(entries);
+        int tablesSize = 0;
+        List<int[]> entryPositions = new ArrayList<>();
+        for (IndexKey key : IndexKey.values()) {
+            Map<String, PostingList> sorted = new TreeMap<>(index.table(key));
+            int[] positions = new int[sorted.size()];
+            int i = 0;
+            for (Map.Entry<String, PostingList> entry : sorted.entrySet()) {
+                positions[i++] = entriesOut.size();
+                byte[] value = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                int[] postings = entry.getValue().snapshot();
+                entriesOut.writeShort(value.length);
+                entriesOut.write(value);
+                entriesOut.writeInt(postings.length);
+                for (int posting : postings) {
+                    entriesOut.writeInt(posting);
+                }
+            }
+            entryPositions.add(positions);
+            tablesSize += 4 + positions.length * 4;
+        }
+
+        int entriesStart = HEADER_SIZE + size * RECORD_SIZE + tablesSize;
+        for (int[] positions : entryPositions) {
+            ByteBuffer table = ByteBuffer.allocate(4 + positions.length * 4);
+            table.putInt(positions.length);
+            for (int position : positions) {
+                table.putInt(entriesStart + position);
+            }
+            tables.add(table.array());
+        }
+
+        ByteBuffer body = ByteBuffer.allocate(entriesStart + entries.size());
+        body.position(12);
+        body.putInt(segmentEnd);
+        body.putInt(size);
+        for (int i = 0; i < size; i++) {
+            body.putLong(index.timestamp(i));
+            body.putInt(index.offset(i));
+        }
+        for (byte[] table : tables) {
+            body.put(table);
+        }
+        body.put(entries.toByteArray());
+
+        CRC32 crc = new CRC32();
+        crc.update(body.array(), 12, body.capacity() - 12);
+        body.putInt(0, MAGIC);
+        body.putInt(4, VERSION);
+        body.putInt(8, (int) crc.getValue());
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.write(temp, body.array());
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return open(path);
+    }
+
+    int getSegmentEnd() {
+        return segmentEnd;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long timestamp(int record) {
+        return buffer.getLong(HEADER_SIZE + record * RECORD_SIZE);
+    }
+
+    @Override
+    public int offset(int record) {
+        return buffer.getInt(HEADER_SIZE + record * RECORD_SIZE + 8);
+    }
+
+    @Override
+    public int[] postings(IndexKey key, String value) {
+        if (value == null) return new int[0];
+
+        int table = tablePositions[key.ordinal()];
+        int low = 0;
+        int high = keyCounts[key.ordinal()] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int entry = buffer.getInt(table + mid * 4);
+            int length = buffer.getShort(entry) & 0xFFFF;
+            byte[] bytes = new byte[length];
+            buffer.get(entry + 2, bytes);
+            int compared = new String(bytes, StandardCharsets.UTF_8).compareTo(value);
+            if (compared < 0) {
+                low = mid + 1;
+            } else if (compared > 0) {
+                high = mid - 1;
+            } else {
+                int count = buffer.getInt(entry + 2 + length);
+                int[] postings = new int[count];
+                for (int i = 0; i < count; i++) {
+                    postings[i] = buffer.getInt(entry + 6 + length + i * 4);
+                }
+                return postings;
+            }
+        }
+        return new int[0];
+    }
+}
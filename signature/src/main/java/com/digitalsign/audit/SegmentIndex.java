@@ -0,0 +1,27 @@
+package com.digitalsign.audit;
+
+/**
+ * Chỉ mục của một segment. Bản ghi trong segment được ghi theo thứ tự thời gian nên bản ghi thứ i có
+ * timestamp và offset không giảm theo i; posting là offset tăng dần.
+ */
+interface SegmentIndex {
+    int size();
+
+    long timestamp(int record);
+
+    int offset(int record);
+
+    int[] postings(IndexKey key, String value);
+
+    // vị trí bản ghi đầu tiên có timestamp >= key, size() nếu không có
+    default int lowerBound(long key) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamp(mid) < key) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+}
@@ -0,0 +1,446 @@
+package com.digitalsign.audit;
+
+import com.digitalsign.model.CertificateInfo;
+import com.digitalsign.model.SignatureInfo;
+import com.digitalsign.model.SignatureVerificationResult;
+import com.digitalsign.model.VerificationStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.CRC32;
+
+/**
+ * Nhật ký kiểm toán chỉ ghi thêm, lưu trong các segment cố định kích thước được map vào bộ nhớ.
+ *
+ * Bản ghi: [int length][int crc32][long timestamp][byte status][str fileName][str fileHash]
+ * [short count]{[byte status][str serial][str thumbprint][str signer]}*[str tenantId], với str = [short len][UTF-8].
+ * Bản ghi cũ không có tenantId ở cuối. Thân bản ghi được ghi trước, crc và length ghi sau cùng, nên bản ghi
+ * dở dang (length = 0 hoặc sai crc) đánh dấu điểm kết thúc khi mở lại.
+ *
+ * Chỉ mục phụ (serial, thumbprint, signer, thời gian) được chia theo segment: segment đang ghi có chỉ mục trên
+ * heap, segment đã đầy có chỉ mục {@link SealedIndex} lưu cạnh file và được map chỉ đọc. Khi khởi động chỉ quét
+ * segment đang ghi (và segment thiếu file chỉ mục). Truy vấn trả về theo thứ tự thời gian, phân trang bằng
+ * offset/limit với limit bị chặn bởi {@code max-page-size}. Mọi truy vấn đều thuộc đúng một tenant.
+ */
+@Component
+public class VerificationAuditLog {
+    private static final Logger logger = LoggerFactory.getLogger(VerificationAuditLog.class);
+
+    private static final int HEADER_SIZE = 8;
+    private static final String SEGMENT_PREFIX = "audit-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String INDEX_SUFFIX = ".idx";
+
+    @Value("${signature.audit.enabled:false}")
+    private boolean enabled;
+
+    @Value("${signature.audit.directory:audit}")
+    private String directory;
+
+    @Value("${signature.audit.segment-size:67108864}")
+    private int segmentSize;
+
+    @Value("${signature.audit.max-page-size:1000}")
+    private int maxPageSize;
+
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    // guarded by this: chỉ mục của segment cuối, segment duy nhất còn được ghi
+    private MemoryIndex activeIndex;
+    private long lastTimestamp;
+
+    private static final class Segment {
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private volatile int writePosition;
+        private volatile SegmentIndex index;
+
+        private Segment(Path path, int size) throws IOException {
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) return;
+
+        Path dir = Path.of(directory);
+        Files.createDirectories(dir);
+
+        List<Path> files = new ArrayList<>();
+        try (var stream = Files.list(dir)) {
+            stream.filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                    && p.getFileName().toString().endsWith(SEGMENT_SUFFIX)).forEach(files::add);
+        }
+        Collections.sort(files);
+
+        long records = 0;
+        int scanned = 0;
+        for (int i = 0; i < files.size(); i++) {
+            Path file = files.get(i);
+            Segment segment = new Segment(file, Math.max(segmentSize, (int) Files.size(file)));
+            segments.add(segment);
+            boolean active = i == files.size() - 1;
+            SealedIndex sealed = active ? null : SealedIndex.open(indexPath(file));
+            if (sealed != null) {
+                segment.index = sealed;
+                segment.writePosition = sealed.getSegmentEnd();
+            } else {
+                MemoryIndex index = recover(segment);
+                scanned++;
+                if (active) {
+                    activeIndex = index;
+                } else {
+                    seal(segment, index);
+                }
+            }
+            records += segment.index.size();
+        }
+        if (segments.isEmpty()) {
+            Segment segment = new Segment(segmentPath(0), segmentSize);
+            activeIndex = new MemoryIndex();
+            segment.index = activeIndex;
+            segments.add(segment);
+        }
+        for (Segment segment : segments) {
+            if (segment.index.size() > 0) {
+                lastTimestamp = segment.index.timestamp(segment.index.size() - 1);
+            }
+        }
+        logger.info("Audit log opened at {}: {} segments ({} scanned), {} records", dir.toAbsolutePath(),
+                segments.size(), scanned, records);
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        for (Segment segment : segments) {
+            segment.buffer.force();
+            segment.channel.close();
+        }
+        segments.clear();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void append(SignatureVerificationResult result, String tenantId) {
+        if (!enabled) return;
+
+        try {
+            doAppend(result, tenantId);
+        } catch (IOException | RuntimeException e) {
+            // kiểm toán không được làm hỏng kết quả xác minh trả về cho người dùng
+            logger.error("Could not append audit record for {}: {}", result.getFileName(), e.getMessage());
+        }
+    }
+
+    public synchronized void flush() {
+        for (Segment segment : segments) {
+            segment.buffer.force();
+        }
+    }
+
+    public List<AuditRecord> findBySerial(String serialNumber, String tenantId, int offset, int limit) {
+        return find(IndexKey.SERIAL, normalizeSerial(serialNumber), null, null, tenantId, offset, limit);
+    }
+
+    public List<AuditRecord> findByThumbprint(String thumbprint, String tenantId, int offset, int limit) {
+        return find(IndexKey.THUMBPRINT, normalize(thumbprint), null, null, tenantId, offset, limit);
+    }
+
+    public List<AuditRecord> findBySigner(String signerName, Instant from, Instant to, String tenantId, int offset,
+                                          int limit) {
+        return find(IndexKey.SIGNER, normalize(signerName), from, to, tenantId, offset, limit);
+    }
+
+    public List<AuditRecord> findByTime(Instant from, Instant to, String tenantId, int offset, int limit) {
+        return find(null, null, from, to, tenantId, offset, limit);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.index.size();
+        }
+        return size;
+    }
+
+    public int getMaxPageSize() {
+        return maxPageSize;
+    }
+
+    // key null: duyệt chỉ mục thời gian; tenantId bắt buộc, không có truy vấn xuyên tenant
+    private List<AuditRecord> find(IndexKey key, String value, Instant from, Instant to, String tenantId,
+                                   int offset, int limit) {
+        Objects.requireNonNull(tenantId, "tenantId");
+        if (offset < 0 || limit <= 0) {
+            throw new IllegalArgumentException("offset must not be negative and limit must be positive");
+        }
+        Page page = new Page(tenantId, offset, Math.min(limit, maxPageSize));
+        if (key != null && value == null) return page.records;
+
+        long fromMillis = millis(from, Long.MIN_VALUE);
+        long toMillis = millis(to, Long.MAX_VALUE - 1) + 1;
+        for (Segment segment : segments) {
+            SegmentIndex index = segment.index;
+            int first = index.lowerBound(fromMillis);
+            int last = index.lowerBound(toMillis);
+            if (first >= last) continue;
+
+            if (key == null) {
+                for (int i = first; i < last; i++) {
+                    if (!page.add(segment, index.offset(i))) return page.records;
+                }
+                continue;
+            }
+            // offset tăng theo thời gian trong segment: khoảng thời gian thành khoảng offset, không cần đọc bản ghi
+            int startOffset = index.offset(first);
+            int endOffset = last < index.size() ? index.offset(last) : Integer.MAX_VALUE;
+            for (int posting : index.postings(key, value)) {
+                if (posting < startOffset) continue;
+                if (posting >= endOffset) break;
+                if (!page.add(segment, posting)) return page.records;
+            }
+        }
+        return page.records;
+    }
+
+    private synchronized void doAppend(SignatureVerificationResult result, String tenantId) throws IOException {
+        long timestamp = Math.max(System.currentTimeMillis(), lastTimestamp);
+        List<AuditSignature> signatures = new ArrayList<>();
+        if (result.getSignatures() != null) {
+            for (SignatureInfo signature : result.getSignatures()) {
+                CertificateInfo certificate = signature.getCertificate();
+                signatures.add(new AuditSignature(
+                        certificate != null ? certificate.getSerialNumber() : signature.getCertificateSerialNumber(),
+                        certificate != null ? certificate.getThumbprint() : signature.getCertificateThumbprint(),
+                        signature.getSignerName(), signature.getStatus()));
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(timestamp);
+        out.writeByte(statusCode(result.getOverallStatus()));
+        writeString(out, result.getFileName());
+        writeString(out, result.getFileHash());
+        out.writeShort(signatures.size());
+        for (AuditSignature signature : signatures) {
+            out.writeByte(statusCode(signature.getStatus()));
+            writeString(out, signature.getSerialNumber());
+            writeString(out, signature.getThumbprint());
+            writeString(out, signature.getSignerName());
+        }
+        writeString(out, tenantId);
+        byte[] body = bytes.toByteArray();
+        int length = HEADER_SIZE + body.length;
+        if (length > segmentSize) {
+            throw new IOException("Audit record of " + length + " bytes exceeds segment size");
+        }
+
+        Segment segment = segments.get(segments.size() - 1);
+        if (segment.writePosition + length > segment.buffer.capacity()) {
+            segment.buffer.force();
+            seal(segment, activeIndex);
+            segment = new Segment(segmentPath(segments.size()), segmentSize);
+            activeIndex = new MemoryIndex();
+            segment.index = activeIndex;
+            segments.add(segment);
+        }
+
+        int offset = segment.writePosition;
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        segment.buffer.put(offset + HEADER_SIZE, body);
+        segment.buffer.putInt(offset + 4, (int) crc.getValue());
+        segment.buffer.putInt(offset, length);
+        segment.writePosition = offset + length;
+
+        index(activeIndex, offset, timestamp, signatures);
+        lastTimestamp = timestamp;
+    }
+
+    // lỗi ghi file chỉ mục không làm mất dữ liệu: segment giữ chỉ mục trên heap và được quét lại lần khởi động sau
+    private void seal(Segment segment, MemoryIndex index) {
+        try {
+            segment.index = SealedIndex.write(indexPath(segment.path), index, segment.writePosition);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not write audit index for {}: {}", segment.path, e.getMessage());
+            segment.index = index;
+        }
+    }
+
+    private MemoryIndex recover(Segment segment) {
+        MemoryIndex index = new MemoryIndex();
+        int offset = 0;
+        MappedByteBuffer buffer = segment.buffer;
+        while (offset + HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(offset);
+            if (length <= HEADER_SIZE || offset + length > buffer.capacity()) break;
+
+            byte[] body = new byte[length - HEADER_SIZE];
+            buffer.get(offset + HEADER_SIZE, body);
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                logger.warn("Audit segment {} has a torn record at offset {}, truncating", segment.path, offset);
+                break;
+            }
+
+            AuditRecord record = decode(body);
+            index(index, offset, record.getTimestamp().toEpochMilli(), record.getSignatures());
+            offset += length;
+        }
+        // xoá phần đuôi dở dang để lần ghi tiếp theo không nối sau dữ liệu hỏng
+        for (int i = offset; i < Math.min(buffer.capacity(), offset + HEADER_SIZE); i++) {
+            buffer.put(i, (byte) 0);
+        }
+        segment.writePosition = offset;
+        segment.index = index;
+        return index;
+    }
+
+    private void index(MemoryIndex index, int offset, long timestamp, List<AuditSignature> signatures) {
+        for (AuditSignature signature : signatures) {
+            index.addPosting(IndexKey.SERIAL, normalizeSerial(signature.getSerialNumber()), offset);
+            index.addPosting(IndexKey.THUMBPRINT, normalize(signature.getThumbprint()), offset);
+            index.addPosting(IndexKey.SIGNER, normalize(signature.getSignerName()), offset);
+        }
+        index.add(offset, timestamp);
+    }
+
+    private AuditRecord readRecord(Segment segment, int offset) {
+        int length = segment.buffer.getInt(offset);
+        byte[] body = new byte[length - HEADER_SIZE];
+        segment.buffer.get(offset + HEADER_SIZE, body);
+        return decode(body);
+    }
+
+    private AuditRecord decode(byte[] body) {
+        ByteBuffer in = ByteBuffer.wrap(body);
+        long timestamp = in.getLong();
+        VerificationStatus overallStatus = status(in.get());
+        String fileName = readString(in);
+        String fileHash = readString(in);
+        int count = in.getShort() & 0xFFFF;
+        List<AuditSignature> signatures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            VerificationStatus status = status(in.get());
+            String serial = readString(in);
+            String thumbprint = readString(in);
+            String signer = readString(in);
+            signatures.add(new AuditSignature(serial, thumbprint, signer, status));
+        }
+        String tenantId = in.hasRemaining() ? readString(in) : null;
+        return new AuditRecord(Instant.ofEpochMilli(timestamp), tenantId, fileName, fileHash, overallStatus,
+                Collections.unmodifiableList(signatures));
+    }
+
+    private void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeShort(0xFFFF);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, 0xFFFE);
+        out.writeShort(length);
+        out.write(bytes, 0, length);
+    }
+
+    private String readString(ByteBuffer in) {
+        int length = in.getShort() & 0xFFFF;
+        if (length == 0xFFFF) return null;
+        String value = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private int statusCode(VerificationStatus status) {
+        return status == null ? 0xFF : status.ordinal();
+    }
+
+    private VerificationStatus status(byte code) {
+        int ordinal = code & 0xFF;
+        return ordinal < VerificationStatus.values().length ? VerificationStatus.values()[ordinal] : null;
+    }
+
+    private static long millis(Instant instant, long defaultValue) {
+        return instant != null ? instant.toEpochMilli() : defaultValue;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? null : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // serial được lưu dạng hex in hoa, bỏ số 0 ở đầu để "00AB12" và "ab12" khớp nhau
+    private static String normalizeSerial(String value) {
+        String normalized = normalize(value);
+        if (normalized == null) return null;
+        int i = 0;
+        while (i < normalized.length() - 1 && normalized.charAt(i) == '0') i++;
+        return normalized.substring(i);
+    }
+
+    private Path segmentPath(int index) {
+        return Path.of(directory).resolve(String.format("%s%05d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+
+    private static Path indexPath(Path segmentPath) {
+        String name = segmentPath.getFileName().toString();
+        return segmentPath.resolveSibling(name.substring(0, name.length() - SEGMENT_SUFFIX.length()) + INDEX_SUFFIX);
+    }
+
+    /**
+     * Một trang kết quả của một tenant: bỏ qua {@code offset} bản ghi khớp đầu tiên.
+     */
+    private final class Page {
+        private final String tenantId;
+        private final int limit;
+        private final List<AuditRecord> records;
+        private int skip;
+
+        private Page(String tenantId, int offset, int limit) {
+            this.tenantId = tenantId;
+            this.limit = limit;
+            this.skip = offset;
+            this.records = new ArrayList<>(Math.min(limit, 64));
+        }
+
+        // false khi trang đã đầy
+        private boolean add(Segment segment, int offset) {
+            AuditRecord record = readRecord(segment, offset);
+            if (!tenantId.equals(record.getTenantId())) return true;
+            if (skip > 0) {
+                skip--;
+                return true;
+            }
+            records.add(record);
+            return records.size() < limit;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.digitalsign.cache;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Thông báo huỷ cache được phát tới mọi node. key == null nghĩa là huỷ cả partition (khi partition != null)
+ * hoặc toàn bộ region.
+ */
+@Getter
+@RequiredArgsConstructor
+public final class CacheInvalidation {
+    private final String region;
+    private final String partition;
+    private final String key;
+    private final String reason;
+    private final String originNodeId;
+
+    public boolean isWholeRegion() {
+        return key == null && partition == null;
+    }
+
+    public boolean isWholePartition() {
+        return key == null && partition != null;
+    }
+}
@@ -0,0 +1,72 @@
+package com.digitalsign.cache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * RemoteCacheStore chạy trong tiến trình: dùng khi chỉ có một node, và trong test để giả lập
+ * nhiều replica dùng chung một store (mỗi TwoTierCache là một "node").
+ */
+public class InMemoryRemoteCacheStore implements RemoteCacheStore {
+    private final Map<String, Map<String, Entry>> regions = new ConcurrentHashMap<>();
+    private final List<Consumer<CacheInvalidation>> listeners = new CopyOnWriteArrayList<>();
+
+    private static final class Entry {
+        private final byte[] value;
+        private final long expiresAt;
+
+        private Entry(byte[] value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    @Override
+    public byte[] get(String region, String key) {
+        Map<String, Entry> entries = regions.get(region);
+        if (entries == null) return null;
+
+        Entry entry = entries.get(key);
+        if (entry == null) return null;
+        if (entry.expiresAt < System.currentTimeMillis()) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.value;
+    }
+
+    @Override
+    public void put(String region, String key, byte[] value, Duration ttl) {
+        regions.computeIfAbsent(region, r -> new ConcurrentHashMap<>())
+                .put(key, new Entry(value, System.currentTimeMillis() + ttl.toMillis()));
+    }
+
+    @Override
+    public void evict(String region, String key) {
+        Map<String, Entry> entries = regions.get(region);
+        if (entries != null) {
+            entries.remove(key);
+        }
+    }
+
+    @Override
+    public void clear(String region) {
+        regions.remove(region);
+    }
+
+    @Override
+    public void publish(CacheInvalidation invalidation) {
+        for (Consumer<CacheInvalidation> listener : listeners) {
+            listener.accept(invalidation);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheInvalidation> listener) {
+        listeners.add(listener);
+    }
+}
@@ -0,0 +1,22 @@
+package com.digitalsign.cache;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * Tầng cache dùng chung giữa các replica (Redis, Hazelcast...). Giá trị là byte đã serialize,
+ * nên mọi backend chỉ cần lưu được byte[] theo (region, key) và phát được thông báo huỷ.
+ */
+public interface RemoteCacheStore {
+    byte[] get(String region, String key);
+
+    void put(String region, String key, byte[] value, Duration ttl);
+
+    void evict(String region, String key);
+
+    void clear(String region);
+
+    void publish(CacheInvalidation invalidation);
+
+    void subscribe(Consumer<CacheInvalidation> listener);
+}
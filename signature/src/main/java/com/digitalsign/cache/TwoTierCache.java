@@ -0,0 +1,238 @@
+package com.digitalsign.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache hai tầng: near-cache LRU trong JVM đứng trước RemoteCacheStore dùng chung.
+ * Cả hai tầng lưu byte JSON, mỗi lần get trả về một bản sao mới nên người gọi có thể sửa kết quả.
+ * Lỗi của tầng remote chỉ được log, cache khi đó hoạt động như near-cache thuần.
+ * Near-cache được chia partition (theo tenant), mỗi partition có giới hạn LRU và khoá riêng
+ * nên một tenant nạp nhiều dữ liệu không đẩy mục của tenant khác ra khỏi cache. Số partition bị giới hạn:
+ * khi đã đủ, mục của partition mới chỉ được lưu ở tầng remote.
+ */
+public class TwoTierCache<V> {
+    private static final Logger logger = LoggerFactory.getLogger(TwoTierCache.class);
+    private static final String SHARED_PARTITION = "";
+
+    private final String region;
+    private final Class<V> valueType;
+    private final ObjectMapper objectMapper;
+    private final RemoteCacheStore remote;
+    private final String nodeId;
+    private final Duration ttl;
+    private final int nearMaxEntries;
+    private final int maxPartitions;
+    private final ConcurrentMap<String, NearPartition> near = new ConcurrentHashMap<>();
+
+    private final AtomicLong nearHits = new AtomicLong();
+    private final AtomicLong remoteHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private static final class NearEntry {
+        private final byte[] value;
+        private final long expiresAt;
+
+        private NearEntry(byte[] value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class NearPartition extends LinkedHashMap<String, NearEntry> {
+        private final int maxEntries;
+
+        private NearPartition(int maxEntries) {
+            super(64, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, NearEntry> eldest) {
+            return size() > maxEntries;
+        }
+    }
+
+    public TwoTierCache(String region, Class<V> valueType, ObjectMapper objectMapper, RemoteCacheStore remote,
+                        String nodeId, int nearMaxEntries, int maxPartitions, Duration ttl) {
+        this.region = region;
+        this.valueType = valueType;
+        this.objectMapper = objectMapper;
+        this.remote = remote;
+        this.nodeId = nodeId;
+        this.ttl = ttl;
+        this.nearMaxEntries = nearMaxEntries;
+        this.maxPartitions = maxPartitions;
+        remote.subscribe(this::onInvalidation);
+    }
+
+    public V get(String key) {
+        return get(SHARED_PARTITION, key);
+    }
+
+    public V get(String partition, String key) {
+        byte[] value = getNear(partition, key);
+        if (value != null) {
+            nearHits.incrementAndGet();
+            return deserialize(key, value);
+        }
+
+        try {
+            value = remote.get(region, key);
+        } catch (RuntimeException e) {
+            logger.warn("Remote cache get failed for region {}: {}", region, e.getMessage());
+        }
+        if (value == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        remoteHits.incrementAndGet();
+        putNear(partition, key, value);
+        return deserialize(key, value);
+    }
+
+    public void put(String key, V value) {
+        put(SHARED_PARTITION, key, value);
+    }
+
+    public void put(String partition, String key, V value) {
+        byte[] bytes;
+        try {
+            bytes = objectMapper.writeValueAsBytes(value);
+        } catch (Exception e) {
+            logger.warn("Could not serialize {} cache entry: {}", region, e.getMessage());
+            return;
+        }
+
+        putNear(partition, key, bytes);
+        try {
+            remote.put(region, key, bytes, ttl);
+        } catch (RuntimeException e) {
+            logger.warn("Remote cache put failed for region {}: {}", region, e.getMessage());
+        }
+    }
+
+    public void invalidate(String key, String reason) {
+        removeNear(key);
+        try {
+            remote.evict(region, key);
+            remote.publish(new CacheInvalidation(region, null, key, reason, nodeId));
+        } catch (RuntimeException e) {
+            logger.warn("Remote cache invalidation failed for region {}: {}", region, e.getMessage());
+        }
+    }
+
+    public void invalidateAll(String reason) {
+        clearNear();
+        try {
+            remote.clear(region);
+            remote.publish(new CacheInvalidation(region, null, null, reason, nodeId));
+        } catch (RuntimeException e) {
+            logger.warn("Remote cache invalidation failed for region {}: {}", region, e.getMessage());
+        }
+    }
+
+    /**
+     * Xoá near-cache của partition trên mọi node. Mục trên remote được giữ đến hết TTL: người gọi dùng khoá
+     * chứa phiên bản dữ liệu nguồn (fingerprint trust store) nên mục cũ không còn được đọc.
+     */
+    public void clearPartition(String partition, String reason) {
+        near.remove(partition);
+        try {
+            remote.publish(new CacheInvalidation(region, partition, null, reason, nodeId));
+        } catch (RuntimeException e) {
+            logger.warn("Remote cache invalidation failed for region {}: {}", region, e.getMessage());
+        }
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public long getNearHits() {
+        return nearHits.get();
+    }
+
+    public long getRemoteHits() {
+        return remoteHits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private void onInvalidation(CacheInvalidation invalidation) {
+        if (!region.equals(invalidation.getRegion()) || nodeId.equals(invalidation.getOriginNodeId())) {
+            return;
+        }
+        logger.debug("Invalidating {} near-cache ({}) from node {}", region,
+                invalidation.getReason(), invalidation.getOriginNodeId());
+        if (invalidation.isWholeRegion()) {
+            clearNear();
+        } else if (invalidation.isWholePartition()) {
+            near.remove(invalidation.getPartition());
+        } else {
+            removeNear(invalidation.getKey());
+        }
+    }
+
+    private V deserialize(String key, byte[] value) {
+        try {
+            return objectMapper.readValue(value, valueType);
+        } catch (Exception e) {
+            logger.warn("Dropping unreadable {} cache entry: {}", region, e.getMessage());
+            removeNear(key);
+            return null;
+        }
+    }
+
+    private byte[] getNear(String partition, String key) {
+        NearPartition entries = near.get(partition);
+        if (entries == null) return null;
+        synchronized (entries) {
+            NearEntry entry = entries.get(key);
+            if (entry == null) return null;
+            if (entry.expiresAt < System.currentTimeMillis()) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.value;
+        }
+    }
+
+    private void putNear(String partition, String key, byte[] value) {
+        NearPartition entries = near.get(partition);
+        if (entries == null) {
+            if (near.size() >= maxPartitions) {
+                logger.debug("Near-cache of region {} already has {} partitions, not caching {} locally", region,
+                        near.size(), partition);
+                return;
+            }
+            entries = near.computeIfAbsent(partition, name -> new NearPartition(nearMaxEntries));
+        }
+        synchronized (entries) {
+            entries.put(key, new NearEntry(value, System.currentTimeMillis() + ttl.toMillis()));
+        }
+    }
+
+    private void removeNear(String key) {
+        for (NearPartition entries : near.values()) {
+            synchronized (entries) {
+                entries.remove(key);
+            }
+        }
+    }
+
+    private void clearNear() {
+        near.clear();
+    }
+}
@@ -0,0 +1,116 @@
+package com.digitalsign.cache;
+
+import com.digitalsign.model.CertificateInfo;
+import com.digitalsign.model.SignatureVerificationResult;
+import com.digitalsign.model.VerificationMode;
+import com.digitalsign.trust.TrustStoreSnapshot;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Các region cache dùng chung giữa các replica: kết quả xác minh theo hash file và
+ * thông tin chứng thư theo thumbprint. Khoá của kết quả chứa fingerprint trust store của tenant (gồm cả CRL),
+ * nên sau khi CA hoặc dữ liệu thu hồi thay đổi, mục cũ trên tầng remote không còn được đọc ở bất kỳ node nào.
+ */
+@Component
+public class VerificationCache {
+    public static final String RESULTS_REGION = "verification-results";
+    public static final String CERTIFICATES_REGION = "certificates";
+
+    @Autowired
+    private RemoteCacheStore remoteCacheStore;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${signature.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${signature.cache.node-id:#{T(java.util.UUID).randomUUID().toString()}}")
+    private String nodeId;
+
+    // giới hạn cho mỗi partition (tenant) của near-cache
+    @Value("${signature.cache.near.max-entries:2048}")
+    private int nearMaxEntries;
+
+    // tenant đã cấu hình trust store + tenant mặc định; vượt quá thì chỉ dùng tầng remote
+    @Value("${signature.cache.near.max-partitions:64}")
+    private int nearMaxPartitions;
+
+    @Value("${signature.cache.results.ttl:PT10M}")
+    private Duration resultsTtl;
+
+    @Value("${signature.cache.certificates.ttl:PT1H}")
+    private Duration certificatesTtl;
+
+    private TwoTierCache<SignatureVerificationResult> results;
+    private TwoTierCache<CertificateInfo> certificates;
+    private final List<TwoTierCache<?>> regions = new CopyOnWriteArrayList<>();
+
+    @PostConstruct
+    void init() {
+        results = region(RESULTS_REGION, SignatureVerificationResult.class, resultsTtl);
+        certificates = region(CERTIFICATES_REGION, CertificateInfo.class, certificatesTtl);
+    }
+
+    // region riêng cho từng processor, cũng bị xoá theo clearTenant
+    public <V> TwoTierCache<V> region(String name, Class<V> valueType, Duration ttl) {
+        TwoTierCache<V> region = new TwoTierCache<>(name, valueType, objectMapper, remoteCacheStore, nodeId,
+                nearMaxEntries, nearMaxPartitions, ttl);
+        regions.add(region);
+        return region;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public SignatureVerificationResult getResult(TrustStoreSnapshot trustStore, String fileHash, VerificationMode mode) {
+        return enabled ? results.get(trustStore.getTenantId(), resultKey(trustStore, fileHash, mode)) : null;
+    }
+
+    public void putResult(TrustStoreSnapshot trustStore, String fileHash, VerificationMode mode,
+                          SignatureVerificationResult result) {
+        if (enabled) {
+            results.put(trustStore.getTenantId(), resultKey(trustStore, fileHash, mode), result);
+        }
+    }
+
+    public CertificateInfo getCertificateInfo(String tenantId, String thumbprint) {
+        return enabled ? certificates.get(tenantId, thumbprint) : null;
+    }
+
+    public void putCertificateInfo(String tenantId, String thumbprint, CertificateInfo info) {
+        if (enabled) {
+            certificates.put(tenantId, thumbprint, info);
+        }
+    }
+
+    // trust store hoặc CRL của tenant thay đổi: bỏ near-cache của tenant đó trên mọi replica,
+    // các tenant khác không bị ảnh hưởng
+    public void clearTenant(String tenantId) {
+        for (TwoTierCache<?> region : regions) {
+            region.clearPartition(tenantId, "trust store of tenant " + tenantId + " changed");
+        }
+    }
+
+    public TwoTierCache<SignatureVerificationResult> getResults() {
+        return results;
+    }
+
+    public TwoTierCache<CertificateInfo> getCertificates() {
+        return certificates;
+    }
+
+    // kết quả phụ thuộc vào tập CA tin cậy nên khoá chứa tenant và fingerprint của trust store
+    private String resultKey(TrustStoreSnapshot trustStore, String fileHash, VerificationMode mode) {
+        return trustStore.getTenantId() + ":" + trustStore.getFingerprint() + ":" + fileHash + ":" + mode.name();
+    }
+}
@@ -0,0 +1,18 @@
+package com.digitalsign.config;
+
+import com.digitalsign.cache.InMemoryRemoteCacheStore;
+import com.digitalsign.cache.RemoteCacheStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration(proxyBeanMethods = false)
+public class CacheConfig {
+
+    // triển khai nhiều replica thì khai báo một RemoteCacheStore dùng backend thật để thay thế
+    @Bean
+    @ConditionalOnMissingBean(RemoteCacheStore.class)
+    public RemoteCacheStore remoteCacheStore() {
+        return new InMemoryRemoteCacheStore();
+    }
+}
@@ -1,4 +1,32 @@
 package com.digitalsign.config;
 
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.pqc.jcajce.provider.BouncyCastlePQCProvider;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.security.Security;
+
+/**
+ * Điểm đăng ký JCA provider duy nhất của ứng dụng. Được gọi từ main() trước khi Spring khởi động,
+ * và qua BeanFactoryPostProcessor để chắc chắn provider có sẵn trước khi bean nào được tạo
+ * (ví dụ khi context được dựng trong test).
+ */
+@Configuration(proxyBeanMethods = false)
 public class SecurityConfig {
+
+    public static synchronized void registerProviders() {
+        if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
+            Security.addProvider(new BouncyCastleProvider());
+        }
+        if (Security.getProvider(BouncyCastlePQCProvider.PROVIDER_NAME) == null) {
+            Security.addProvider(new BouncyCastlePQCProvider());
+        }
+    }
+
+    @Bean
+    public static BeanFactoryPostProcessor cryptoProviderRegistrar() {
+        return beanFactory -> registerProviders();
+    }
 }
@@ -0,0 +1,59 @@
+package com.digitalsign.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hai pool độc lập cho luồng xác minh tương tác và luồng quét hàng loạt, để một file lớn
+ * trong luồng bulk không chiếm hết worker của các request nhỏ.
+ */
+@Configuration(proxyBeanMethods = false)
+public class VerificationExecutorConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor interactiveVerificationExecutor(
+            @Value("${signature.lanes.interactive.threads:0}") int threads,
+            @Value("${signature.lanes.interactive.queue-capacity:200}") int queueCapacity) {
+        return createExecutor("verify-interactive-",
+                threads > 0 ? threads : Runtime.getRuntime().availableProcessors(), queueCapacity);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor bulkVerificationExecutor(
+            @Value("${signature.lanes.bulk.threads:0}") int threads,
+            @Value("${signature.lanes.bulk.queue-capacity:2000}") int queueCapacity) {
+        return createExecutor("verify-bulk-",
+                threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2), queueCapacity);
+    }
+
+    // các entry của container chạy song song; khi pool đầy, luồng gọi tự xử lý entry nên không thể deadlock
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor containerVerificationExecutor(
+            @Value("${signature.container.threads:0}") int threads,
+            @Value("${signature.container.queue-capacity:64}") int queueCapacity) {
+        ThreadPoolExecutor executor = createExecutor("verify-container-",
+                threads > 0 ? threads : Runtime.getRuntime().availableProcessors(), queueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    private ThreadPoolExecutor createExecutor(String namePrefix, int threads, int queueCapacity) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -0,0 +1,82 @@
+package com.digitalsign.controller;
+
+import com.digitalsign.audit.AuditRecord;
+import com.digitalsign.audit.VerificationAuditLog;
+import com.digitalsign.trust.TrustStoreRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tra cứu nhật ký kiểm toán. Kết quả theo thứ tự thời gian, phân trang bằng offset/limit (limit bị chặn bởi
+ * {@code signature.audit.max-page-size}). Header X-Tenant-Id được phân giải giống lúc xác minh (thiếu hoặc tenant
+ * không có trust store thì là tenant mặc định), nên chỉ trả bản ghi của đúng tenant đó.
+ * Serial và thumbprint được ghi ở mọi mode; tên người ký chỉ có khi xác minh ở mode trả chi tiết chứng thư.
+ */
+@RestController
+@RequestMapping("/api/audit")
+public class AuditController {
+    @Autowired
+    private VerificationAuditLog auditLog;
+
+    @Autowired
+    private TrustStoreRegistry trustStoreRegistry;
+
+    @GetMapping("/serial/{serialNumber}")
+    public List<AuditRecord> findBySerial(@PathVariable String serialNumber,
+                                          @RequestParam(defaultValue = "0") int offset,
+                                          @RequestParam(defaultValue = "100") int limit,
+                                          @RequestHeader(value = "X-Tenant-Id", required = false) String tenantId) {
+        return auditLog.findBySerial(serialNumber, tenant(tenantId), offset, limit);
+    }
+
+    @GetMapping("/thumbprint/{thumbprint}")
+    public List<AuditRecord> findByThumbprint(@PathVariable String thumbprint,
+                                              @RequestParam(defaultValue = "0") int offset,
+                                              @RequestParam(defaultValue = "100") int limit,
+                                              @RequestHeader(value = "X-Tenant-Id", required = false) String tenantId) {
+        return auditLog.findByThumbprint(thumbprint, tenant(tenantId), offset, limit);
+    }
+
+    @GetMapping("/signer")
+    public List<AuditRecord> findBySigner(@RequestParam String name,
+                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                          @RequestParam(defaultValue = "0") int offset,
+                                          @RequestParam(defaultValue = "100") int limit,
+                                          @RequestHeader(value = "X-Tenant-Id", required = false) String tenantId) {
+        return auditLog.findBySigner(name, from, to, tenant(tenantId), offset, limit);
+    }
+
+    @GetMapping("/records")
+    public List<AuditRecord> findByTime(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                        @RequestParam(defaultValue = "0") int offset,
+                                        @RequestParam(defaultValue = "100") int limit,
+                                        @RequestHeader(value = "X-Tenant-Id", required = false) String tenantId) {
+        return auditLog.findByTime(from, to, tenant(tenantId), offset, limit);
+    }
+
+    // bản ghi được ghi với tenant của trust store đã dùng khi xác minh, phân giải header theo cùng cách
+    private String tenant(String tenantId) {
+        return trustStoreRegistry.getSnapshot(tenantId).getTenantId();
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidPage(IllegalArgumentException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("errorCode", "INVALID_PAGE", "message", e.getMessage()));
+    }
+}
@@ -0,0 +1,49 @@
+package com.digitalsign.controller;
+
+import com.digitalsign.diagnostics.SlowVerification;
+import com.digitalsign.diagnostics.SlowVerificationRecorder;
+import com.digitalsign.guard.ResourceBudgets;
+import com.digitalsign.guard.ResourceGuard;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/diagnostics")
+public class DiagnosticsController {
+    @Autowired
+    private SlowVerificationRecorder slowVerifications;
+
+    @Autowired
+    private ResourceBudgets resourceBudgets;
+
+    @GetMapping("/slow-verifications")
+    public Map<String, Object> getSlowVerifications(@RequestParam(defaultValue = "50") int limit) {
+        List<SlowVerification> entries = slowVerifications.snapshot(limit);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("threshold", slowVerifications.getThreshold().toString());
+        response.put("recorded", slowVerifications.getRecordedCount());
+        response.put("entries", entries);
+        return response;
+    }
+
+    @GetMapping("/guards")
+    public Map<ResourceGuard, Long> getTrippedGuards() {
+        return resourceBudgets.getTrippedCounts();
+    }
+
+    @DeleteMapping("/slow-verifications")
+    public ResponseEntity<Void> clearSlowVerifications() {
+        slowVerifications.clear();
+        return ResponseEntity.noContent().build();
+    }
+}
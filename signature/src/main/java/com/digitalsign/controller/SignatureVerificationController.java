@@ -1,4 +1,75 @@
 package com.digitalsign.controller;
 
+import com.digitalsign.exception.AdmissionRejectedException;
+import com.digitalsign.exception.SignatureVerificationException;
+import com.digitalsign.exception.VerificationTimeoutException;
+import com.digitalsign.model.SignatureVerificationResult;
+import com.digitalsign.model.VerificationLane;
+import com.digitalsign.model.VerificationMode;
+import com.digitalsign.service.SignatureVerificationService;
+import com.digitalsign.util.FileUtils;
+import com.digitalsign.util.UploadedContent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/api/signatures")
 public class SignatureVerificationController {
+    @Autowired
+    private SignatureVerificationService signatureVerificationService;
+
+    @Autowired
+    private FileUtils fileUtils;
+
+    // trả về future để không giữ luồng servlet trong lúc chờ lane tương tác
+    @PostMapping("/verify")
+    public CompletableFuture<SignatureVerificationResult> verify(@RequestParam("file") MultipartFile file,
+                                                                 @RequestParam(value = "mode", defaultValue = "FULL") VerificationMode mode,
+                                                                 @RequestHeader(value = "X-Tenant-Id", required = false) String tenantId)
+            throws Exception {
+        try (UploadedContent content = fileUtils.openUpload(file)) {
+            return signatureVerificationService.verifyAsync(content, mode, tenantId);
+        }
+    }
+
+    @PostMapping("/verify/bulk")
+    public CompletableFuture<SignatureVerificationResult> verifyBulk(@RequestParam("file") MultipartFile file,
+                                                                     @RequestParam(value = "mode", defaultValue = "FULL") VerificationMode mode,
+                                                                     @RequestHeader(value = "X-Tenant-Id", required = false) String tenantId)
+            throws Exception {
+        try (UploadedContent content = fileUtils.openUpload(file)) {
+            return signatureVerificationService.submit(content, mode, VerificationLane.BULK, tenantId);
+        }
+    }
+
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<Map<String, String>> handleRejected(AdmissionRejectedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(Map.of("errorCode", e.getErrorCode(), "message", e.getMessage()));
+    }
+
+    @ExceptionHandler(VerificationTimeoutException.class)
+    public ResponseEntity<Map<String, String>> handleTimeout(VerificationTimeoutException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Map.of("errorCode", e.getErrorCode(), "message", e.getMessage()));
+    }
+
+    @ExceptionHandler(SignatureVerificationException.class)
+    public ResponseEntity<Map<String, String>> handleVerificationError(SignatureVerificationException e) {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                .body(Map.of("errorCode", String.valueOf(e.getErrorCode()), "message", e.getMessage()));
+    }
 }
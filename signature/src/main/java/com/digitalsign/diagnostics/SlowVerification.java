@@ -0,0 +1,30 @@
+package com.digitalsign.diagnostics;
+
+import com.digitalsign.model.VerificationMode;
+import com.digitalsign.model.VerificationStatus;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Bản ghi một lần xác minh chậm, thời gian tính bằng mili giây.
+ */
+@Getter
+@RequiredArgsConstructor
+public final class SlowVerification {
+    private final Instant timestamp;
+    private final String processor;
+    private final String fileName;
+    private final long fileSize;
+    private final VerificationMode mode;
+    private final int signatureCount;
+    private final int reusedSignatures;
+    private final VerificationStatus overallStatus;
+    private final double totalMillis;
+    @JsonIgnore
+    private final long totalNanos;
+    private final Map<VerificationStage, Double> stageMillis;
+}
@@ -0,0 +1,96 @@
+package com.digitalsign.diagnostics;
+
+import com.digitalsign.model.SignatureVerificationResult;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bộ đệm vòng kích thước cố định, luôn bật, giữ {@code capacity} lần xác minh vượt ngưỡng gần nhất. Ghi không khoá:
+ * mỗi bản ghi lấy một vị trí qua AtomicLong và ghi đè bản ghi cũ nhất, nên một đợt chậm (khởi động lạnh, GC) tự
+ * trôi đi thay vì che các lần chậm hiện tại. Chỉ sắp xếp khi đọc.
+ */
+@Component
+public class SlowVerificationRecorder {
+    @Value("${signature.diagnostics.slow.threshold:PT0.5S}")
+    private Duration threshold;
+
+    @Value("${signature.diagnostics.slow.capacity:128}")
+    private int capacity;
+
+    private AtomicReferenceArray<SlowVerification> slots;
+    private final AtomicLong cursor = new AtomicLong();
+    private long thresholdNanos;
+
+    @PostConstruct
+    void init() {
+        if (capacity <= 0) {
+            throw new IllegalStateException("signature.diagnostics.slow.capacity must be positive, got " + capacity);
+        }
+        slots = new AtomicReferenceArray<>(capacity);
+        thresholdNanos = threshold.toNanos();
+    }
+
+    public void record(VerificationTrace trace, SignatureVerificationResult result) {
+        long totalNanos = trace.getTotalNanos();
+        if (totalNanos < thresholdNanos) {
+            return;
+        }
+
+        Map<VerificationStage, Double> stageMillis = new EnumMap<>(VerificationStage.class);
+        for (VerificationStage stage : VerificationStage.values()) {
+            long nanos = trace.getStageNanos(stage);
+            if (nanos > 0) {
+                stageMillis.put(stage, toMillis(nanos));
+            }
+        }
+
+        SlowVerification entry = new SlowVerification(Instant.now(), trace.getProcessor(), trace.getFileName(),
+                trace.getFileSize(), trace.getMode(), result != null ? result.getSignatureCount() : 0,
+                trace.getReusedSignatures(), result != null ? result.getOverallStatus() : null,
+                toMillis(totalNanos), totalNanos, stageMillis);
+        slots.set((int) (cursor.getAndIncrement() % capacity), entry);
+    }
+
+    // các bản ghi gần nhất đang có trong vòng, chậm nhất trước
+    public List<SlowVerification> snapshot(int limit) {
+        List<SlowVerification> entries = new ArrayList<>(capacity);
+        for (int i = 0; i < capacity; i++) {
+            SlowVerification entry = slots.get(i);
+            if (entry != null) {
+                entries.add(entry);
+            }
+        }
+        entries.sort(Comparator.comparingLong(SlowVerification::getTotalNanos).reversed());
+        return entries.size() > limit ? entries.subList(0, Math.max(0, limit)) : entries;
+    }
+
+    // số lần xác minh vượt ngưỡng, kể cả những lần đã bị ghi đè
+    public long getRecordedCount() {
+        return cursor.get();
+    }
+
+    public Duration getThreshold() {
+        return threshold;
+    }
+
+    public void clear() {
+        for (int i = 0; i < capacity; i++) {
+            slots.set(i, null);
+        }
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
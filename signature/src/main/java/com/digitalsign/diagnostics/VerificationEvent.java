@@ -0,0 +1,38 @@
+package com.digitalsign.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.digitalsign.Verification")
+@Label("Signature Verification")
+@Description("A complete verifySignatures call")
+@Category({"DigitalSign", "Signature Verification"})
+@StackTrace(false)
+public class VerificationEvent extends Event {
+    @Label("Processor")
+    String processor;
+
+    @Label("File Name")
+    String fileName;
+
+    @Label("File Size")
+    @DataAmount
+    long fileSize;
+
+    @Label("Mode")
+    String mode;
+
+    @Label("Signature Count")
+    int signatureCount;
+
+    @Label("Reused Signatures")
+    int reusedSignatures;
+
+    @Label("Overall Status")
+    String status;
+}
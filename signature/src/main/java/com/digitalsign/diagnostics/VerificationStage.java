@@ -0,0 +1,25 @@
+package com.digitalsign.diagnostics;
+
+/**
+ * Các bước của một lần xác minh, dùng cho JFR event và bảng thời gian của bản ghi chậm.
+ */
+public enum VerificationStage {
+    FORMAT_CHECK("Kiểm tra định dạng file"),
+    EXTRACT("Tách dữ liệu chữ ký và nội dung được ký"),
+    FILE_HASH("Tính hash của file"),
+    PARSE("Phân tích cấu trúc CMS"),
+    CERTIFICATE("Đọc thông tin chứng thư"),
+    VERIFY("Kiểm tra digest và chữ ký"),
+    VALIDATE("Kiểm tra hiệu lực chứng thư"),
+    FINISH("Hoàn tất và lưu kết quả");
+
+    private final String description;
+
+    VerificationStage(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
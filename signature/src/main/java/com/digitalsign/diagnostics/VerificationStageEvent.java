@@ -0,0 +1,37 @@
+package com.digitalsign.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.digitalsign.VerificationStage")
+@Label("Signature Verification Stage")
+@Description("One stage of a signature verification")
+@Category({"DigitalSign", "Signature Verification"})
+@StackTrace(false)
+public class VerificationStageEvent extends Event {
+    @Label("Stage")
+    String stage;
+
+    @Label("Processor")
+    String processor;
+
+    @Label("File Size")
+    @DataAmount
+    long fileSize;
+
+    // -1 với các bước của cả file
+    @Label("Signature Index")
+    int signatureIndex;
+
+    @Label("Algorithm")
+    String algorithm;
+
+    // không ghi vào JFR, chỉ dùng để cộng dồn thời gian theo bước
+    transient VerificationStage verificationStage;
+    transient long startNanos;
+}
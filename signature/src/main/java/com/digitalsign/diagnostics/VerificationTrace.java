@@ -0,0 +1,105 @@
+package com.digitalsign.diagnostics;
+
+import com.digitalsign.model.SignatureVerificationResult;
+import com.digitalsign.model.VerificationMode;
+import jdk.jfr.EventType;
+
+/**
+ * Thời gian theo từng bước của một lần xác minh. Mỗi bước phát một {@link VerificationStageEvent}
+ * (chỉ ghi khi JFR đang bật) và được cộng dồn để {@link SlowVerificationRecorder} lưu bảng phân rã.
+ * Chỉ dùng trên một luồng.
+ */
+public class VerificationTrace {
+    private static final EventType STAGE_EVENT_TYPE = EventType.getEventType(VerificationStageEvent.class);
+
+    private final String processor;
+    private final String fileName;
+    private final long fileSize;
+    private final VerificationMode mode;
+    private final VerificationEvent event = new VerificationEvent();
+    private final long startNanos = System.nanoTime();
+    private final long[] stageNanos = new long[VerificationStage.values().length];
+    private long totalNanos = -1;
+    private int reusedSignatures;
+
+    public VerificationTrace(String processor, String fileName, long fileSize, VerificationMode mode) {
+        this.processor = processor;
+        this.fileName = fileName;
+        this.fileSize = fileSize;
+        this.mode = mode;
+        event.begin();
+    }
+
+    // true khi một recording JFR đang bật stage event: dữ liệu chỉ dùng cho event có thể bỏ qua khi false
+    public static boolean isStageEventEnabled() {
+        return STAGE_EVENT_TYPE.isEnabled();
+    }
+
+    public VerificationStageEvent begin(VerificationStage stage, int signatureIndex) {
+        VerificationStageEvent stageEvent = new VerificationStageEvent();
+        stageEvent.verificationStage = stage;
+        stageEvent.signatureIndex = signatureIndex;
+        stageEvent.startNanos = System.nanoTime();
+        stageEvent.begin();
+        return stageEvent;
+    }
+
+    public void end(VerificationStageEvent stageEvent, String algorithm) {
+        stageEvent.end();
+        stageNanos[stageEvent.verificationStage.ordinal()] += System.nanoTime() - stageEvent.startNanos;
+        if (stageEvent.shouldCommit()) {
+            stageEvent.stage = stageEvent.verificationStage.name();
+            stageEvent.processor = processor;
+            stageEvent.fileSize = fileSize;
+            stageEvent.algorithm = algorithm;
+            stageEvent.commit();
+        }
+    }
+
+    public void setReusedSignatures(int reusedSignatures) {
+        this.reusedSignatures = reusedSignatures;
+    }
+
+    public void finish(SignatureVerificationResult result) {
+        totalNanos = System.nanoTime() - startNanos;
+        event.end();
+        if (event.shouldCommit()) {
+            event.processor = processor;
+            event.fileName = fileName;
+            event.fileSize = fileSize;
+            event.mode = mode.name();
+            event.signatureCount = result != null ? result.getSignatureCount() : 0;
+            event.reusedSignatures = reusedSignatures;
+            event.status = result != null && result.getOverallStatus() != null ? result.getOverallStatus().name() : null;
+            event.commit();
+        }
+    }
+
+    public String getProcessor() {
+        return processor;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public VerificationMode getMode() {
+        return mode;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getStageNanos(VerificationStage stage) {
+        return stageNanos[stage.ordinal()];
+    }
+
+    public int getReusedSignatures() {
+        return reusedSignatures;
+    }
+}
@@ -0,0 +1,11 @@
+package com.digitalsign.exception;
+
+public class AdmissionRejectedException extends SignatureVerificationException{
+    public AdmissionRejectedException(String message) {
+        super("CAPACITY_EXCEEDED", message);
+    }
+
+    public AdmissionRejectedException(String message, Throwable cause) {
+        super("CAPACITY_EXCEEDED", message, cause);
+    }
+}
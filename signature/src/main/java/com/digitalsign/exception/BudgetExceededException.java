@@ -0,0 +1,26 @@
+package com.digitalsign.exception;
+
+import com.digitalsign.guard.ResourceGuard;
+
+public class BudgetExceededException extends SignatureVerificationException{
+    private final ResourceGuard guard;
+
+    public BudgetExceededException(ResourceGuard guard, String detail) {
+        super("BUDGET_EXCEEDED", guard.getDescription() + ": " + detail);
+        this.guard = guard;
+    }
+
+    public ResourceGuard getGuard() {
+        return guard;
+    }
+
+    // giới hạn có thể bị vượt bên trong thư viện (PDFBox, parser XML) và bị bọc trong IOException
+    public static BudgetExceededException find(Throwable error) {
+        for (Throwable current = error; current != null; current = current.getCause()) {
+            if (current instanceof BudgetExceededException) {
+                return (BudgetExceededException) current;
+            }
+        }
+        return null;
+    }
+}
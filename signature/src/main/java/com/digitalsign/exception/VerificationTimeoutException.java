@@ -0,0 +1,7 @@
+package com.digitalsign.exception;
+
+public class VerificationTimeoutException extends SignatureVerificationException{
+    public VerificationTimeoutException(String message) {
+        super("VERIFICATION_TIMEOUT", message);
+    }
+}
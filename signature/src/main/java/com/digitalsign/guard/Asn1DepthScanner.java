@@ -0,0 +1,83 @@
+package com.digitalsign.guard;
+
+/**
+ * Duyệt nhanh cấu trúc DER/BER để đo độ sâu lồng nhau trước khi giao cho BouncyCastle.
+ * Không cấp phát đối tượng, dừng ngay khi vượt giới hạn. OCTET STRING chứa SEQUENCE/SET
+ * (eContent, extension...) cũng được duyệt vì BouncyCastle sẽ giải mã chúng về sau.
+ * Cấu trúc sai định dạng được bỏ qua ở đây, BouncyCastle sẽ báo lỗi khi giải mã.
+ */
+final class Asn1DepthScanner {
+    private static final int OCTET_STRING = 0x04;
+    private static final int CONSTRUCTED = 0x20;
+
+    private final byte[] data;
+    private final int maxDepth;
+    private int deepest;
+
+    private Asn1DepthScanner(byte[] data, int maxDepth) {
+        this.data = data;
+        this.maxDepth = maxDepth;
+    }
+
+    // độ sâu lớn nhất tìm thấy, dừng sớm khi vượt maxDepth
+    static int measure(byte[] data, int maxDepth) {
+        Asn1DepthScanner scanner = new Asn1DepthScanner(data, maxDepth);
+        scanner.scan(0, data.length, 1, false);
+        return scanner.deepest;
+    }
+
+    // trả về vị trí kết thúc, -1 nếu cấu trúc không hợp lệ hoặc đã vượt giới hạn
+    private int scan(int pos, int end, int depth, boolean untilEndOfContents) {
+        if (depth > deepest) {
+            deepest = depth;
+        }
+        if (deepest > maxDepth) {
+            return -1;
+        }
+
+        while (pos < end) {
+            if (untilEndOfContents && pos + 1 < end && data[pos] == 0 && data[pos + 1] == 0) {
+                return pos + 2;
+            }
+
+            int tag = data[pos++] & 0xff;
+            if ((tag & 0x1f) == 0x1f) {
+                while (pos < end && (data[pos++] & 0x80) != 0) {
+                    // tag nhiều byte
+                }
+            }
+            if (pos >= end) return -1;
+
+            int first = data[pos++] & 0xff;
+            boolean constructed = (tag & CONSTRUCTED) != 0;
+            if (first == 0x80) {
+                // BER độ dài không xác định, kết thúc bằng 00 00
+                if (!constructed) return -1;
+                pos = scan(pos, end, depth + 1, true);
+                if (pos < 0) return -1;
+                continue;
+            }
+
+            int length = first;
+            if (first > 0x80) {
+                int count = first & 0x7f;
+                if (count > 4 || count > end - pos) return -1;
+                length = 0;
+                for (int i = 0; i < count; i++) {
+                    length = (length << 8) | (data[pos++] & 0xff);
+                }
+            }
+            if (length < 0 || length > end - pos) return -1;
+
+            int contentEnd = pos + length;
+            if (constructed) {
+                if (scan(pos, contentEnd, depth + 1, false) < 0) return -1;
+            } else if (tag == OCTET_STRING && length > 1 && (data[pos] == 0x30 || data[pos] == 0x31)) {
+                scan(pos, contentEnd, depth + 1, false);
+                if (deepest > maxDepth) return -1;
+            }
+            pos = contentEnd;
+        }
+        return untilEndOfContents ? -1 : pos;
+    }
+}
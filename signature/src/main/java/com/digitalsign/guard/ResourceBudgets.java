@@ -0,0 +1,82 @@
+package com.digitalsign.guard;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Giới hạn tài nguyên cho một lần xác minh và bộ đếm số lần mỗi giới hạn bị vượt.
+ */
+@Component
+public class ResourceBudgets {
+    private static final Logger logger = LoggerFactory.getLogger(ResourceBudgets.class);
+    private static final String ENTITY_EXPANSION_LIMIT = "http://www.oracle.com/xml/jaxp/properties/entityExpansionLimit";
+
+    @Value("${signature.limits.max-signatures:100}")
+    private int maxSignatures;
+
+    @Value("${signature.limits.max-inflated-bytes:268435456}")
+    private long maxInflatedBytes;
+
+    @Value("${signature.limits.max-asn1-depth:64}")
+    private int maxAsn1Depth;
+
+    @Value("${signature.limits.max-xml-entity-expansions:2000}")
+    private int maxXmlEntityExpansions;
+
+    @Value("${signature.limits.max-container-entries:1000}")
+    private int maxContainerEntries;
+
+    @Value("${signature.limits.max-nesting-depth:3}")
+    private int maxNestingDepth;
+
+    @Value("${signature.limits.cpu-time:PT10S}")
+    private Duration cpuTime;
+
+    @Value("${signature.limits.wall-clock:PT30S}")
+    private Duration wallClock;
+
+    private final Map<ResourceGuard, AtomicLong> tripped = new EnumMap<>(ResourceGuard.class);
+
+    public ResourceBudgets() {
+        for (ResourceGuard guard : ResourceGuard.values()) {
+            tripped.put(guard, new AtomicLong());
+        }
+    }
+
+    public VerificationBudget newBudget() {
+        return new VerificationBudget(this, maxSignatures, maxInflatedBytes, maxAsn1Depth, maxContainerEntries,
+                maxNestingDepth, cpuTime.toNanos(), wallClock.toNanos());
+    }
+
+    // parser XML an toàn: không tải DTD/schema bên ngoài, giới hạn số lần mở rộng entity
+    public DocumentBuilderFactory newDocumentBuilderFactory() throws ParserConfigurationException {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+        factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+        factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+        factory.setAttribute(ENTITY_EXPANSION_LIMIT, String.valueOf(maxXmlEntityExpansions));
+        return factory;
+    }
+
+    void recordTrip(ResourceGuard guard, String detail) {
+        tripped.get(guard).incrementAndGet();
+        logger.warn("Resource guard {} tripped: {}", guard, detail);
+    }
+
+    public Map<ResourceGuard, Long> getTrippedCounts() {
+        Map<ResourceGuard, Long> counts = new EnumMap<>(ResourceGuard.class);
+        tripped.forEach((guard, count) -> counts.put(guard, count.get()));
+        return counts;
+    }
+}
@@ -0,0 +1,41 @@
+package com.digitalsign.guard;
+
+import com.digitalsign.model.VerificationStatus;
+
+/**
+ * Các giới hạn tài nguyên áp dụng cho mọi processor. Đầu vào vượt giới hạn cấu trúc được coi là
+ * CORRUPTED; vượt thời gian là UNKNOWN vì có thể chỉ do tải hệ thống (kết quả UNKNOWN không được cache).
+ */
+public enum ResourceGuard {
+    SIGNATURE_COUNT("Too many signatures", VerificationStatus.CORRUPTED, true),
+    INFLATED_BYTES("Decompressed content exceeds the limit", VerificationStatus.CORRUPTED, true),
+    ASN1_DEPTH("ASN.1 structure is nested too deeply", VerificationStatus.CORRUPTED, false),
+    XML_ENTITY_EXPANSION("XML entity expansion exceeds the limit", VerificationStatus.CORRUPTED, true),
+    CONTAINER_ENTRIES("Too many entries in container", VerificationStatus.CORRUPTED, true),
+    NESTING_DEPTH("Containers are nested too deeply", VerificationStatus.CORRUPTED, true),
+    CPU_TIME("CPU time budget exceeded", VerificationStatus.UNKNOWN, true),
+    WALL_CLOCK("Verification deadline exceeded", VerificationStatus.UNKNOWN, true);
+
+    private final String description;
+    private final VerificationStatus status;
+    // true: dừng xác minh cả file; false: chỉ chữ ký hiện tại bị đánh dấu
+    private final boolean fileLevel;
+
+    ResourceGuard(String description, VerificationStatus status, boolean fileLevel) {
+        this.description = description;
+        this.status = status;
+        this.fileLevel = fileLevel;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public VerificationStatus getStatus() {
+        return status;
+    }
+
+    public boolean isFileLevel() {
+        return fileLevel;
+    }
+}
@@ -0,0 +1,172 @@
+package com.digitalsign.guard;
+
+import com.digitalsign.exception.BudgetExceededException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ngân sách tài nguyên của một lần xác minh. Các processor kiểm tra hợp tác tại các điểm có thể tốn
+ * nhiều tài nguyên (trước mỗi chữ ký, khi giải nén, trước khi giải mã ASN.1). Mỗi budget chỉ dùng trên một
+ * luồng vì thời gian CPU được đo trên luồng tạo ra nó; công việc chạy trên luồng khác dùng {@link #child()},
+ * chung deadline tuyệt đối và bộ đếm byte giải nén/entry với budget gốc.
+ */
+public class VerificationBudget {
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final ResourceBudgets budgets;
+    private final int maxSignatures;
+    private final long maxInflatedBytes;
+    private final int maxAsn1Depth;
+    private final int maxContainerEntries;
+    private final int maxNestingDepth;
+    private final long cpuTimeNanos;
+    private final long cpuDeadline;
+    private final long wallDeadline;
+    private final AtomicLong inflatedBytes;
+    private final AtomicInteger containerEntries;
+
+    VerificationBudget(ResourceBudgets budgets, int maxSignatures, long maxInflatedBytes, int maxAsn1Depth,
+                       int maxContainerEntries, int maxNestingDepth, long cpuTimeNanos, long wallClockNanos) {
+        this.budgets = budgets;
+        this.maxSignatures = maxSignatures;
+        this.maxInflatedBytes = maxInflatedBytes;
+        this.maxAsn1Depth = maxAsn1Depth;
+        this.maxContainerEntries = maxContainerEntries;
+        this.maxNestingDepth = maxNestingDepth;
+        this.cpuTimeNanos = cpuTimeNanos;
+        this.cpuDeadline = cpuDeadline(cpuTimeNanos);
+        this.wallDeadline = System.nanoTime() + wallClockNanos;
+        this.inflatedBytes = new AtomicLong();
+        this.containerEntries = new AtomicInteger();
+    }
+
+    private VerificationBudget(VerificationBudget parent) {
+        this.budgets = parent.budgets;
+        this.maxSignatures = parent.maxSignatures;
+        this.maxInflatedBytes = parent.maxInflatedBytes;
+        this.maxAsn1Depth = parent.maxAsn1Depth;
+        this.maxContainerEntries = parent.maxContainerEntries;
+        this.maxNestingDepth = parent.maxNestingDepth;
+        this.cpuTimeNanos = parent.cpuTimeNanos;
+        this.cpuDeadline = cpuDeadline(cpuTimeNanos);
+        this.wallDeadline = parent.wallDeadline;
+        this.inflatedBytes = parent.inflatedBytes;
+        this.containerEntries = parent.containerEntries;
+    }
+
+    /**
+     * Budget cho công việc con chạy trên luồng hiện tại (entry của container trên worker pool): cùng deadline
+     * wall-clock và cùng bộ đếm byte giải nén/entry với budget này, giới hạn CPU tính lại trên luồng gọi.
+     */
+    public VerificationBudget child() {
+        return new VerificationBudget(this);
+    }
+
+    public void checkSignatureCount(int count) throws BudgetExceededException {
+        if (count > maxSignatures) {
+            throw exceeded(ResourceGuard.SIGNATURE_COUNT, count + " > " + maxSignatures);
+        }
+    }
+
+    public void checkAsn1Depth(byte[] encoded) throws BudgetExceededException {
+        int depth = Asn1DepthScanner.measure(encoded, maxAsn1Depth);
+        if (depth > maxAsn1Depth) {
+            throw exceeded(ResourceGuard.ASN1_DEPTH, "more than " + maxAsn1Depth + " levels");
+        }
+    }
+
+    // đếm gộp mọi entry của container và các container lồng bên trong
+    public void addContainerEntry() throws BudgetExceededException {
+        int entries = containerEntries.incrementAndGet();
+        if (entries > maxContainerEntries) {
+            throw exceeded(ResourceGuard.CONTAINER_ENTRIES, entries + " > " + maxContainerEntries);
+        }
+    }
+
+    public void checkNestingDepth(int depth) throws BudgetExceededException {
+        if (depth > maxNestingDepth) {
+            throw exceeded(ResourceGuard.NESTING_DEPTH, depth + " > " + maxNestingDepth);
+        }
+    }
+
+    public void addInflatedBytes(long bytes) throws BudgetExceededException {
+        long total = inflatedBytes.addAndGet(bytes);
+        if (total > maxInflatedBytes) {
+            throw exceeded(ResourceGuard.INFLATED_BYTES, total + " > " + maxInflatedBytes + " bytes");
+        }
+    }
+
+    public long getRemainingInflatedBytes() {
+        return Math.max(0, maxInflatedBytes - inflatedBytes.get());
+    }
+
+    // có thể âm khi deadline đã qua
+    public long getRemainingWallClockNanos() {
+        return wallDeadline - System.nanoTime();
+    }
+
+    // bọc luồng giải nén; vượt giới hạn ném IOException có nguyên nhân là BudgetExceededException
+    public InputStream limitInflated(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) count(1);
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read = super.read(buffer, offset, length);
+                if (read > 0) count(read);
+                return read;
+            }
+
+            private void count(long bytes) throws IOException {
+                try {
+                    addInflatedBytes(bytes);
+                } catch (BudgetExceededException e) {
+                    throw new IOException(e.getMessage(), e);
+                }
+            }
+        };
+    }
+
+    public void checkDeadline() throws BudgetExceededException {
+        if (System.nanoTime() - wallDeadline > 0) {
+            throw exceeded(ResourceGuard.WALL_CLOCK, "wall-clock deadline passed");
+        }
+        if (cpuDeadline >= 0 && currentCpuTime() > cpuDeadline) {
+            throw exceeded(ResourceGuard.CPU_TIME, "CPU time deadline passed");
+        }
+    }
+
+    // lỗi giới hạn entity của JAXP (JAXP00010001...) được quy về XML_ENTITY_EXPANSION
+    public BudgetExceededException translateXmlError(Exception error) {
+        String message = error.getMessage();
+        if (message != null && (message.contains("JAXP0001") || message.contains("entity expansion"))) {
+            return exceeded(ResourceGuard.XML_ENTITY_EXPANSION, message);
+        }
+        return null;
+    }
+
+    public BudgetExceededException exceeded(ResourceGuard guard, String detail) {
+        budgets.recordTrip(guard, detail);
+        return new BudgetExceededException(guard, detail);
+    }
+
+    private static long cpuDeadline(long cpuTimeNanos) {
+        long cpuNow = currentCpuTime();
+        return cpuNow >= 0 ? cpuNow + cpuTimeNanos : -1;
+    }
+
+    private static long currentCpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+}
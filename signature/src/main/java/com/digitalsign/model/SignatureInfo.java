@@ -1,9 +1,9 @@
 package com.digitalsign.model;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
-import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 
 import java.time.LocalDateTime;
@@ -11,7 +11,6 @@ import java.time.LocalDateTime;
 @Getter
 @Setter
 @NoArgsConstructor
-@RequiredArgsConstructor
 
 public class SignatureInfo {
     private String signerName;
@@ -25,6 +24,12 @@ public class SignatureInfo {
     private String hashAlgorithm;
     private String signatureAlgorithm;
     private CertificateInfo certificate;
+
+    // chỉ có khi không trả chi tiết chứng thư (certificate null): đủ để nhật ký kiểm toán tra theo chứng thư
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String certificateSerialNumber;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String certificateThumbprint;
     private VerificationStatus status;
     private String statusMessage;
 
@@ -1,6 +1,7 @@
 package com.digitalsign.model;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -25,8 +26,13 @@ public class SignatureVerificationResult {
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     private LocalDateTime verificationTime;
 
+    // kết quả của các file bên trong (entry của ZIP, file đính kèm của PDF)
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<SignatureVerificationResult> children;
+
     public SignatureVerificationResult() {
         this.signatures = new ArrayList<>();
+        this.children = new ArrayList<>();
         this.verificationTime = LocalDateTime.now();
     }
 
@@ -63,6 +69,24 @@ public class SignatureVerificationResult {
         }
     }
 
+    // thêm kết quả của file con
+    public void addChild(SignatureVerificationResult child) {
+        this.children.add(child);
+    }
+
+    // trạng thái tổng thể gồm cả các file con có chữ ký hoặc bị lỗi; file con không có chữ ký không ảnh hưởng
+    public void mergeChildStatus() {
+        for (SignatureVerificationResult child : children) {
+            VerificationStatus childStatus = child.getOverallStatus();
+            if (childStatus != null && (child.isHasSignature()
+                    || childStatus == VerificationStatus.CORRUPTED || childStatus == VerificationStatus.UNKNOWN)) {
+                this.hasSignature = true;
+                this.overallStatus = overallStatus == null
+                        ? childStatus : getWorseStatus(overallStatus, childStatus);
+            }
+        }
+    }
+
     // hỗ trợ tìm trạng thái chữ ký tệ hơn trong hai trạng thái danh sách
     public VerificationStatus getWorseStatus(VerificationStatus a, VerificationStatus b) {
         int[] priority = {0,3,4,2,1,5};
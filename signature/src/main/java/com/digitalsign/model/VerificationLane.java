@@ -0,0 +1,15 @@
+package com.digitalsign.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum VerificationLane {
+    // kiểm tra từng file do người dùng chờ kết quả
+    INTERACTIVE("Interactive"),
+    // quét hàng loạt / kho lưu trữ
+    BULK("Bulk");
+
+    private final String description;
+}
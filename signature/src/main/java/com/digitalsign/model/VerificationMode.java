@@ -0,0 +1,18 @@
+package com.digitalsign.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum VerificationMode {
+    // xử lý toàn bộ chữ ký, trả về đầy đủ thông tin chứng thư và hash file
+    FULL(false, true),
+    // dừng ở chữ ký đầu tiên không hợp lệ, vẫn trả về đầy đủ thông tin
+    FIRST_FAILURE(true, true),
+    // chỉ cần trạng thái: dừng sớm và bỏ qua trích xuất thông tin chứng thư / hash file
+    STATUS_ONLY(true, false);
+
+    private final boolean stopOnFirstFailure;
+    private final boolean includeDetails;
+}
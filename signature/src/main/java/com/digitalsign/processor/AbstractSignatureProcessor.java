@@ -1,34 +1,51 @@
 package com.digitalsign.processor;
 
+import com.digitalsign.cache.VerificationCache;
+import com.digitalsign.diagnostics.SlowVerificationRecorder;
+import com.digitalsign.diagnostics.VerificationStage;
+import com.digitalsign.diagnostics.VerificationStageEvent;
+import com.digitalsign.diagnostics.VerificationTrace;
+import com.digitalsign.exception.BudgetExceededException;
 import com.digitalsign.exception.SignatureVerificationException;
+import com.digitalsign.guard.ResourceBudgets;
+import com.digitalsign.guard.VerificationBudget;
 import com.digitalsign.model.CertificateInfo;
 import com.digitalsign.model.SignatureInfo;
 import com.digitalsign.model.SignatureVerificationResult;
+import com.digitalsign.model.VerificationMode;
 import com.digitalsign.model.VerificationStatus;
+import com.digitalsign.startup.StartupTimings;
+import com.digitalsign.trust.TrustStoreSnapshot;
+import com.digitalsign.util.AlgorithmRegistry;
 import com.digitalsign.util.CertificateUtils;
 import com.digitalsign.util.CryptoUtils;
 import com.digitalsign.util.FileUtils;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import org.bouncycastle.asn1.ASN1Encodable;
+import org.bouncycastle.asn1.ASN1OctetString;
 import org.bouncycastle.asn1.cms.Attribute;
 import org.bouncycastle.asn1.cms.AttributeTable;
 import org.bouncycastle.asn1.cms.CMSAttributes;
 import org.bouncycastle.asn1.cms.Time;
 import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cms.CMSException;
 import org.bouncycastle.cms.CMSSignedData;
 import org.bouncycastle.cms.SignerInformation;
 import org.bouncycastle.cms.SignerInformationStore;
 import org.bouncycastle.cms.SignerInformationVerifier;
 import org.bouncycastle.cms.jcajce.JcaSimpleSignerInfoVerifierBuilder;
-import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.util.Store;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.security.Security;
 import java.security.cert.X509Certificate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
 
 public abstract class AbstractSignatureProcessor implements SignatureProcessor {
@@ -43,67 +60,258 @@ public abstract class AbstractSignatureProcessor implements SignatureProcessor {
     @Autowired
     protected FileUtils fileUtils;
 
-    static {
-        if (Security.getProvider("BC") == null) {
-            Security.addProvider(new BouncyCastleProvider());
-        }
+    @Autowired
+    protected AlgorithmRegistry algorithmRegistry;
+
+    @Autowired
+    protected ParsedSignatureCache parsedSignatureCache;
+
+    @Autowired
+    protected StartupTimings startupTimings;
+
+    @Autowired
+    protected VerificationCache verificationCache;
+
+    @Autowired
+    protected SlowVerificationRecorder slowVerifications;
+
+    @Autowired
+    protected ResourceBudgets resourceBudgets;
+
+    @Override
+    public SignatureVerificationResult verifySignatures(byte[] content, String fileName, VerificationMode mode,
+                                                        TrustStoreSnapshot trustStore) throws Exception {
+        return verifySignatures(content, null, fileName, mode, trustStore, (VerificationBudget) null);
+    }
+
+    @Override
+    public SignatureVerificationResult verifySignatures(byte[] content, String fileName, VerificationMode mode,
+                                                        TrustStoreSnapshot trustStore, VerificationBudget budget) {
+        return verifySignatures(content, null, fileName, mode, trustStore, budget);
     }
 
     @Override
-    public SignatureVerificationResult verifySignatures(byte[] content, String fileName) throws Exception {
-        logger.info("Starting signature verification for file: {}", fileName);
+    public SignatureVerificationResult verifySignatures(byte[] content, String fileName, VerificationMode mode,
+                                                        TrustStoreSnapshot trustStore, String fileHash) {
+        return verifySignatures(content, null, fileName, mode, trustStore, null, fileHash);
+    }
+
+    protected SignatureVerificationResult verifySignatures(byte[] content, byte[] detachedContent, String fileName,
+                                                           VerificationMode mode, TrustStoreSnapshot trustStore,
+                                                           VerificationBudget budget) {
+        return verifySignatures(content, detachedContent, fileName, mode, trustStore, budget, null);
+    }
 
-        if (!validateFileFormat(content, fileName)) {
-            return createErrorResult("Invalid file format for processor: " + getProcessorName(), fileName, content);
+    // detachedContent: nội dung được ký do người gọi cung cấp (chữ ký rời), thay cho extractOriginalContent;
+    // budget null: lần xác minh độc lập, tạo budget mới; fileHash null: tự băm khi kết quả cần
+    protected SignatureVerificationResult verifySignatures(byte[] content, byte[] detachedContent, String fileName,
+                                                           VerificationMode mode, TrustStoreSnapshot trustStore,
+                                                           VerificationBudget budget, String fileHash) {
+        VerificationTrace trace = new VerificationTrace(getProcessorName(), fileName,
+                content != null ? content.length : 0, mode);
+        SignatureVerificationResult result = null;
+        try {
+            result = verifySignatures(content, detachedContent, fileName, mode, trustStore,
+                    budget != null ? budget : resourceBudgets.newBudget(), fileHash, trace);
+            return result;
+        } finally {
+            trace.finish(result);
+            slowVerifications.record(trace, result);
         }
+    }
 
+    private SignatureVerificationResult verifySignatures(byte[] content, byte[] detachedContent, String fileName,
+                                                         VerificationMode mode, TrustStoreSnapshot trustStore,
+                                                         VerificationBudget budget, String fileHash,
+                                                         VerificationTrace trace) {
+        logger.info("Starting signature verification for file: {} (mode: {})", fileName, mode);
+
+        VerificationStageEvent stage = trace.begin(VerificationStage.FORMAT_CHECK, -1);
+        boolean validFormat;
         try {
-            List<byte[]> signatureDataList = extractSignatureData(content);
+            validFormat = validateFileFormat(content, fileName);
+        } finally {
+            trace.end(stage, null);
+        }
+        if (!validFormat) {
+            return createErrorResult("Invalid file format for processor: " + getProcessorName(), fileName, content, mode);
+        }
 
+        try {
+            VerificationContext context = new VerificationContext(fileName, mode, trace, trustStore, budget);
+            context.setFileHash(fileHash);
+            stage = trace.begin(VerificationStage.EXTRACT, -1);
+            List<byte[]> signatureDataList;
+            try {
+                signatureDataList = extractSignatureData(content, context);
+                if (!signatureDataList.isEmpty()) {
+                    budget.checkSignatureCount(signatureDataList.size());
+                    context.setOriginalContent(detachedContent != null ? detachedContent
+                            : extractOriginalContent(content));
+                }
+            } finally {
+                trace.end(stage, null);
+            }
             if (signatureDataList.isEmpty()) {
-                return createNoSignatureResult(fileName, content);
+                return createNoSignatureResult(fileName, content, mode);
+            }
+            trace.setReusedSignatures(context.getReusedSignatureCount());
+
+            stage = trace.begin(VerificationStage.FILE_HASH, -1);
+            SignatureVerificationResult result;
+            try {
+                result = createBaseResult(fileName, content, mode, fileHash);
+            } finally {
+                trace.end(stage, null);
             }
-
-            byte[] originalContent = extractOriginalContent(content);
-            SignatureVerificationResult result = createBaseResult(fileName, content);
 
             boolean allValid = true;
 
             for (int i = 0; i < signatureDataList.size(); i++) {
                 try {
-                    SignatureInfo sigInfo = processSignature(signatureDataList.get(i), originalContent, i);
+                    SignatureInfo sigInfo = context.getReusedSignature(i);
+                    if (sigInfo == null) {
+                        budget.checkDeadline();
+                        sigInfo = processSignature(signatureDataList.get(i), context, i);
+                    }
                     result.addSignature(sigInfo);
 
                     if (sigInfo.getStatus() != VerificationStatus.VALID) {
                         allValid = false;
                     }
+                } catch (BudgetExceededException e) {
+                    SignatureInfo limitedSig = createErrorSignature(i, e.getMessage());
+                    limitedSig.setStatus(e.getGuard().getStatus());
+                    result.addSignature(limitedSig);
+                    allValid = false;
+                    if (e.getGuard().isFileLevel()) {
+                        break;
+                    }
                 } catch (Exception e) {
                     logger.error("Error processing signature {}: {}", i, e.getMessage());
                     SignatureInfo errorSig = createErrorSignature(i, e.getMessage());
                     result.addSignature(errorSig);
                     allValid = false;
                 }
+
+                if (!allValid && mode.isStopOnFirstFailure()) {
+                    logger.debug("Stopping after signature {} of {} (mode: {})", i + 1, signatureDataList.size(), mode);
+                    break;
+                }
             }
 
             result.updateOverallStatus();
             result.setMessage(allValid ? "All signatures are valid" : "Some signatures failed validation");
 
+            stage = trace.begin(VerificationStage.FINISH, -1);
+            try {
+                afterVerification(content, result, context);
+            } finally {
+                trace.end(stage, null);
+            }
+            startupTimings.recordVerification();
             return result;
         } catch (Exception e) {
+            BudgetExceededException exceeded = BudgetExceededException.find(e);
+            if (exceeded != null) {
+                SignatureVerificationResult result = createErrorResult(exceeded.getMessage(), fileName, content, mode);
+                result.setOverallStatus(exceeded.getGuard().getStatus());
+                return result;
+            }
             logger.error("Error during signature verification: {}", e.getMessage());
-            return createErrorResult("Signature verification failed: " + e.getMessage(), fileName, content);
+            return createErrorResult("Signature verification failed: " + e.getMessage(), fileName, content, mode);
         }
     }
 
     protected abstract List<byte[]> extractSignatureData(byte[] content) throws Exception;
 
+    // processor có thể ghi thêm vào context (nội dung được ký theo từng chữ ký, kết quả dùng lại...)
+    protected List<byte[]> extractSignatureData(byte[] content, VerificationContext context) throws Exception {
+        return extractSignatureData(content);
+    }
+
+    protected void afterVerification(byte[] content, SignatureVerificationResult result, VerificationContext context) {
+    }
+
     protected abstract byte[] extractOriginalContent(byte[] content) throws Exception;
 
-    public abstract boolean validateFileFormat(byte[] content, String fileName);
+    public abstract boolean validateFileFormat(ByteBuffer content, String fileName);
 
     public abstract String getProcessorName();
 
-    protected SignatureInfo processSignature(byte[] signatureData, byte[] originalContent, int index) throws Exception {
+    protected SignatureInfo processSignature(byte[] signatureData, VerificationContext context, int index) throws Exception {
+        VerificationTrace trace = context.getTrace();
+        VerificationStageEvent stage = trace.begin(VerificationStage.PARSE, index);
+        ParsedSignature parsed;
+        try {
+            // chỉ kiểm tra độ sâu ASN.1 khi thực sự phải giải mã (cache miss)
+            parsed = parsedSignatureCache.getOrParse(signatureData, data -> {
+                context.getBudget().checkAsn1Depth(data);
+                return parseSignature(data);
+            });
+        } finally {
+            trace.end(stage, null);
+        }
+        SignerInformation signer = parsed.getSigner();
+        X509Certificate certificate = parsed.getCertificate();
+        context.setSignerValidTo(index, certificate.getNotAfter().toInstant());
+        // tên thuật toán chỉ cần cho kết quả chi tiết hoặc stage event JFR
+        String algorithm = context.getMode().isIncludeDetails() || VerificationTrace.isStageEventEnabled()
+                ? cryptoUtils.normalizeAlgoristhm(signer.getDigestAlgOID(), signer.getEncryptionAlgOID()) : null;
+
+        SignatureInfo sigInfo = new SignatureInfo();
+        if (context.getMode().isIncludeDetails()) {
+            stage = trace.begin(VerificationStage.CERTIFICATE, index);
+            try {
+                CertificateInfo certInfo = extractCertificateInfo(parsed, context.getTrustStore().getTenantId());
+                sigInfo.setSignerName(certInfo.getSubjectName());
+                sigInfo.setSigningTime(parsed.getSigningTime());
+                sigInfo.setHashAlgorithm(cryptoUtils.extractHashAlgoristhm(signer.getDigestAlgOID()));
+                sigInfo.setSignatureAlgorithm(algorithm);
+                sigInfo.setCertificate(certInfo);
+            } finally {
+                trace.end(stage, algorithm);
+            }
+        } else {
+            // serial đọc thẳng từ TBS đã giải mã, thumbprint được ParsedSignature giữ lại cho các lần sau
+            sigInfo.setCertificateSerialNumber(parsed.getCertificateHolder().getSerialNumber().toString(16)
+                    .toUpperCase());
+            sigInfo.setCertificateThumbprint(parsed.getCertificateThumbprint());
+        }
+
+        byte[] signedContent = context.getSignedContent(index) != null
+                ? context.getSignedContent(index) : parsed.getEncapsulatedContent();
+        stage = trace.begin(VerificationStage.VERIFY, index);
+        try {
+            verifyCMSSignature(parsed, signedContent, context, sigInfo);
+        } finally {
+            trace.end(stage, algorithm);
+        }
+
+        if (sigInfo.getStatus() == VerificationStatus.VALID) {
+            stage = trace.begin(VerificationStage.VALIDATE, index);
+            try {
+                performAdditionalValidation(sigInfo, parsed, context);
+            } finally {
+                trace.end(stage, algorithm);
+            }
+        }
+
+        return sigInfo;
+    }
+
+    protected CertificateInfo extractCertificateInfo(ParsedSignature parsed, String tenantId) {
+        String thumbprint = parsed.getCertificateThumbprint();
+        CertificateInfo certInfo = verificationCache.getCertificateInfo(tenantId, thumbprint);
+        if (certInfo == null) {
+            certInfo = certificateUtils.extractCertificateInfo(parsed.getCertificateHolder(), parsed.getCertificate(),
+                    thumbprint);
+            verificationCache.putCertificateInfo(tenantId, thumbprint, certInfo);
+        }
+        return certInfo;
+    }
+
+    protected ParsedSignature parseSignature(byte[] signatureData) throws Exception {
         CMSSignedData cmsSignedData = new CMSSignedData(signatureData);
 
         SignerInformationStore signers = cmsSignedData.getSignerInfos();
@@ -115,7 +323,7 @@ public abstract class AbstractSignatureProcessor implements SignatureProcessor {
 
         SignerInformation signer = signerCollection.iterator().next();
 
-        Store certStore = cmsSignedData.getCertificates();
+        Store<X509CertificateHolder> certStore = cmsSignedData.getCertificates();
         Collection<X509CertificateHolder> certCollection = certStore.getMatches(signer.getSID());
 
         if (certCollection.isEmpty()) {
@@ -125,42 +333,109 @@ public abstract class AbstractSignatureProcessor implements SignatureProcessor {
         X509CertificateHolder certHolder = certCollection.iterator().next();
         X509Certificate certificate = certificateUtils.convertToX509Certificate(certHolder);
 
-        boolean signatureValid = verifyCMSSignature(signer, certHolder, originalContent);
-
-        CertificateInfo certInfo = certificateUtils.extractCertificateInfo(certificate);
-
-        SignatureInfo sigInfo = new SignatureInfo();
-        sigInfo.setSignerName(certInfo.getSubjectName());
-        sigInfo.setSigningTime(extractSigningTime(signer));
-        sigInfo.setHashAlgorithm(cryptoUtils.extractHashAlgoristhm(signer.getDigestAlgOID()));
-        sigInfo.setSignatureAlgorithm(cryptoUtils.normalizeAlgoristhm(signer.getEncryptionAlgOID()));
-        sigInfo.setCertificate(certInfo);
-        sigInfo.setStatus(signatureValid ? VerificationStatus.VALID : VerificationStatus.INVALID);
-        sigInfo.setStatusMessage(signatureValid ? "Signature is valid" : "Signature validation failed");
+        List<X509Certificate> intermediates = new ArrayList<>();
+        for (X509CertificateHolder holder : certStore.getMatches(null)) {
+            if (!holder.equals(certHolder)) {
+                intermediates.add(certificateUtils.convertToX509Certificate(holder));
+            }
+        }
 
-        performAdditionalValidation(sigInfo, certificate, signer);
+        byte[] encapsulatedContent = cmsSignedData.getSignedContent() != null
+                ? (byte[]) cmsSignedData.getSignedContent().getContent() : null;
 
-        return sigInfo;
+        return new ParsedSignature(cmsSignedData.toASN1Structure(), signer, certHolder, certificate, List.copyOf(intermediates),
+                extractSigningTime(signer),
+                encapsulatedContent, signatureData.length);
     }
 
-    protected boolean verifyCMSSignature(SignerInformation signer, X509CertificateHolder certHolder, byte[] originalContent) {
+    /**
+     * Xác minh theo thứ tự chi phí tăng dần: so khớp thuộc tính messageDigest với digest nội dung
+     * (đã tính sẵn trong context) trước, chỉ khi khớp mới thực hiện phép toán khoá công khai trên
+     * signed attributes. Tài liệu bị sửa đổi sẽ dừng ở bước đầu mà không tốn chi phí RSA/ECDSA; bước cuối vẫn là
+     * SignerInformation.verify để không bỏ sót các kiểm tra của RFC 5652/6211. Mọi bước đều dùng cấu trúc đã giải mã
+     * trong ParsedSignature, khối CMS không được giải mã lại.
+     */
+    protected void verifyCMSSignature(ParsedSignature parsed, byte[] signedContent, VerificationContext context,
+                                      SignatureInfo sigInfo) {
         try {
+            SignerInformation signer = parsed.getSigner();
             SignerInformationVerifier verifier = new JcaSimpleSignerInfoVerifierBuilder()
                     .setProvider("BC")
-                    .build(certHolder);
+                    .build(parsed.getCertificateHolder());
+
+            AttributeTable signedAttributes = signer.getSignedAttributes();
+            if (signedAttributes == null) {
+                // không có signed attributes: chữ ký ký trực tiếp lên nội dung, không có bước kiểm tra rẻ hơn
+                setStatus(sigInfo, verifyWithoutSignedAttributes(parsed, signer, signedContent, verifier)
+                        ? VerificationStatus.VALID : VerificationStatus.INVALID, null);
+                return;
+            }
 
-            boolean signatureValid = signer.verify(verifier);
+            byte[] signedDigest = extractMessageDigest(signedAttributes);
+            if (signedDigest == null) {
+                setStatus(sigInfo, VerificationStatus.CORRUPTED, "Missing or malformed messageDigest attribute");
+                return;
+            }
+
+            if (signedContent == null) {
+                setStatus(sigInfo, VerificationStatus.CORRUPTED, "Signed content is not available");
+                return;
+            }
 
-            if (signatureValid && originalContent != null) {
-                String hashAlg = cryptoUtils.extractHashAlgoristhm(signer.getDigestAlgOID());
-                byte[] calculatedHash = cryptoUtils.calculateHash(originalContent, hashAlg);
+            String hashAlg = algorithmRegistry.digestName(signer.getDigestAlgOID());
+            if (hashAlg == null) {
+                setStatus(sigInfo, VerificationStatus.UNKNOWN, "Unsupported digest algorithm: " + signer.getDigestAlgOID());
+                return;
             }
 
-            return signatureValid;
+            byte[] calculatedHash = signedContent == context.getOriginalContent()
+                    ? context.getContentDigest(hashAlg)
+                    : cryptoUtils.calculateHash(signedContent, hashAlg);
+            if (!MessageDigest.isEqual(signedDigest, calculatedHash)) {
+                setStatus(sigInfo, VerificationStatus.INVALID, "Content digest does not match the signed messageDigest");
+                return;
+            }
+
+            // digest đã khớp: để BouncyCastle kiểm tra nốt contentType, CMSAlgorithmProtection, signingTime so với
+            // hiệu lực chứng thư và chữ ký trên signed attributes, dùng lại digest vừa tính thay vì băm lại nội dung
+            SignerInformation digestSigner = parsed.getSigner(signer.getDigestAlgorithmID().getAlgorithm(), calculatedHash);
+            setStatus(sigInfo, digestSigner != null && digestSigner.verify(verifier)
+                    ? VerificationStatus.VALID : VerificationStatus.INVALID, null);
+        } catch (CMSException e) {
+            logger.debug("CMS signature rejected: {}", e.getMessage());
+            setStatus(sigInfo, VerificationStatus.INVALID, "Signature validation failed: " + e.getMessage());
         } catch (Exception e) {
             logger.error("CMS signature verification failed: {}", e.getMessage());
-            return false;
+            setStatus(sigInfo, VerificationStatus.INVALID, null);
+        }
+    }
+
+    private boolean verifyWithoutSignedAttributes(ParsedSignature parsed, SignerInformation signer,
+                                                  byte[] signedContent, SignerInformationVerifier verifier)
+            throws Exception {
+        if (signedContent == null) {
+            return signer.verify(verifier);
         }
+
+        SignerInformation detachedSigner = parsed.getSigner(signedContent);
+        return detachedSigner != null && detachedSigner.verify(verifier);
+    }
+
+    protected byte[] extractMessageDigest(AttributeTable signedAttributes) {
+        Attribute digestAttr = signedAttributes.get(CMSAttributes.messageDigest);
+        if (digestAttr == null || digestAttr.getAttrValues().size() != 1) {
+            return null;
+        }
+        ASN1Encodable value = digestAttr.getAttrValues().getObjectAt(0);
+        return value instanceof ASN1OctetString ? ((ASN1OctetString) value).getOctets() : null;
+    }
+
+    private void setStatus(SignatureInfo sigInfo, VerificationStatus status, String message) {
+        sigInfo.setStatus(status);
+        if (message == null) {
+            message = status == VerificationStatus.VALID ? "Signature is valid" : "Signature validation failed";
+        }
+        sigInfo.setStatusMessage(message);
     }
 
     protected LocalDateTime extractSigningTime(SignerInformation signer) {
@@ -170,7 +445,7 @@ public abstract class AbstractSignatureProcessor implements SignatureProcessor {
                 Attribute timeAttr = signedAttributes.get(CMSAttributes.signingTime);
                 if (timeAttr != null) {
                     Time time = Time.getInstance(timeAttr.getAttrValues().getObjectAt(0));
-                    return LocalDateTime.now();
+                    return LocalDateTime.ofInstant(time.getDate().toInstant(), ZoneId.systemDefault());
                 }
             }
         } catch (Exception e) {
@@ -179,6 +454,23 @@ public abstract class AbstractSignatureProcessor implements SignatureProcessor {
         return null;
     }
 
+    protected void performAdditionalValidation(SignatureInfo sigInfo, ParsedSignature parsed, VerificationContext context) {
+        performAdditionalValidation(sigInfo, parsed.getCertificate(), parsed.getSigner());
+
+        TrustStoreSnapshot trustStore = context.getTrustStore();
+        if (sigInfo.getStatus() != VerificationStatus.VALID || !trustStore.isConfigured()) {
+            return;
+        }
+        try {
+            certificateUtils.validateTrustChain(parsed.getCertificate(), parsed.getIntermediates(), trustStore,
+                    new Date());
+        } catch (GeneralSecurityException e) {
+            sigInfo.setStatus(VerificationStatus.INVALID);
+            sigInfo.setStatusMessage("Certificate is not trusted by tenant " + trustStore.getTenantId() + ": "
+                    + e.getMessage());
+        }
+    }
+
     protected void performAdditionalValidation(SignatureInfo sigInfo, X509Certificate certificate, SignerInformation signer) {
         boolean certValid = certificateUtils.isCertificateValid(certificate);
         if (!certValid) {
@@ -189,10 +481,28 @@ public abstract class AbstractSignatureProcessor implements SignatureProcessor {
     }
 
     protected SignatureVerificationResult createBaseResult(String fileName, byte[] content) {
+        return createBaseResult(fileName, content, VerificationMode.FULL);
+    }
+
+    protected SignatureVerificationResult createBaseResult(String fileName, byte[] content, VerificationMode mode) {
+        return createBaseResult(fileName, content, mode, null);
+    }
+
+    // fileHash do nơi gọi tính sẵn thì dùng luôn, không băm lại cả file
+    protected SignatureVerificationResult createBaseResult(String fileName, byte[] content, VerificationMode mode,
+                                                           String fileHash) {
         String fileType = fileUtils.getFileExtension(fileName);
         SignatureVerificationResult result = new SignatureVerificationResult(fileName, fileType);
         result.setFileSize(content.length);
 
+        if (!mode.isIncludeDetails()) {
+            return result;
+        }
+        if (fileHash != null) {
+            result.setFileHash(fileHash);
+            return result;
+        }
+
         try {
             result.setFileHash(cryptoUtils.bytesToHex(cryptoUtils.calculateSHA256(content)));
         } catch (NoSuchAlgorithmException e) {
@@ -203,8 +513,8 @@ public abstract class AbstractSignatureProcessor implements SignatureProcessor {
         return result;
     }
 
-    protected SignatureVerificationResult createNoSignatureResult(String fileName, byte[] content) {
-        SignatureVerificationResult result = createBaseResult(fileName, content);
+    protected SignatureVerificationResult createNoSignatureResult(String fileName, byte[] content, VerificationMode mode) {
+        SignatureVerificationResult result = createBaseResult(fileName, content, mode);
         result.setHasSignature(false);
         result.setSignatureCount(0);
         result.setOverallStatus(VerificationStatus.INVALID);
@@ -212,8 +522,9 @@ public abstract class AbstractSignatureProcessor implements SignatureProcessor {
         return result;
     }
 
-    protected SignatureVerificationResult createErrorResult(String errorMessage, String fileName, byte[] content) {
-        SignatureVerificationResult result = createBaseResult(fileName, content);
+    protected SignatureVerificationResult createErrorResult(String errorMessage, String fileName, byte[] content,
+                                                            VerificationMode mode) {
+        SignatureVerificationResult result = createBaseResult(fileName, content, mode);
         result.setOverallStatus(VerificationStatus.UNKNOWN);
         result.setMessage(errorMessage);
         return result;
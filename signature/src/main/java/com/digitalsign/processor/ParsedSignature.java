@@ -0,0 +1,102 @@
+package com.digitalsign.processor;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.bouncycastle.asn1.ASN1Encoding;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.cms.AttributeTable;
+import org.bouncycastle.asn1.cms.ContentInfo;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cms.CMSException;
+import org.bouncycastle.cms.CMSProcessableByteArray;
+import org.bouncycastle.cms.CMSSignedData;
+import org.bouncycastle.cms.SignerInformation;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.X509Certificate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Kết quả giải mã một khối CMS: signer đầu tiên, chứng thư của signer và các thuộc tính đã ký.
+ * Dùng chung giữa các lần xác minh qua ParsedSignatureCache: SignerInformation giữ trạng thái khi verify nên
+ * mỗi lần lấy là một bản sao riêng; mảng nội dung đóng gói không sao chép (có thể lớn), nơi gọi chỉ được đọc.
+ */
+@Getter
+public final class ParsedSignature {
+    // cây ASN.1 đã giải mã của cả khối CMS, dùng để gắn digest/nội dung rời mà không giải mã lại
+    @Getter(AccessLevel.NONE)
+    private final ContentInfo contentInfo;
+    private final SignerInformation signer;
+    private final X509CertificateHolder certificateHolder;
+    private final X509Certificate certificate;
+    // SHA-1 của chứng thư signer, khoá cache CertificateInfo; chỉ tính khi cần thông tin chi tiết
+    private volatile String certificateThumbprint;
+    // các chứng thư khác trong CMS, dùng làm chứng thư trung gian khi dựng chuỗi tin cậy
+    private final List<X509Certificate> intermediates;
+    private final AttributeTable signedAttributes;
+    private final LocalDateTime signingTime;
+    // nội dung đóng gói trong CMS (null với chữ ký rời); dùng chung, không được sửa
+    private final byte[] encapsulatedContent;
+    private final long estimatedSize;
+
+    public ParsedSignature(ContentInfo contentInfo, SignerInformation signer, X509CertificateHolder certificateHolder,
+                           X509Certificate certificate, List<X509Certificate> intermediates, LocalDateTime signingTime,
+                           byte[] encapsulatedContent, int encodedLength) {
+        this.contentInfo = contentInfo;
+        this.signer = signer;
+        this.certificateHolder = certificateHolder;
+        this.certificate = certificate;
+        this.intermediates = intermediates;
+        this.signedAttributes = signer.getSignedAttributes();
+        this.signingTime = signingTime;
+        this.encapsulatedContent = encapsulatedContent;
+        // cấu trúc ASN.1 đã giải mã chiếm khoảng 3 lần kích thước DER
+        this.estimatedSize = 3L * encodedLength + (encapsulatedContent != null ? encapsulatedContent.length : 0);
+    }
+
+    // bản sao nông cho mỗi lần xác minh: verify() ghi digest đã tính vào chính đối tượng SignerInformation
+    public SignerInformation getSigner() {
+        return new SignerCopy(signer);
+    }
+
+    // signer mang sẵn digest nội dung đã tính: verify() chỉ còn kiểm tra thuộc tính và chữ ký trên signed attributes.
+    // SignerInformation(SignerInformation) giữ nguyên digest của bản gốc nên digest được gắn bằng cách bọc lại
+    // ContentInfo đã giải mã; CMSSignedData(Map, ContentInfo) chỉ duyệt cây có sẵn, không đọc lại byte DER
+    public SignerInformation getSigner(ASN1ObjectIdentifier digestAlgorithm, byte[] contentDigest) throws CMSException {
+        return new CMSSignedData(Collections.singletonMap(digestAlgorithm, contentDigest), contentInfo)
+                .getSignerInfos().get(signer.getSID());
+    }
+
+    // signer gắn nội dung rời, cho chữ ký không có signed attributes (chữ ký ký trực tiếp lên nội dung)
+    public SignerInformation getSigner(byte[] detachedContent) throws CMSException {
+        return new CMSSignedData(new CMSProcessableByteArray(detachedContent), contentInfo)
+                .getSignerInfos().get(signer.getSID());
+    }
+
+    // băm đúng phần DER của chứng thư đã giải mã trong CMS, không mã hoá lại qua X509Certificate;
+    // hai luồng có thể cùng tính lần đầu, kết quả như nhau
+    public String getCertificateThumbprint() {
+        String thumbprint = certificateThumbprint;
+        if (thumbprint == null) {
+            try {
+                byte[] encoded = certificateHolder.toASN1Structure().getEncoded(ASN1Encoding.DER);
+                thumbprint = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-1").digest(encoded));
+            } catch (IOException | NoSuchAlgorithmException e) {
+                throw new IllegalStateException("Cannot compute signer certificate thumbprint", e);
+            }
+            certificateThumbprint = thumbprint;
+        }
+        return thumbprint;
+    }
+
+    private static final class SignerCopy extends SignerInformation {
+        private SignerCopy(SignerInformation signer) {
+            super(signer);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.digitalsign.processor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache LRU các khối CMS đã giải mã, khoá là SHA-256 của chính khối chữ ký.
+ * Giới hạn theo cả số phần tử và tổng dung lượng ước tính của các ParsedSignature.
+ */
+@Component
+public class ParsedSignatureCache {
+    private static final Logger logger = LoggerFactory.getLogger(ParsedSignatureCache.class);
+
+    @FunctionalInterface
+    public interface Parser {
+        ParsedSignature parse(byte[] signatureData) throws Exception;
+    }
+
+    @Value("${signature.cache.cms.max-entries:1024}")
+    private int maxEntries;
+
+    @Value("${signature.cache.cms.max-bytes:67108864}")
+    private long maxBytes;
+
+    private final LinkedHashMap<ByteBuffer, ParsedSignature> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long currentBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ParsedSignature getOrParse(byte[] signatureData, Parser parser) throws Exception {
+        if (maxEntries <= 0) {
+            return parser.parse(signatureData);
+        }
+
+        ByteBuffer key = key(signatureData);
+        synchronized (this) {
+            ParsedSignature cached = entries.get(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+
+        misses.incrementAndGet();
+        // giải mã ngoài khoá; hai luồng cùng miss một khoá sẽ giải mã hai lần nhưng cho cùng kết quả
+        ParsedSignature parsed = parser.parse(signatureData);
+        put(key, parsed);
+        return parsed;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private synchronized void put(ByteBuffer key, ParsedSignature parsed) {
+        if (parsed.getEstimatedSize() > maxBytes) {
+            return;
+        }
+
+        ParsedSignature previous = entries.put(key, parsed);
+        if (previous != null) {
+            currentBytes -= previous.getEstimatedSize();
+        }
+        currentBytes += parsed.getEstimatedSize();
+
+        Iterator<Map.Entry<ByteBuffer, ParsedSignature>> it = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || currentBytes > maxBytes) && it.hasNext()) {
+            Map.Entry<ByteBuffer, ParsedSignature> eldest = it.next();
+            currentBytes -= eldest.getValue().getEstimatedSize();
+            it.remove();
+        }
+        logger.debug("Parsed CMS cache: {} entries, {} bytes", entries.size(), currentBytes);
+    }
+
+    private ByteBuffer key(byte[] signatureData) throws NoSuchAlgorithmException {
+        return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(signatureData));
+    }
+}
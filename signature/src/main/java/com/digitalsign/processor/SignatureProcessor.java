@@ -1,18 +1,44 @@
 package com.digitalsign.processor;
 
 import com.digitalsign.exception.SignatureVerificationException;
+import com.digitalsign.guard.VerificationBudget;
 import com.digitalsign.model.SignatureVerificationResult;
+import com.digitalsign.model.VerificationMode;
+import com.digitalsign.trust.TrustStoreRegistry;
+import com.digitalsign.trust.TrustStoreSnapshot;
 import org.apache.pdfbox.util.filetypedetector.FileType;
 
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 public interface SignatureProcessor {
-    SignatureVerificationResult verifySignatures(byte[] fileContent, String fileName) throws Exception;
+    default SignatureVerificationResult verifySignatures(byte[] fileContent, String fileName) throws Exception {
+        return verifySignatures(fileContent, fileName, VerificationMode.FULL);
+    }
+    default SignatureVerificationResult verifySignatures(byte[] fileContent, String fileName, VerificationMode mode) throws Exception {
+        return verifySignatures(fileContent, fileName, mode, TrustStoreSnapshot.unconfigured(TrustStoreRegistry.DEFAULT_TENANT));
+    }
+    SignatureVerificationResult verifySignatures(byte[] fileContent, String fileName, VerificationMode mode,
+                                                 TrustStoreSnapshot trustStore) throws Exception;
+    // budget: ngân sách của lần xác minh bao ngoài (entry trong container); processor không dùng thì tự tạo budget mới
+    default SignatureVerificationResult verifySignatures(byte[] fileContent, String fileName, VerificationMode mode,
+                                                         TrustStoreSnapshot trustStore, VerificationBudget budget) throws Exception {
+        return verifySignatures(fileContent, fileName, mode, trustStore);
+    }
+    // fileHash: SHA-256 (hex) của cả file mà nơi gọi đã tính để tra cache; processor dùng lại thay vì băm lại file
+    default SignatureVerificationResult verifySignatures(byte[] fileContent, String fileName, VerificationMode mode,
+                                                         TrustStoreSnapshot trustStore, String fileHash) throws Exception {
+        return verifySignatures(fileContent, fileName, mode, trustStore);
+    }
     boolean supports(FileType fileType);
     default int getPriority() {
         return 50;
     }
     String getProcessorName();
-    boolean validateFileFormat(byte[] fileContent, String fileName);
+    // nhận dạng trên ByteBuffer để file spool được map không phải sao chép lên heap chỉ để chọn processor
+    boolean validateFileFormat(ByteBuffer fileContent, String fileName);
+    default boolean validateFileFormat(byte[] fileContent, String fileName) {
+        return fileContent != null && validateFileFormat(ByteBuffer.wrap(fileContent), fileName);
+    }
 }
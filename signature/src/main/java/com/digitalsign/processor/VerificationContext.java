@@ -0,0 +1,133 @@
+package com.digitalsign.processor;
+
+import com.digitalsign.diagnostics.VerificationTrace;
+import com.digitalsign.guard.VerificationBudget;
+import com.digitalsign.model.SignatureInfo;
+import com.digitalsign.model.VerificationMode;
+import com.digitalsign.trust.TrustStoreSnapshot;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Trạng thái của một lần gọi verifySignatures, dùng chung cho mọi chữ ký trong file.
+ */
+public class VerificationContext {
+    private final String fileName;
+    private final VerificationMode mode;
+    private final VerificationTrace trace;
+    private final TrustStoreSnapshot trustStore;
+    private final VerificationBudget budget;
+    private byte[] originalContent;
+    // SHA-256 (hex) của cả file do nơi gọi tính sẵn, null nếu không có
+    private String fileHash;
+    // nội dung được ký của từng chữ ký khi mỗi chữ ký phủ một vùng khác nhau (PDF ByteRange)
+    private List<byte[]> signedContents;
+    // kết quả chữ ký được dùng lại từ lần xác minh trước, theo chỉ số chữ ký
+    private final Map<Integer, SignatureInfo> reusedSignatures = new HashMap<>();
+    // notAfter của chứng thư ký theo chỉ số chữ ký, ghi ở mọi mode kể cả khi không trả chi tiết chứng thư
+    private final Map<Integer, Instant> signerValidTo = new HashMap<>();
+    // digest của nội dung gốc theo từng thuật toán, tính một lần cho mọi chữ ký
+    private final Map<String, byte[]> contentDigests = new HashMap<>(4);
+    private final Map<String, Object> attributes = new HashMap<>();
+
+    public VerificationContext(String fileName, VerificationMode mode, VerificationTrace trace,
+                               TrustStoreSnapshot trustStore, VerificationBudget budget) {
+        this.fileName = fileName;
+        this.mode = mode;
+        this.trace = trace;
+        this.trustStore = trustStore;
+        this.budget = budget;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public VerificationMode getMode() {
+        return mode;
+    }
+
+    public VerificationTrace getTrace() {
+        return trace;
+    }
+
+    // snapshot được đọc một lần cho cả lần xác minh, không đổi dù trust store được nạp lại giữa chừng
+    public TrustStoreSnapshot getTrustStore() {
+        return trustStore;
+    }
+
+    public VerificationBudget getBudget() {
+        return budget;
+    }
+
+    public String getFileHash() {
+        return fileHash;
+    }
+
+    public void setFileHash(String fileHash) {
+        this.fileHash = fileHash;
+    }
+
+    public byte[] getOriginalContent() {
+        return originalContent;
+    }
+
+    public void setOriginalContent(byte[] originalContent) {
+        this.originalContent = originalContent;
+        this.contentDigests.clear();
+    }
+
+    public void setSignedContents(List<byte[]> signedContents) {
+        this.signedContents = signedContents;
+    }
+
+    public byte[] getSignedContent(int index) {
+        if (signedContents != null && index < signedContents.size() && signedContents.get(index) != null) {
+            return signedContents.get(index);
+        }
+        return originalContent;
+    }
+
+    public void reuseSignature(int index, SignatureInfo signature) {
+        reusedSignatures.put(index, signature);
+    }
+
+    public SignatureInfo getReusedSignature(int index) {
+        return reusedSignatures.get(index);
+    }
+
+    public int getReusedSignatureCount() {
+        return reusedSignatures.size();
+    }
+
+    public void setSignerValidTo(int index, Instant validTo) {
+        signerValidTo.put(index, validTo);
+    }
+
+    public Instant getSignerValidTo(int index) {
+        return signerValidTo.get(index);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T getAttribute(String name) {
+        return (T) attributes.get(name);
+    }
+
+    public void setAttribute(String name, Object value) {
+        attributes.put(name, value);
+    }
+
+    public byte[] getContentDigest(String algoristhm) throws NoSuchAlgorithmException {
+        byte[] digest = contentDigests.get(algoristhm);
+        if (digest == null) {
+            digest = MessageDigest.getInstance(algoristhm).digest(originalContent);
+            contentDigests.put(algoristhm, digest);
+        }
+        return digest;
+    }
+}
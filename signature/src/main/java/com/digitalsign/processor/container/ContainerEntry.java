@@ -0,0 +1,28 @@
+package com.digitalsign.processor.container;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Một file bên trong container (entry của ZIP hoặc file đính kèm của PDF), giữ trong bộ nhớ.
+ */
+@Getter
+@RequiredArgsConstructor
+public final class ContainerEntry {
+    private final String name;
+    private final byte[] content;
+    private final String mimeType;
+
+    public String getExtension() {
+        int slash = name.lastIndexOf('/');
+        int dot = name.lastIndexOf('.');
+        return dot > slash ? name.substring(dot + 1).toLowerCase() : "";
+    }
+
+    // tên không có phần mở rộng cuối cùng: "hoadon.xml.p7s" -> "hoadon.xml"
+    public String getBaseName() {
+        int slash = name.lastIndexOf('/');
+        int dot = name.lastIndexOf('.');
+        return dot > slash ? name.substring(0, dot) : name;
+    }
+}
@@ -0,0 +1,446 @@
+package com.digitalsign.processor.container;
+
+import com.digitalsign.exception.BudgetExceededException;
+import com.digitalsign.guard.ResourceBudgets;
+import com.digitalsign.guard.ResourceGuard;
+import com.digitalsign.guard.VerificationBudget;
+import com.digitalsign.model.SignatureVerificationResult;
+import com.digitalsign.model.VerificationMode;
+import com.digitalsign.model.VerificationStatus;
+import com.digitalsign.processor.SignatureProcessor;
+import com.digitalsign.processor.detached.DetachedSignatureProcessor;
+import com.digitalsign.processor.pdf.PdfSignatureProcessor;
+import com.digitalsign.service.FileTypeDetectionService;
+import com.digitalsign.trust.TrustStoreSnapshot;
+import com.digitalsign.util.CryptoUtils;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDDocumentNameDictionary;
+import org.apache.pdfbox.pdmodel.common.PDNameTreeNode;
+import org.apache.pdfbox.pdmodel.common.filespecification.PDComplexFileSpecification;
+import org.apache.pdfbox.pdmodel.common.filespecification.PDEmbeddedFile;
+import org.apache.pdfbox.util.filetypedetector.FileType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Xác minh đệ quy các container: entry của ZIP và file đính kèm (EmbeddedFiles) của PDF, hoàn toàn trong bộ nhớ.
+ * Mỗi entry được nhận dạng qua FileTypeDetectionService rồi giao cho processor phù hợp; chữ ký rời (.p7s/.sig)
+ * được ghép với nội dung theo tên, xác nhận bằng messageDigest đã ký. Các entry lá chạy song song trên
+ * containerVerificationExecutor; container lồng nhau được mở trên luồng gọi nên worker không bao giờ chờ nhau.
+ * <p>
+ * Mọi entry của một container được giải nén vào bộ nhớ trước khi xác minh, vì việc ghép chữ ký rời cần thấy
+ * toàn bộ entry. Bộ nhớ đỉnh vì vậy xấp xỉ kích thước file cộng tổng byte giải nén, bị chặn bởi
+ * signature.limits.max-inflated-bytes (đếm chung cho cả container lồng nhau). Mọi entry dùng chung budget của
+ * container, kể cả deadline wall-clock; chi phí của cả container được AdmissionController ước tính từ kích thước
+ * giải nén khai báo trong central directory và giữ trên luồng gọi cho đến khi mọi entry hoàn tất.
+ */
+@Component
+public class ContainerSignatureProcessor implements SignatureProcessor {
+    private static final Logger logger = LoggerFactory.getLogger(ContainerSignatureProcessor.class);
+
+    private static final byte[] ZIP_MAGIC = {'P', 'K', 3, 4};
+    private static final byte[] EMBEDDED_FILE_MARKER = "/EmbeddedFile".getBytes(StandardCharsets.US_ASCII);
+    private static final String CONTENT_TYPES_ENTRY = "[Content_Types].xml";
+    private static final Set<String> OOXML_EXTENSIONS = Set.of("docx", "xlsx", "pptx");
+    private static final Set<String> DETACHED_EXTENSIONS = Set.of("p7s", "sig");
+
+    // Spring không đưa chính bean này vào danh sách
+    @Autowired(required = false)
+    private List<SignatureProcessor> processors = new ArrayList<>();
+
+    @Autowired
+    private PdfSignatureProcessor pdfProcessor;
+
+    @Autowired
+    private DetachedSignatureProcessor detachedProcessor;
+
+    @Autowired
+    private FileTypeDetectionService fileTypeDetectionService;
+
+    @Autowired
+    private ResourceBudgets resourceBudgets;
+
+    @Autowired
+    private CryptoUtils cryptoUtils;
+
+    @Autowired
+    @Qualifier("containerVerificationExecutor")
+    private Executor executor;
+
+    @Override
+    public boolean supports(FileType fileType) {
+        return false;
+    }
+
+    // trước PDF để PDF có file đính kèm được mở như container
+    @Override
+    public int getPriority() {
+        return 5;
+    }
+
+    @Override
+    public String getProcessorName() {
+        return "Container";
+    }
+
+    @Override
+    public boolean validateFileFormat(ByteBuffer content, String fileName) {
+        return isZip(content, fileName) || hasEmbeddedFiles(content, fileName);
+    }
+
+    @Override
+    public SignatureVerificationResult verifySignatures(byte[] content, String fileName, VerificationMode mode,
+                                                        TrustStoreSnapshot trustStore) {
+        logger.info("Starting container verification for file: {} (mode: {})", fileName, mode);
+        try {
+            return verifyContainer(content, fileName, mode, trustStore, resourceBudgets.newBudget(), 0);
+        } catch (Exception e) {
+            SignatureVerificationResult result = new SignatureVerificationResult(fileName, "container");
+            result.setFileSize(content.length);
+            BudgetExceededException exceeded = BudgetExceededException.find(e);
+            if (exceeded != null) {
+                result.setOverallStatus(exceeded.getGuard().getStatus());
+                result.setMessage(exceeded.getMessage());
+            } else {
+                logger.error("Error during container verification: {}", e.getMessage());
+                result.setOverallStatus(VerificationStatus.UNKNOWN);
+                result.setMessage("Container verification failed: " + e.getMessage());
+            }
+            return result;
+        }
+    }
+
+    private SignatureVerificationResult verifyContainer(byte[] content, String fileName, VerificationMode mode,
+                                                        TrustStoreSnapshot trustStore, VerificationBudget budget,
+                                                        int depth) throws Exception {
+        budget.checkNestingDepth(depth);
+
+        CompletableFuture<SignatureVerificationResult> own;
+        List<ContainerEntry> entries;
+        if (isZip(ByteBuffer.wrap(content), fileName)) {
+            SignatureVerificationResult archive = new SignatureVerificationResult(fileName, "zip");
+            archive.setFileSize(content.length);
+            own = CompletableFuture.completedFuture(archive);
+            entries = readZipEntries(content, budget);
+        } else {
+            // chữ ký của chính file PDF được xác minh song song với các file đính kèm
+            own = submit(fileName, budget, child -> pdfProcessor.verifySignatures(content, fileName, mode, trustStore,
+                    child));
+            entries = readEmbeddedFiles(content, budget);
+        }
+
+        List<CompletableFuture<SignatureVerificationResult>> children = verifyEntries(entries, mode, trustStore,
+                budget, depth);
+
+        SignatureVerificationResult result;
+        try {
+            result = await(own, budget);
+            if (!result.isHasSignature()) {
+                result.setOverallStatus(null);
+            }
+            for (CompletableFuture<SignatureVerificationResult> child : children) {
+                result.addChild(await(child, budget));
+            }
+        } catch (BudgetExceededException e) {
+            // entry còn chạy tự dừng ở lần kiểm tra deadline kế tiếp; các entry chưa bắt đầu bị huỷ
+            own.cancel(false);
+            children.forEach(child -> child.cancel(false));
+            throw e;
+        }
+        result.mergeChildStatus();
+
+        if (result.getOverallStatus() == null) {
+            result.setOverallStatus(VerificationStatus.INVALID);
+            result.setMessage("No signatures found in the file or its " + entries.size() + " entries");
+        } else if (result.getMessage() == null) {
+            result.setMessage(result.getOverallStatus() == VerificationStatus.VALID
+                    ? "All signed entries are valid" : "Some entries failed validation");
+        }
+        return result;
+    }
+
+    private List<CompletableFuture<SignatureVerificationResult>> verifyEntries(
+            List<ContainerEntry> entries, VerificationMode mode, TrustStoreSnapshot trustStore,
+            VerificationBudget budget, int depth) throws Exception {
+        Map<ContainerEntry, ContainerEntry> payloads = pairDetachedSignatures(entries);
+        Map<ContainerEntry, ContainerEntry> signaturesByPayload = new IdentityHashMap<>();
+        payloads.forEach((signature, payload) -> signaturesByPayload.put(payload, signature));
+
+        List<CompletableFuture<SignatureVerificationResult>> results = new ArrayList<>(entries.size());
+        List<Integer> nested = new ArrayList<>();
+        for (ContainerEntry entry : entries) {
+            if (validateFileFormat(entry.getContent(), entry.getName())) {
+                nested.add(results.size());
+                results.add(null);
+            } else if (payloads.containsKey(entry)) {
+                ContainerEntry payload = payloads.get(entry);
+                results.add(submit(entry.getName(), budget, child -> describeDetached(detachedProcessor.verifyDetached(
+                        entry.getContent(), payload.getContent(), entry.getName(), mode, trustStore, child), payload)));
+            } else {
+                SignatureProcessor processor = selectProcessor(entry);
+                if (processor == null) {
+                    results.add(CompletableFuture.completedFuture(
+                            unsignedEntry(entry, signaturesByPayload.get(entry))));
+                } else {
+                    results.add(submit(entry.getName(), budget, child -> processor.verifySignatures(
+                            entry.getContent(), entry.getName(), mode, trustStore, child)));
+                }
+            }
+        }
+
+        // container lồng nhau mở trên luồng hiện tại, sau khi các entry lá đã được đưa vào pool
+        for (int index : nested) {
+            ContainerEntry entry = entries.get(index);
+            results.set(index, CompletableFuture.completedFuture(
+                    verifyContainer(entry.getContent(), entry.getName(), mode, trustStore, budget, depth + 1)));
+        }
+        return results;
+    }
+
+    /**
+     * Ghép chữ ký rời với nội dung: ưu tiên tên ("a.pdf.p7s" -> "a.pdf", "a.p7s" -> "a.*") khi digest khớp,
+     * sau đó bất kỳ entry nào có digest bằng messageDigest đã ký, cuối cùng là entry trùng tên
+     * (khi đó kết quả sẽ báo digest không khớp).
+     */
+    private Map<ContainerEntry, ContainerEntry> pairDetachedSignatures(List<ContainerEntry> entries) throws Exception {
+        List<ContainerEntry> signatures = new ArrayList<>();
+        List<ContainerEntry> candidates = new ArrayList<>();
+        for (ContainerEntry entry : entries) {
+            (isDetachedSignature(entry) ? signatures : candidates).add(entry);
+        }
+
+        Map<ContainerEntry, ContainerEntry> pairs = new IdentityHashMap<>();
+        if (signatures.isEmpty() || candidates.isEmpty()) {
+            return pairs;
+        }
+
+        Map<String, Map<ContainerEntry, byte[]>> digests = new HashMap<>();
+        for (ContainerEntry signature : signatures) {
+            ContainerEntry byName = findByName(signature, candidates);
+            DetachedSignatureProcessor.SignedDigest signed = detachedProcessor.readSignedDigest(signature.getContent());
+
+            ContainerEntry payload = byName;
+            if (signed != null && (byName == null || !digestMatches(byName, signed, digests))) {
+                for (ContainerEntry candidate : candidates) {
+                    if (digestMatches(candidate, signed, digests)) {
+                        payload = candidate;
+                        break;
+                    }
+                }
+            }
+            if (payload != null) {
+                pairs.put(signature, payload);
+            }
+        }
+        return pairs;
+    }
+
+    private ContainerEntry findByName(ContainerEntry signature, List<ContainerEntry> candidates) {
+        String target = signature.getBaseName();
+        ContainerEntry sameBaseName = null;
+        for (ContainerEntry candidate : candidates) {
+            if (candidate.getName().equals(target)) {
+                return candidate;
+            }
+            if (sameBaseName == null && candidate.getBaseName().equals(target)) {
+                sameBaseName = candidate;
+            }
+        }
+        return sameBaseName;
+    }
+
+    private boolean digestMatches(ContainerEntry candidate, DetachedSignatureProcessor.SignedDigest signed,
+                                  Map<String, Map<ContainerEntry, byte[]>> digests) throws Exception {
+        Map<ContainerEntry, byte[]> byEntry = digests.computeIfAbsent(signed.getDigestAlgorithm(),
+                algorithm -> new IdentityHashMap<>());
+        byte[] digest = byEntry.get(candidate);
+        if (digest == null) {
+            digest = cryptoUtils.calculateHash(candidate.getContent(), signed.getDigestAlgorithm());
+            byEntry.put(candidate, digest);
+        }
+        return MessageDigest.isEqual(digest, signed.getDigest());
+    }
+
+    private boolean isDetachedSignature(ContainerEntry entry) {
+        return (DETACHED_EXTENSIONS.contains(entry.getExtension())
+                || fileTypeDetectionService.isDetachedSignature(entry.getMimeType()))
+                && detachedProcessor.validateFileFormat(entry.getContent(), entry.getName());
+    }
+
+    private SignatureProcessor selectProcessor(ContainerEntry entry) {
+        if (!fileTypeDetectionService.isSupportedFileType(entry.getMimeType())) {
+            return null;
+        }
+        return processors.stream()
+                .filter(processor -> processor != this)
+                .sorted(Comparator.comparingInt(SignatureProcessor::getPriority))
+                .filter(processor -> processor.validateFileFormat(entry.getContent(), entry.getName()))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private List<ContainerEntry> readZipEntries(byte[] content, VerificationBudget budget) throws Exception {
+        List<ContainerEntry> entries = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(content))) {
+            ZipEntry zipEntry;
+            while ((zipEntry = zip.getNextEntry()) != null) {
+                if (zipEntry.isDirectory()) continue;
+                budget.addContainerEntry();
+                budget.checkDeadline();
+                // không đóng luồng bọc: ZipInputStream chuyển sang entry tiếp theo
+                byte[] data = budget.limitInflated(zip).readAllBytes();
+                entries.add(newEntry(zipEntry.getName(), data));
+            }
+        }
+        return entries;
+    }
+
+    private List<ContainerEntry> readEmbeddedFiles(byte[] content, VerificationBudget budget) throws Exception {
+        List<ContainerEntry> entries = new ArrayList<>();
+        try (PDDocument document = Loader.loadPDF(content)) {
+            PDDocumentNameDictionary names = document.getDocumentCatalog().getNames();
+            if (names != null && names.getEmbeddedFiles() != null) {
+                collectEmbeddedFiles(names.getEmbeddedFiles(), entries, budget);
+            }
+        }
+        return entries;
+    }
+
+    private void collectEmbeddedFiles(PDNameTreeNode<PDComplexFileSpecification> node, List<ContainerEntry> entries,
+                                      VerificationBudget budget) throws Exception {
+        Map<String, PDComplexFileSpecification> files = node.getNames();
+        if (files != null) {
+            for (Map.Entry<String, PDComplexFileSpecification> file : files.entrySet()) {
+                PDComplexFileSpecification spec = file.getValue();
+                PDEmbeddedFile embedded = spec.getEmbeddedFileUnicode() != null
+                        ? spec.getEmbeddedFileUnicode() : spec.getEmbeddedFile();
+                if (embedded == null) continue;
+
+                budget.addContainerEntry();
+                budget.checkDeadline();
+                byte[] data;
+                try (InputStream in = budget.limitInflated(embedded.createInputStream())) {
+                    data = in.readAllBytes();
+                }
+                String name = spec.getFileUnicode() != null ? spec.getFileUnicode()
+                        : spec.getFilename() != null ? spec.getFilename() : file.getKey();
+                entries.add(newEntry(name, data));
+            }
+        }
+
+        List<PDNameTreeNode<PDComplexFileSpecification>> kids = node.getKids();
+        if (kids != null) {
+            for (PDNameTreeNode<PDComplexFileSpecification> kid : kids) {
+                collectEmbeddedFiles(kid, entries, budget);
+            }
+        }
+    }
+
+    private ContainerEntry newEntry(String name, byte[] data) throws Exception {
+        return new ContainerEntry(name, data, fileTypeDetectionService.detectFileType(data, name));
+    }
+
+    // budget con được tạo trên worker để giới hạn CPU đo đúng luồng chạy entry
+    private CompletableFuture<SignatureVerificationResult> submit(String name, VerificationBudget budget,
+                                                                  EntryVerification verification) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return verification.verify(budget.child());
+            } catch (Exception e) {
+                logger.error("Error verifying container entry {}: {}", name, e.getMessage());
+                SignatureVerificationResult failed = new SignatureVerificationResult(name, null);
+                failed.setOverallStatus(VerificationStatus.UNKNOWN);
+                failed.setMessage("Entry verification failed: " + e.getMessage());
+                return failed;
+            }
+        }, executor);
+    }
+
+    // chờ tối đa phần deadline còn lại của container thay vì join() không giới hạn
+    private SignatureVerificationResult await(CompletableFuture<SignatureVerificationResult> future,
+                                              VerificationBudget budget) throws Exception {
+        try {
+            return future.get(Math.max(0, budget.getRemainingWallClockNanos()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw budget.exceeded(ResourceGuard.WALL_CLOCK, "container entries did not finish before the deadline");
+        }
+    }
+
+    private SignatureVerificationResult describeDetached(SignatureVerificationResult result, ContainerEntry payload) {
+        result.setMessage(result.getMessage() + " (signed content: " + payload.getName() + ")");
+        return result;
+    }
+
+    private SignatureVerificationResult unsignedEntry(ContainerEntry entry, ContainerEntry detachedSignature) {
+        SignatureVerificationResult result = new SignatureVerificationResult(entry.getName(), entry.getMimeType());
+        result.setFileSize(entry.getContent().length);
+        result.setMessage(detachedSignature != null
+                ? "Covered by detached signature " + detachedSignature.getName()
+                : "No supported signature format");
+        return result;
+    }
+
+    private boolean isZip(ByteBuffer content, String fileName) {
+        if (content == null || content.remaining() < 30 || indexOf(content, ZIP_MAGIC, 1) != 0) return false;
+        if (fileName != null) {
+            int dot = fileName.lastIndexOf('.');
+            if (dot >= 0 && OOXML_EXTENSIONS.contains(fileName.substring(dot + 1).toLowerCase())) return false;
+        }
+        // gói OOXML bắt đầu bằng [Content_Types].xml, do các processor office xử lý
+        int start = content.position();
+        int nameLength = (content.get(start + 26) & 0xff) | (content.get(start + 27) & 0xff) << 8;
+        if (nameLength != CONTENT_TYPES_ENTRY.length() || content.remaining() < 30 + nameLength) return true;
+        byte[] name = new byte[nameLength];
+        content.get(start + 30, name);
+        return !CONTENT_TYPES_ENTRY.equals(new String(name, StandardCharsets.US_ASCII));
+    }
+
+    // dictionary /Type /EmbeddedFile là dictionary của stream nên không nằm trong object stream nén
+    private boolean hasEmbeddedFiles(ByteBuffer content, String fileName) {
+        return pdfProcessor.validateFileFormat(content, fileName)
+                && indexOf(content, EMBEDDED_FILE_MARKER, content.remaining()) >= 0;
+    }
+
+    // tìm marker trong searchLimit vị trí đầu, đọc tuyệt đối nên không đổi position của buffer
+    private static int indexOf(ByteBuffer content, byte[] marker, int searchLimit) {
+        int start = content.position();
+        int last = Math.min(searchLimit - 1, content.remaining() - marker.length);
+        outer:
+        for (int i = 0; i <= last; i++) {
+            for (int j = 0; j < marker.length; j++) {
+                if (content.get(start + i + j) != marker[j]) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    @FunctionalInterface
+    private interface EntryVerification {
+        SignatureVerificationResult verify(VerificationBudget budget) throws Exception;
+    }
+}
@@ -1,4 +1,136 @@
 package com.digitalsign.processor.detached;
 
-public class DetachedSignatureProcessor {
+import com.digitalsign.guard.VerificationBudget;
+import com.digitalsign.model.SignatureVerificationResult;
+import com.digitalsign.model.VerificationMode;
+import com.digitalsign.processor.AbstractSignatureProcessor;
+import com.digitalsign.processor.ParsedSignature;
+import com.digitalsign.trust.TrustStoreSnapshot;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.apache.pdfbox.util.filetypedetector.FileType;
+import org.bouncycastle.util.encoders.Base64;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Chữ ký CMS/PKCS#7 đứng riêng (.p7s, .sig, .p7m). Khi có nội dung được ký (file đi kèm chữ ký rời)
+ * thì xác minh qua verifyDetached, ngược lại dùng nội dung đóng gói trong CMS.
+ */
+@Component
+public class DetachedSignatureProcessor extends AbstractSignatureProcessor {
+    private static final List<String> PEM_LABELS = List.of("-----BEGIN PKCS7-----", "-----BEGIN CMS-----");
+    private static final String PEM_BEGIN = "-----BEGIN ";
+    private static final String PEM_END = "-----END ";
+    // OID 1.2.840.113549.1.7.2 (signedData) dạng DER
+    private static final byte[] SIGNED_DATA_OID = {0x06, 0x09, 0x2A, (byte) 0x86, 0x48, (byte) 0x86, (byte) 0xF7, 0x0D, 0x01, 0x07, 0x02};
+    private static final int OID_SEARCH_LIMIT = 32;
+
+    /**
+     * Thuật toán băm và giá trị messageDigest đã ký, dùng để ghép chữ ký rời với nội dung theo digest.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static final class SignedDigest {
+        private final String digestAlgorithm;
+        private final byte[] digest;
+    }
+
+    @Override
+    public boolean supports(FileType fileType) {
+        return false;
+    }
+
+    // sau các processor chữ ký nhúng
+    @Override
+    public int getPriority() {
+        return 60;
+    }
+
+    @Override
+    public String getProcessorName() {
+        return "Detached CMS";
+    }
+
+    @Override
+    public boolean validateFileFormat(ByteBuffer content, String fileName) {
+        if (content == null || content.remaining() < SIGNED_DATA_OID.length + 2) return false;
+        if (startsWithPem(content)) return true;
+        int start = content.position();
+        if (content.get(start) != 0x30) return false;
+
+        int limit = Math.min(content.remaining(), OID_SEARCH_LIMIT) - SIGNED_DATA_OID.length;
+        outer:
+        for (int i = 1; i <= limit; i++) {
+            for (int j = 0; j < SIGNED_DATA_OID.length; j++) {
+                if (content.get(start + i + j) != SIGNED_DATA_OID[j]) continue outer;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    public SignatureVerificationResult verifyDetached(byte[] signature, byte[] signedContent, String fileName,
+                                                      VerificationMode mode, TrustStoreSnapshot trustStore) {
+        return verifyDetached(signature, signedContent, fileName, mode, trustStore, null);
+    }
+
+    public SignatureVerificationResult verifyDetached(byte[] signature, byte[] signedContent, String fileName,
+                                                      VerificationMode mode, TrustStoreSnapshot trustStore,
+                                                      VerificationBudget budget) {
+        return verifySignatures(signature, signedContent, fileName, mode, trustStore, budget);
+    }
+
+    // null nếu chữ ký không có signed attributes hoặc không giải mã được
+    public SignedDigest readSignedDigest(byte[] signature) {
+        try {
+            byte[] der = toDer(signature);
+            resourceBudgets.newBudget().checkAsn1Depth(der);
+            ParsedSignature parsed = parsedSignatureCache.getOrParse(der, this::parseSignature);
+            if (parsed.getSignedAttributes() == null) return null;
+
+            byte[] digest = extractMessageDigest(parsed.getSignedAttributes());
+            String algorithm = algorithmRegistry.digestName(parsed.getSigner().getDigestAlgOID());
+            return digest != null && algorithm != null ? new SignedDigest(algorithm, digest) : null;
+        } catch (Exception e) {
+            logger.debug("Could not read messageDigest from detached signature: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    protected List<byte[]> extractSignatureData(byte[] content) {
+        return List.of(toDer(content));
+    }
+
+    @Override
+    protected byte[] extractOriginalContent(byte[] content) {
+        return null;
+    }
+
+    private byte[] toDer(byte[] content) {
+        if (!startsWithPem(ByteBuffer.wrap(content))) return content;
+
+        String pem = new String(content, StandardCharsets.US_ASCII);
+        int start = pem.indexOf('\n', pem.indexOf(PEM_BEGIN));
+        int end = pem.indexOf(PEM_END, start);
+        return Base64.decode(pem.substring(start + 1, end).replaceAll("\\s", ""));
+    }
+
+    private boolean startsWithPem(ByteBuffer content) {
+        int offset = content.position();
+        while (offset < content.limit() && Character.isWhitespace(content.get(offset))) offset++;
+        outer:
+        for (String label : PEM_LABELS) {
+            if (content.limit() - offset < label.length()) continue;
+            for (int i = 0; i < label.length(); i++) {
+                if (content.get(offset + i) != label.charAt(i)) continue outer;
+            }
+            return true;
+        }
+        return false;
+    }
 }
@@ -0,0 +1,26 @@
+package com.digitalsign.processor.pdf;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Thông tin của một trường chữ ký đọc từ từ điển /Sig, tách khỏi PDDocument để dùng sau khi đóng file.
+ */
+@Getter
+@RequiredArgsConstructor
+public final class PdfSignatureField {
+    private final int[] byteRange;
+    private final String name;
+    private final String reason;
+    private final String location;
+    private final String contactInfo;
+
+    // vị trí kết thúc revision chứa chữ ký này
+    public long getRevisionEnd() {
+        return (long) byteRange[2] + byteRange[3];
+    }
+
+    public String getByteRangeKey() {
+        return byteRange[0] + "," + byteRange[1] + "," + byteRange[2] + "," + byteRange[3];
+    }
+}
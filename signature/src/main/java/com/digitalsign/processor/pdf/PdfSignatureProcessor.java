@@ -1,4 +1,254 @@
 package com.digitalsign.processor.pdf;
 
-public class PdfSignatureProcessor{
+import com.digitalsign.cache.TwoTierCache;
+import com.digitalsign.guard.VerificationBudget;
+import com.digitalsign.model.SignatureInfo;
+import com.digitalsign.model.SignatureVerificationResult;
+import com.digitalsign.model.VerificationStatus;
+import com.digitalsign.processor.AbstractSignatureProcessor;
+import com.digitalsign.processor.VerificationContext;
+import jakarta.annotation.PostConstruct;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.interactive.digitalsignature.PDSignature;
+import org.apache.pdfbox.util.filetypedetector.FileType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Component
+public class PdfSignatureProcessor extends AbstractSignatureProcessor {
+    private static final byte[] PDF_HEADER = "%PDF-".getBytes(StandardCharsets.US_ASCII);
+    private static final int HEADER_SEARCH_LIMIT = 1024;
+
+    private static final String FIELDS_ATTRIBUTE = "pdf.fields";
+    private static final String FILE_HASH_ATTRIBUTE = "pdf.fileHash";
+
+    @Value("${signature.pdf.incremental.enabled:true}")
+    private boolean incrementalEnabled;
+
+    @Value("${signature.pdf.incremental.ttl:P7D}")
+    private Duration revisionTtl;
+
+    private TwoTierCache<VerifiedRevision> verifiedRevisions;
+
+    @PostConstruct
+    void init() {
+        verifiedRevisions = verificationCache.region("pdf-revisions", VerifiedRevision.class, revisionTtl);
+    }
+
+    @Override
+    public boolean supports(FileType fileType) {
+        // FileType của PDFBox chỉ liệt kê định dạng ảnh, processor được chọn qua validateFileFormat
+        return false;
+    }
+
+    @Override
+    public int getPriority() {
+        return 10;
+    }
+
+    @Override
+    public String getProcessorName() {
+        return "PDF";
+    }
+
+    @Override
+    public boolean validateFileFormat(ByteBuffer content, String fileName) {
+        if (content == null) return false;
+
+        int start = content.position();
+        int limit = Math.min(content.remaining(), HEADER_SEARCH_LIMIT) - PDF_HEADER.length;
+        outer:
+        for (int i = 0; i <= limit; i++) {
+            for (int j = 0; j < PDF_HEADER.length; j++) {
+                if (content.get(start + i + j) != PDF_HEADER[j]) continue outer;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    protected List<byte[]> extractSignatureData(byte[] content) throws Exception {
+        return extractSignatureData(content, null);
+    }
+
+    @Override
+    protected List<byte[]> extractSignatureData(byte[] content, VerificationContext context) throws Exception {
+        List<byte[]> signatures = new ArrayList<>();
+        List<byte[]> signedContents = new ArrayList<>();
+        List<PdfSignatureField> fields = new ArrayList<>();
+
+        VerificationBudget budget = context != null ? context.getBudget() : null;
+        try (PDDocument document = Loader.loadPDF(content)) {
+            for (PDSignature signature : document.getSignatureDictionaries()) {
+                if (budget != null) {
+                    // kiểm tra trước khi sao chép /Contents và vùng ByteRange của từng trường
+                    budget.checkSignatureCount(signatures.size() + 1);
+                    budget.checkDeadline();
+                }
+                int[] byteRange = signature.getByteRange();
+                if (byteRange == null || byteRange.length != 4) {
+                    logger.warn("Skipping PDF signature '{}' with invalid /ByteRange", signature.getName());
+                    continue;
+                }
+                signatures.add(signature.getContents());
+                signedContents.add(signature.getSignedContent(content));
+                fields.add(new PdfSignatureField(byteRange, signature.getName(), signature.getReason(),
+                        signature.getLocation(), signature.getContactInfo()));
+            }
+        }
+
+        if (context != null) {
+            context.setSignedContents(signedContents);
+            context.setAttribute(FIELDS_ATTRIBUTE, fields);
+            if (incrementalEnabled && verificationCache.isEnabled() && !fields.isEmpty()) {
+                reusePreviousRevision(content, fields, context);
+            }
+        }
+        return signatures;
+    }
+
+    // mỗi chữ ký PDF có nội dung được ký riêng (ByteRange), lấy qua context.getSignedContent
+    @Override
+    protected byte[] extractOriginalContent(byte[] content) {
+        return null;
+    }
+
+    @Override
+    protected SignatureInfo processSignature(byte[] signatureData, VerificationContext context, int index) throws Exception {
+        SignatureInfo sigInfo = super.processSignature(signatureData, context, index);
+
+        List<PdfSignatureField> fields = context.getAttribute(FIELDS_ATTRIBUTE);
+        if (context.getMode().isIncludeDetails() && fields != null && index < fields.size()) {
+            PdfSignatureField field = fields.get(index);
+            sigInfo.setReason(field.getReason());
+            sigInfo.setLocation(field.getLocation());
+            sigInfo.setContactInfo(field.getContactInfo());
+        }
+        return sigInfo;
+    }
+
+    @Override
+    protected void afterVerification(byte[] content, SignatureVerificationResult result, VerificationContext context) {
+        List<PdfSignatureField> fields = context.getAttribute(FIELDS_ATTRIBUTE);
+        String fileHash = context.getAttribute(FILE_HASH_ATTRIBUTE);
+        // chỉ lưu khi mọi chữ ký đã được xử lý (không dừng sớm)
+        if (fields == null || fileHash == null || result.getSignatures().size() != fields.size()) {
+            return;
+        }
+
+        VerifiedRevision revision = new VerifiedRevision();
+        revision.setIncludeDetails(context.getMode().isIncludeDetails());
+        for (int i = 0; i < fields.size(); i++) {
+            SignatureInfo signature = result.getSignatures().get(i);
+            Instant validTo = context.getSignerValidTo(i);
+            // kết quả VALID không có hạn chứng thư thì không kiểm tra lại được khi dùng lại, không lưu
+            if (signature.getStatus() == VerificationStatus.UNKNOWN
+                    || (signature.getStatus() == VerificationStatus.VALID && validTo == null)) {
+                continue;
+            }
+            String key = fields.get(i).getByteRangeKey();
+            revision.getSignatures().put(key, signature);
+            if (validTo != null) {
+                revision.getValidTo().put(key, validTo);
+            }
+        }
+        verifiedRevisions.put(context.getTrustStore().getTenantId(), revisionKey(context, fileHash), revision);
+    }
+
+    /**
+     * Chữ ký kết thúc tại vị trí E phủ một tiền tố [0, E) của file. Nếu tiền tố đó chính là một phiên bản
+     * đã xác minh trước đây (cùng SHA-256), mọi chữ ký nằm trong tiền tố được dùng lại kết quả cũ và chỉ
+     * các revision mới thêm vào mới phải xác minh. Băm các tiền tố trong một lần duyệt file, chỉ tới revisionEnd
+     * cuối cùng khi service đã có hash của cả file.
+     */
+    private void reusePreviousRevision(byte[] content, List<PdfSignatureField> fields, VerificationContext context)
+            throws NoSuchAlgorithmException {
+        TreeMap<Long, String> prefixHashes = new TreeMap<>();
+        for (PdfSignatureField field : fields) {
+            if (field.getRevisionEnd() <= content.length) {
+                prefixHashes.put(field.getRevisionEnd(), null);
+            }
+        }
+
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        int position = 0;
+        for (Map.Entry<Long, String> entry : prefixHashes.entrySet()) {
+            int end = entry.getKey().intValue();
+            digest.update(content, position, end - position);
+            position = end;
+            try {
+                entry.setValue(cryptoUtils.bytesToHex(((MessageDigest) digest.clone()).digest()));
+            } catch (CloneNotSupportedException e) {
+                return;
+            }
+        }
+        String fileHash = context.getFileHash();
+        if (fileHash == null) {
+            digest.update(content, position, content.length - position);
+            fileHash = cryptoUtils.bytesToHex(digest.digest());
+        }
+        context.setAttribute(FILE_HASH_ATTRIBUTE, fileHash);
+        prefixHashes.put((long) content.length, fileHash);
+
+        for (Map.Entry<Long, String> entry : prefixHashes.descendingMap().entrySet()) {
+            VerifiedRevision revision = verifiedRevisions.get(context.getTrustStore().getTenantId(),
+                    revisionKey(context, entry.getValue()));
+            if (revision == null || (!revision.isIncludeDetails() && context.getMode().isIncludeDetails())) {
+                continue;
+            }
+
+            for (int i = 0; i < fields.size(); i++) {
+                PdfSignatureField field = fields.get(i);
+                SignatureInfo previous = field.getRevisionEnd() <= entry.getKey()
+                        ? revision.getSignatures().get(field.getByteRangeKey()) : null;
+                Instant validTo = revision.getValidTo().get(field.getByteRangeKey());
+                if (previous != null && revalidate(previous, validTo)) {
+                    context.reuseSignature(i, previous);
+                    if (validTo != null) {
+                        context.setSignerValidTo(i, validTo);
+                    }
+                }
+            }
+            logger.info("Reusing {} of {} signature results from a previously verified revision of {}",
+                    context.getReusedSignatureCount(), fields.size(), context.getFileName());
+            return;
+        }
+    }
+
+    // kết quả phụ thuộc vào trust store của tenant, giống khoá của VerificationCache
+    private String revisionKey(VerificationContext context, String prefixHash) {
+        return context.getTrustStore().getTenantId() + ":" + context.getTrustStore().getFingerprint() + ":" + prefixHash;
+    }
+
+    /**
+     * Kết quả cũ có thể đã lỗi thời nếu chứng thư hết hạn sau lần xác minh trước. Hạn chứng thư được lưu
+     * riêng ở mọi mode nên vẫn kiểm tra được khi kết quả không có chi tiết chứng thư (STATUS_ONLY);
+     * false nếu kết quả VALID không có hạn để kiểm tra, chữ ký khi đó được xác minh lại.
+     */
+    boolean revalidate(SignatureInfo signature, Instant validTo) {
+        if (signature.getStatus() != VerificationStatus.VALID) {
+            return true;
+        }
+        if (validTo == null) {
+            return false;
+        }
+        if (validTo.isBefore(Instant.now())) {
+            signature.setStatus(VerificationStatus.INVALID);
+            signature.setStatusMessage("Certificate is not valid: Certificate exprired");
+        }
+        return true;
+    }
 }
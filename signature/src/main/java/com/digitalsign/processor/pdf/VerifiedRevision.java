@@ -0,0 +1,23 @@
+package com.digitalsign.processor.pdf;
+
+import com.digitalsign.model.SignatureInfo;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Kết quả từng chữ ký của một phiên bản PDF đã xác minh, khoá theo ByteRange.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class VerifiedRevision {
+    private boolean includeDetails;
+    private Map<String, SignatureInfo> signatures = new HashMap<>();
+    // notAfter của chứng thư ký theo ByteRange, lưu ở mọi mode để kiểm tra lại hết hạn khi dùng lại
+    private Map<String, Instant> validTo = new HashMap<>();
+}
@@ -0,0 +1,202 @@
+package com.digitalsign.service;
+
+import com.digitalsign.exception.AdmissionRejectedException;
+import com.digitalsign.model.VerificationLane;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ước lượng chi phí CPU của một file trước khi xác minh và quyết định nhận, xếp hàng hay từ chối.
+ * Chi phí (micro giây) = thời gian băm/parse theo kích thước file + chi phí cố định cho mỗi chữ ký,
+ * với số chữ ký lấy từ một lần quét nhanh trên byte thô; với ZIP, kích thước và số entry lấy từ central directory
+ * vì mọi entry sẽ được giải nén và xác minh. Mỗi luồng có ngân sách "CPU đang chờ"
+ * = số thread x độ trễ xếp hàng tối đa; vượt ngân sách thì request bị từ chối thay vì kéo dài hàng đợi.
+ */
+@Component
+public class AdmissionController {
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionController.class);
+
+    private static final byte[] PDF_SIGNATURE_MARKER = "/ByteRange".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] XML_SIGNATURE_MARKER = "SignatureValue".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] OOXML_SIGNATURE_MARKER = "_xmlsignatures/sig".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] EMBEDDED_FILE_MARKER = "/EmbeddedFile".getBytes(StandardCharsets.US_ASCII);
+    private static final int ZIP_LOCAL_HEADER = 0x04034b50;
+    private static final int ZIP_CENTRAL_HEADER = 0x02014b50;
+    private static final int ZIP_END_OF_DIRECTORY = 0x06054b50;
+
+    @Autowired
+    @Qualifier("interactiveVerificationExecutor")
+    private ThreadPoolExecutor interactiveExecutor;
+
+    @Autowired
+    @Qualifier("bulkVerificationExecutor")
+    private ThreadPoolExecutor bulkExecutor;
+
+    // tốc độ băm + parse ước tính, byte mỗi micro giây (~200 MB/s)
+    @Value("${signature.admission.bytes-per-micro:200}")
+    private long bytesPerMicro;
+
+    // chi phí mỗi chữ ký: giải mã CMS, chuyển chứng thư, một phép RSA-2048/ECDSA P-256
+    @Value("${signature.admission.per-signature-micros:2000}")
+    private long perSignatureMicros;
+
+    // file có chi phí lớn hơn ngưỡng này luôn được chuyển sang luồng bulk
+    @Value("${signature.admission.interactive-max-cost-micros:500000}")
+    private long interactiveMaxCostMicros;
+
+    // chặn phần giải nén khai báo của ZIP, trùng với giới hạn khi xác minh
+    @Value("${signature.limits.max-inflated-bytes:268435456}")
+    private long maxInflatedBytes;
+
+    @Value("${signature.lanes.interactive.max-queue-delay-ms:2000}")
+    private long interactiveMaxQueueDelayMillis;
+
+    @Value("${signature.lanes.bulk.max-queue-delay-ms:120000}")
+    private long bulkMaxQueueDelayMillis;
+
+    private final Map<VerificationLane, AtomicLong> pendingCost = new EnumMap<>(Map.of(
+            VerificationLane.INTERACTIVE, new AtomicLong(),
+            VerificationLane.BULK, new AtomicLong()));
+
+    public long estimateCost(byte[] content, String fileName) {
+        long bytes = content.length;
+        int signatureCount;
+        long[] archive = isArchive(content, fileName) ? scanCentralDirectory(content) : null;
+        if (archive != null) {
+            // ZIP: mọi entry đều được giải nén và có thể mang chữ ký
+            bytes += Math.min(archive[1], maxInflatedBytes);
+            signatureCount = (int) Math.min(Integer.MAX_VALUE, archive[0]);
+        } else {
+            // PDF có file đính kèm: mỗi file đính kèm tính như một chữ ký, kích thước nén đã nằm trong file
+            signatureCount = countSignatures(content, fileName) + count(content, EMBEDDED_FILE_MARKER);
+        }
+        return bytes / Math.max(1, bytesPerMicro) + Math.max(1, signatureCount) * perSignatureMicros;
+    }
+
+    public VerificationLane selectLane(VerificationLane requested, long cost) {
+        if (requested == VerificationLane.BULK || cost > interactiveMaxCostMicros) {
+            return VerificationLane.BULK;
+        }
+        return VerificationLane.INTERACTIVE;
+    }
+
+    public void admit(VerificationLane lane, long cost) throws AdmissionRejectedException {
+        AtomicLong pending = pendingCost.get(lane);
+        long capacity = capacity(lane);
+        while (true) {
+            long current = pending.get();
+            // luôn nhận khi luồng đang rảnh, kể cả khi một file vượt ngân sách
+            if (current > 0 && current + cost > capacity) {
+                logger.warn("Shedding {} verification: estimated {} us, pending {} us, capacity {} us",
+                        lane, cost, current, capacity);
+                throw new AdmissionRejectedException(String.format(
+                        "%s verification capacity exceeded, retry later", lane.getDescription()));
+            }
+            if (pending.compareAndSet(current, current + cost)) {
+                return;
+            }
+        }
+    }
+
+    public void release(VerificationLane lane, long cost) {
+        pendingCost.get(lane).addAndGet(-cost);
+    }
+
+    public long getPendingCost(VerificationLane lane) {
+        return pendingCost.get(lane).get();
+    }
+
+    public long capacity(VerificationLane lane) {
+        return lane == VerificationLane.INTERACTIVE
+                ? interactiveExecutor.getMaximumPoolSize() * interactiveMaxQueueDelayMillis * 1000
+                : bulkExecutor.getMaximumPoolSize() * bulkMaxQueueDelayMillis * 1000;
+    }
+
+    public ThreadPoolExecutor executor(VerificationLane lane) {
+        return lane == VerificationLane.INTERACTIVE ? interactiveExecutor : bulkExecutor;
+    }
+
+    // đếm thô trên byte, không parse: PDF theo /ByteRange, XML theo SignatureValue, OOXML theo tên entry chữ ký
+    int countSignatures(byte[] content, String fileName) {
+        String name = fileName == null ? "" : fileName.toLowerCase();
+        if (name.endsWith(".p7s") || name.endsWith(".sig") || name.endsWith(".p7m")) {
+            return 1;
+        }
+        if (name.endsWith(".xml")) {
+            return count(content, XML_SIGNATURE_MARKER);
+        }
+        if (name.endsWith(".docx") || name.endsWith(".xlsx") || name.endsWith(".pptx")) {
+            // tên entry xuất hiện ở cả local header và central directory
+            return (count(content, OOXML_SIGNATURE_MARKER) + 1) / 2;
+        }
+        return count(content, PDF_SIGNATURE_MARKER);
+    }
+
+    private boolean isArchive(byte[] content, String fileName) {
+        String name = fileName == null ? "" : fileName.toLowerCase();
+        return content.length >= 4 && readInt(content, 0) == ZIP_LOCAL_HEADER
+                && !(name.endsWith(".docx") || name.endsWith(".xlsx") || name.endsWith(".pptx"));
+    }
+
+    // {số entry, tổng kích thước giải nén khai báo}; null nếu không đọc được central directory
+    long[] scanCentralDirectory(byte[] content) {
+        int end = -1;
+        // end of central directory nằm trong 22 byte cuối cộng tối đa 64 KB comment
+        for (int i = content.length - 22; i >= Math.max(0, content.length - 22 - 0xffff); i--) {
+            if (readInt(content, i) == ZIP_END_OF_DIRECTORY) {
+                end = i;
+                break;
+            }
+        }
+        if (end < 0) return null;
+
+        int entries = readShort(content, end + 10);
+        long offset = readInt(content, end + 16) & 0xffffffffL;
+        long inflated = 0;
+        for (int i = 0; i < entries; i++) {
+            if (offset + 46 > content.length) return null;
+            int header = (int) offset;
+            if (readInt(content, header) != ZIP_CENTRAL_HEADER) return null;
+            // ZIP64 khai báo 0xFFFFFFFF: tính như đạt giới hạn
+            long size = readInt(content, header + 24) & 0xffffffffL;
+            inflated += size == 0xffffffffL ? maxInflatedBytes : size;
+            offset += 46L + readShort(content, header + 28) + readShort(content, header + 30)
+                    + readShort(content, header + 32);
+        }
+        return new long[]{entries, inflated};
+    }
+
+    private static int readShort(byte[] content, int offset) {
+        return (content[offset] & 0xff) | (content[offset + 1] & 0xff) << 8;
+    }
+
+    private static int readInt(byte[] content, int offset) {
+        return readShort(content, offset) | readShort(content, offset + 2) << 16;
+    }
+
+    private int count(byte[] content, byte[] marker) {
+        int count = 0;
+        byte first = marker[0];
+        int last = content.length - marker.length;
+        outer:
+        for (int i = 0; i <= last; i++) {
+            if (content[i] != first) continue;
+            for (int j = 1; j < marker.length; j++) {
+                if (content[i + j] != marker[j]) continue outer;
+            }
+            count++;
+            i += marker.length - 1;
+        }
+        return count;
+    }
+}
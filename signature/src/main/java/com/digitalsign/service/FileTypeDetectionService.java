@@ -1,10 +1,12 @@
 package com.digitalsign.service;
 
+import com.digitalsign.util.UploadedContent;
 import org.springframework.web.multipart.MultipartFile;
 
 public interface FileTypeDetectionService {
     String detectFileType(MultipartFile file) throws Exception;
     String detectFileType(byte[] content, String fileName) throws Exception;
+    String detectFileType(UploadedContent content) throws Exception;
     boolean isEmbeddedSignature(String fileType);
     boolean isDetachedSignature(String fileType);
     boolean isSupportedFileType(String fileType);
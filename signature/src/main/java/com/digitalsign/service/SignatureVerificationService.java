@@ -1,4 +1,35 @@
 package com.digitalsign.service;
 
-public class SignatureVerificationService {
+import com.digitalsign.model.SignatureVerificationResult;
+import com.digitalsign.model.VerificationLane;
+import com.digitalsign.model.VerificationMode;
+import com.digitalsign.util.UploadedContent;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface SignatureVerificationService {
+    default SignatureVerificationResult verify(byte[] content, String fileName, VerificationMode mode) throws Exception {
+        return verify(content, fileName, mode, null);
+    }
+    SignatureVerificationResult verify(byte[] content, String fileName, VerificationMode mode, String tenantId) throws Exception;
+    default CompletableFuture<SignatureVerificationResult> submit(byte[] content, String fileName, VerificationMode mode,
+                                                                  VerificationLane lane, String tenantId) throws Exception {
+        return submit(content, fileName, mode, lane, tenantId, null);
+    }
+    // fileHash: SHA-256 (hex) đã tính sẵn khi nhận dữ liệu theo luồng, null để service tự tính
+    CompletableFuture<SignatureVerificationResult> submit(byte[] content, String fileName, VerificationMode mode,
+                                                          VerificationLane lane, String tenantId, String fileHash) throws Exception;
+    // file upload: chọn processor, băm và tra cache trên ByteBuffer; chỉ sao chép sang byte[] khi phải xác minh
+    default SignatureVerificationResult verify(UploadedContent content, VerificationMode mode, String tenantId) throws Exception {
+        return verify(content.toByteArray(), content.getFileName(), mode, tenantId);
+    }
+    default CompletableFuture<SignatureVerificationResult> submit(UploadedContent content, VerificationMode mode,
+                                                                  VerificationLane lane, String tenantId) throws Exception {
+        return submit(content.toByteArray(), content.getFileName(), mode, lane, tenantId);
+    }
+    // xác minh tương tác không chặn luồng gọi; quá hạn thì future lỗi VerificationTimeoutException
+    default CompletableFuture<SignatureVerificationResult> verifyAsync(UploadedContent content, VerificationMode mode,
+                                                                       String tenantId) throws Exception {
+        return submit(content, mode, VerificationLane.INTERACTIVE, tenantId);
+    }
 }
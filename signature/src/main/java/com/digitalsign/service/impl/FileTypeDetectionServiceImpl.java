@@ -2,6 +2,7 @@ package com.digitalsign.service.impl;
 
 import com.digitalsign.service.FileTypeDetectionService;
 import com.digitalsign.util.FileUtils;
+import com.digitalsign.util.UploadedContent;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
@@ -58,6 +59,21 @@ public class FileTypeDetectionServiceImpl implements FileTypeDetectionService {
         return  mimeType;
     }
 
+    @Override
+    public String detectFileType(UploadedContent content) throws Exception{
+        try{
+            String mimeType = fileUtils.detectFileType(content);
+
+            if(mimeType == null || mimeType.equals("application/octet-stream")){
+                String extension = fileUtils.getFileExtension(content.getFileName());
+                mimeType = inferMimeTypeFromExtension(extension);
+            }
+            return mimeType;
+        }catch (IOException e){
+            throw new Exception("ERROR detecting file type", e);
+        }
+    }
+
     @Override
     public boolean isEmbeddedSignature(String fileType){
         return EMBEDDED_SIGNATURE_TYPES.contains(fileType);
@@ -65,7 +81,7 @@ public class FileTypeDetectionServiceImpl implements FileTypeDetectionService {
 
     @Override
     public boolean isDetachedSignature(String fileType){
-        return EMBEDDED_SIGNATURE_TYPES.contains(fileType);
+        return DETACHED_SIGNATURE_TYPES.contains(fileType);
     }
 
     @Override
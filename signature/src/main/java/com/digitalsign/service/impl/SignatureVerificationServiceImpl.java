@@ -1,4 +1,198 @@
 package com.digitalsign.service.impl;
 
-public class SignatureVerificationServiceImpl {
+import com.digitalsign.audit.VerificationAuditLog;
+import com.digitalsign.cache.VerificationCache;
+import com.digitalsign.exception.AdmissionRejectedException;
+import com.digitalsign.exception.UnsupportedFileTypeException;
+import com.digitalsign.exception.VerificationTimeoutException;
+import com.digitalsign.model.SignatureVerificationResult;
+import com.digitalsign.model.VerificationLane;
+import com.digitalsign.model.VerificationMode;
+import com.digitalsign.model.VerificationStatus;
+import com.digitalsign.processor.SignatureProcessor;
+import com.digitalsign.service.AdmissionController;
+import com.digitalsign.service.SignatureVerificationService;
+import com.digitalsign.trust.TrustStoreRegistry;
+import com.digitalsign.trust.TrustStoreSnapshot;
+import com.digitalsign.util.CryptoUtils;
+import com.digitalsign.util.UploadedContent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@Service
+public class SignatureVerificationServiceImpl implements SignatureVerificationService {
+    private static final Logger logger = LoggerFactory.getLogger(SignatureVerificationServiceImpl.class);
+
+    @Autowired(required = false)
+    private List<SignatureProcessor> processors = new ArrayList<>();
+
+    @Autowired
+    private AdmissionController admissionController;
+
+    @Autowired
+    private VerificationCache verificationCache;
+
+    @Autowired
+    private CryptoUtils cryptoUtils;
+
+    @Autowired
+    private VerificationAuditLog auditLog;
+
+    @Autowired
+    private TrustStoreRegistry trustStoreRegistry;
+
+    // thời gian chờ tối đa của lời gọi đồng bộ: thời gian chờ hàng đợi cộng giới hạn wall-clock của budget
+    @Value("${signature.verification.timeout:PT45S}")
+    private Duration verificationTimeout;
+
+    @Override
+    public SignatureVerificationResult verify(byte[] content, String fileName, VerificationMode mode,
+                                              String tenantId) throws Exception {
+        return await(submit(content, fileName, mode, VerificationLane.INTERACTIVE, tenantId), fileName);
+    }
+
+    @Override
+    public SignatureVerificationResult verify(UploadedContent content, VerificationMode mode,
+                                              String tenantId) throws Exception {
+        return await(submit(content, mode, VerificationLane.INTERACTIVE, tenantId), content.getFileName());
+    }
+
+    @Override
+    public CompletableFuture<SignatureVerificationResult> verifyAsync(UploadedContent content, VerificationMode mode,
+                                                                      String tenantId) throws Exception {
+        String fileName = content.getFileName();
+        return submit(content, mode, VerificationLane.INTERACTIVE, tenantId)
+                .orTimeout(verificationTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .exceptionallyCompose(e -> CompletableFuture.failedFuture(
+                        e instanceof TimeoutException ? timedOut(fileName) : e));
+    }
+
+    @Override
+    public CompletableFuture<SignatureVerificationResult> submit(byte[] content, String fileName, VerificationMode mode,
+                                                                 VerificationLane lane, String tenantId,
+                                                                 String precomputedHash) throws Exception {
+        SignatureProcessor processor = selectProcessor(ByteBuffer.wrap(content), fileName);
+        TrustStoreSnapshot trustStore = trustStoreRegistry.getSnapshot(tenantId);
+
+        String fileHash = precomputedHash != null ? precomputedHash
+                : cryptoUtils.bytesToHex(cryptoUtils.calculateSHA256(content));
+        CompletableFuture<SignatureVerificationResult> cached = cachedResult(trustStore, fileHash, fileName, mode);
+        if (cached != null) {
+            return cached;
+        }
+        return admitAndVerify(processor, content, fileName, mode, lane, trustStore, fileHash);
+    }
+
+    @Override
+    public CompletableFuture<SignatureVerificationResult> submit(UploadedContent content, VerificationMode mode,
+                                                                 VerificationLane lane, String tenantId) throws Exception {
+        String fileName = content.getFileName();
+        SignatureProcessor processor = selectProcessor(content.asByteBuffer(), fileName);
+        TrustStoreSnapshot trustStore = trustStoreRegistry.getSnapshot(tenantId);
+
+        String fileHash = cryptoUtils.bytesToHex(cryptoUtils.calculateSHA256(content.asByteBuffer()));
+        CompletableFuture<SignatureVerificationResult> cached = cachedResult(trustStore, fileHash, fileName, mode);
+        if (cached != null) {
+            return cached;
+        }
+        // PDFBox/BouncyCastle đọc từ byte[]: file spool chỉ được sao chép khỏi vùng map khi cache trượt,
+        // và trước khi trả về nên controller có thể đóng (xoá) file spool ngay sau lời gọi
+        return admitAndVerify(processor, content.toByteArray(), fileName, mode, lane, trustStore, fileHash);
+    }
+
+    private CompletableFuture<SignatureVerificationResult> cachedResult(TrustStoreSnapshot trustStore, String fileHash,
+                                                                        String fileName, VerificationMode mode) {
+        SignatureVerificationResult cached = verificationCache.getResult(trustStore, fileHash, mode);
+        if (cached == null) {
+            return null;
+        }
+        logger.debug("Verification cache hit for {} ({})", fileName, fileHash);
+        cached.setFileName(fileName);
+        auditLog.append(cached, trustStore.getTenantId());
+        return CompletableFuture.completedFuture(cached);
+    }
+
+    private CompletableFuture<SignatureVerificationResult> admitAndVerify(SignatureProcessor processor, byte[] content,
+                                                                          String fileName, VerificationMode mode,
+                                                                          VerificationLane lane,
+                                                                          TrustStoreSnapshot trustStore,
+                                                                          String fileHash) throws Exception {
+        long cost = admissionController.estimateCost(content, fileName);
+        VerificationLane selectedLane = admissionController.selectLane(lane, cost);
+        admissionController.admit(selectedLane, cost);
+        logger.debug("Admitted {} to {} lane (estimated {} us)", fileName, selectedLane, cost);
+
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    SignatureVerificationResult result = processor.verifySignatures(content, fileName, mode, trustStore,
+                            fileHash);
+                    if (result.getFileHash() == null) {
+                        // STATUS_ONLY bỏ qua hash trong processor, nhưng service đã tính sẵn để tra cache
+                        result.setFileHash(fileHash);
+                    }
+                    // UNKNOWN thường do lỗi tạm thời (I/O, hết thời gian...), không đưa vào cache
+                    if (result.getOverallStatus() != VerificationStatus.UNKNOWN) {
+                        verificationCache.putResult(trustStore, fileHash, mode, result);
+                    }
+                    auditLog.append(result, trustStore.getTenantId());
+                    return result;
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                } finally {
+                    admissionController.release(selectedLane, cost);
+                }
+            }, admissionController.executor(selectedLane));
+        } catch (RejectedExecutionException e) {
+            admissionController.release(selectedLane, cost);
+            throw new AdmissionRejectedException(selectedLane.getDescription() + " verification queue is full", e);
+        }
+    }
+
+    private SignatureProcessor selectProcessor(ByteBuffer content, String fileName) throws UnsupportedFileTypeException {
+        return processors.stream()
+                .sorted(Comparator.comparingInt(SignatureProcessor::getPriority))
+                .filter(processor -> processor.validateFileFormat(content.duplicate(), fileName))
+                .findFirst()
+                .orElseThrow(() -> new UnsupportedFileTypeException(fileName));
+    }
+
+    // công việc đã nhận vẫn chạy tiếp sau khi hết hạn chờ, budget wall-clock sẽ dừng nó
+    private SignatureVerificationResult await(CompletableFuture<SignatureVerificationResult> future,
+                                              String fileName) throws Exception {
+        try {
+            return future.get(verificationTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (TimeoutException e) {
+            throw timedOut(fileName);
+        }
+    }
+
+    private VerificationTimeoutException timedOut(String fileName) {
+        return new VerificationTimeoutException("Verification of " + fileName + " did not finish within "
+                + verificationTimeout.toMillis() + " ms");
+    }
+
+    private Exception unwrap(Throwable cause) {
+        if (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof Exception ? (Exception) cause : new Exception(cause);
+    }
 }
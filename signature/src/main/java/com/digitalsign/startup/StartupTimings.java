@@ -0,0 +1,65 @@
+package com.digitalsign.startup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ghi lại các mốc thời gian khởi động tính từ lúc JVM bắt đầu: context sẵn sàng,
+ * warm-up xong và lần xác minh chữ ký đầu tiên hoàn tất.
+ */
+@Component
+public class StartupTimings {
+    private static final Logger logger = LoggerFactory.getLogger(StartupTimings.class);
+
+    private final AtomicBoolean firstVerificationRecorded = new AtomicBoolean();
+
+    private volatile long readyMillis = -1;
+    private volatile long warmUpMillis = -1;
+    private volatile long firstVerificationMillis = -1;
+    private volatile boolean warmingUp;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        readyMillis = uptime();
+        logger.info("Application ready {} ms after JVM start", readyMillis);
+    }
+
+    // các lần xác minh của warm-up không tính là lần xác minh đầu tiên
+    public void beginWarmUp() {
+        warmingUp = true;
+    }
+
+    public void recordWarmUp(long durationMillis) {
+        warmUpMillis = durationMillis;
+        warmingUp = false;
+    }
+
+    public void recordVerification() {
+        if (!warmingUp && firstVerificationRecorded.compareAndSet(false, true)) {
+            firstVerificationMillis = uptime();
+            logger.info("First signature verification completed {} ms after JVM start", firstVerificationMillis);
+        }
+    }
+
+    public long getReadyMillis() {
+        return readyMillis;
+    }
+
+    public long getWarmUpMillis() {
+        return warmUpMillis;
+    }
+
+    public long getFirstVerificationMillis() {
+        return firstVerificationMillis;
+    }
+
+    private long uptime() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+}
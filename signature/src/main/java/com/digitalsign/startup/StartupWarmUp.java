@@ -0,0 +1,129 @@
+package com.digitalsign.startup;
+
+import com.digitalsign.cache.VerificationCache;
+import com.digitalsign.diagnostics.SlowVerificationRecorder;
+import com.digitalsign.model.SignatureVerificationResult;
+import com.digitalsign.model.VerificationMode;
+import com.digitalsign.model.VerificationStatus;
+import com.digitalsign.processor.ParsedSignatureCache;
+import com.digitalsign.processor.SignatureProcessor;
+import com.digitalsign.trust.TrustStoreSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Chạy đường xác minh thật (verifySignatures của processor) trên các file mẫu đóng gói trong warm-up/ trước khi
+ * ứng dụng báo sẵn sàng (ApplicationRunner chạy trước ApplicationReadyEvent), để tra cứu provider, nạp lớp và JIT
+ * không rơi vào request đầu tiên.
+ */
+@Component
+public class StartupWarmUp implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(StartupWarmUp.class);
+
+    private static final String[] DIGESTS = {"SHA-1", "SHA-256", "SHA-384", "SHA-512", "SHA3-256"};
+
+    // CMS đóng gói (RSA, ECDSA, Ed25519) và một PDF ký ECDSA; chứng thư tự ký, hạn đến năm 2124
+    private static final String[] FIXTURES = {
+            "warm-up/rsa.p7s", "warm-up/ecdsa.p7s", "warm-up/ed25519.p7s", "warm-up/ecdsa.pdf"
+    };
+
+    // partition cache riêng, không ghi kết quả mẫu vào partition của tenant thật
+    static final String WARM_UP_TENANT = "warm-up";
+
+    @Autowired(required = false)
+    private List<SignatureProcessor> processors = new ArrayList<>();
+
+    @Autowired
+    private ParsedSignatureCache parsedSignatureCache;
+
+    @Autowired
+    private VerificationCache verificationCache;
+
+    @Autowired
+    private SlowVerificationRecorder slowVerifications;
+
+    @Autowired
+    private StartupTimings startupTimings;
+
+    // đọc lúc chạy thay vì @ConditionalOnProperty, vì điều kiện bean bị cố định khi build với Spring AOT
+    @Value("${signature.startup.warm-up.enabled:false}")
+    private boolean enabled;
+
+    @Value("${signature.startup.warm-up.iterations:200}")
+    private int iterations;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (!enabled) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        startupTimings.beginWarmUp();
+        try {
+            byte[] payload = new byte[16 * 1024];
+            for (String algoristhm : DIGESTS) {
+                MessageDigest digest = MessageDigest.getInstance(algoristhm);
+                for (int i = 0; i < iterations; i++) {
+                    digest.update(payload);
+                    digest.digest();
+                }
+            }
+
+            List<byte[]> fixtures = new ArrayList<>();
+            List<SignatureProcessor> fixtureProcessors = new ArrayList<>();
+            for (String fixture : FIXTURES) {
+                fixtures.add(load(fixture));
+                fixtureProcessors.add(selectProcessor(fixtures.get(fixtures.size() - 1), fixture));
+            }
+
+            TrustStoreSnapshot trustStore = TrustStoreSnapshot.unconfigured(WARM_UP_TENANT);
+            for (int i = 0; i < iterations; i++) {
+                for (int f = 0; f < FIXTURES.length; f++) {
+                    SignatureVerificationResult result = fixtureProcessors.get(f)
+                            .verifySignatures(fixtures.get(f), FIXTURES[f], VerificationMode.FULL, trustStore);
+                    if (result.getOverallStatus() != VerificationStatus.VALID) {
+                        throw new IllegalStateException("Warm-up fixture " + FIXTURES[f] + " failed to verify: "
+                                + result.getMessage());
+                    }
+                }
+                // giải mã CMS lại ở mỗi vòng; kết quả revision PDF vẫn được dùng lại như với request lặp lại
+                parsedSignatureCache.clear();
+            }
+        } finally {
+            verificationCache.clearTenant(WARM_UP_TENANT);
+            slowVerifications.clear();
+            startupTimings.recordWarmUp((System.nanoTime() - start) / 1_000_000);
+        }
+
+        long elapsedMillis = startupTimings.getWarmUpMillis();
+        logger.info("Verification warm-up finished in {} ms ({} iterations)", elapsedMillis, iterations);
+    }
+
+    private SignatureProcessor selectProcessor(byte[] content, String fileName) {
+        return processors.stream()
+                .sorted(Comparator.comparingInt(SignatureProcessor::getPriority))
+                .filter(processor -> processor.validateFileFormat(ByteBuffer.wrap(content), fileName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No processor for warm-up fixture " + fileName));
+    }
+
+    private static byte[] load(String fixture) throws Exception {
+        try (InputStream in = new ClassPathResource(fixture).getInputStream()) {
+            return in.readAllBytes();
+        }
+    }
+}
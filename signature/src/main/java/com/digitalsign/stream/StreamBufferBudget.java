@@ -0,0 +1,42 @@
+package com.digitalsign.stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tổng byte bộ đệm tài liệu của mọi kết nối streaming, tính từ lúc cấp bộ đệm đến khi tài liệu xác minh xong.
+ * Credit chỉ giới hạn số tài liệu trên một kết nối; ngân sách này chặn tổng heap khi có nhiều kết nối.
+ */
+@Component
+public class StreamBufferBudget {
+    @Value("${signature.stream.max-buffered-bytes:536870912}")
+    private long maxBufferedBytes;
+
+    private final AtomicLong reserved = new AtomicLong();
+
+    public boolean tryReserve(long bytes) {
+        while (true) {
+            long current = reserved.get();
+            if (current + bytes > maxBufferedBytes) {
+                return false;
+            }
+            if (reserved.compareAndSet(current, current + bytes)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(long bytes) {
+        reserved.addAndGet(-bytes);
+    }
+
+    public long getReservedBytes() {
+        return reserved.get();
+    }
+
+    public long getMaxBufferedBytes() {
+        return maxBufferedBytes;
+    }
+}
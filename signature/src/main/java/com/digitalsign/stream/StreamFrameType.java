@@ -0,0 +1,35 @@
+package com.digitalsign.stream;
+
+/**
+ * Loại frame của giao thức xác minh theo luồng. Mỗi frame: 1 byte loại, 4 byte streamId, phần còn lại là dữ liệu.
+ */
+public enum StreamFrameType {
+    // client -> server
+    OPEN(1),
+    CHUNK(2),
+    END(3),
+    CANCEL(4),
+    // server -> client
+    CREDIT(16),
+    RESULT(17),
+    ERROR(18);
+
+    private final byte code;
+
+    StreamFrameType(int code) {
+        this.code = (byte) code;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    public static StreamFrameType fromCode(byte code) {
+        for (StreamFrameType type : values()) {
+            if (type.code == code) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
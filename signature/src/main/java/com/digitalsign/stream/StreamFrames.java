@@ -0,0 +1,94 @@
+package com.digitalsign.stream;
+
+import com.digitalsign.model.VerificationMode;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Mã hoá/giải mã frame (big-endian). Chuỗi được ghi dạng độ dài 2 byte + UTF-8.
+ *
+ * <pre>
+ * OPEN   [fileName][mode][long length]?   CHUNK  [bytes...]      END / CANCEL  (rỗng)
+ * CREDIT [int n]                          RESULT [JSON kết quả]  ERROR [errorCode][message]
+ * </pre>
+ * Độ dài trong OPEN là tuỳ chọn; khi có, server cấp bộ đệm đúng kích thước và kiểm tra số byte nhận được.
+ */
+public final class StreamFrames {
+    public static final int HEADER_SIZE = 5;
+
+    private StreamFrames() {
+    }
+
+    public static ByteBuffer open(int streamId, String fileName, VerificationMode mode) {
+        return open(streamId, fileName, mode, StreamingDocument.UNKNOWN_LENGTH);
+    }
+
+    public static ByteBuffer open(int streamId, String fileName, VerificationMode mode, long length) {
+        byte[] name = fileName.getBytes(StandardCharsets.UTF_8);
+        byte[] modeName = mode.name().getBytes(StandardCharsets.US_ASCII);
+        int lengthSize = length == StreamingDocument.UNKNOWN_LENGTH ? 0 : 8;
+        ByteBuffer frame = header(StreamFrameType.OPEN, streamId, 4 + name.length + modeName.length + lengthSize);
+        putString(frame, name);
+        putString(frame, modeName);
+        if (lengthSize > 0) {
+            frame.putLong(length);
+        }
+        return frame.flip();
+    }
+
+    public static ByteBuffer chunk(int streamId, byte[] data, int offset, int length) {
+        return header(StreamFrameType.CHUNK, streamId, length).put(data, offset, length).flip();
+    }
+
+    public static ByteBuffer end(int streamId) {
+        return header(StreamFrameType.END, streamId, 0).flip();
+    }
+
+    public static ByteBuffer cancel(int streamId) {
+        return header(StreamFrameType.CANCEL, streamId, 0).flip();
+    }
+
+    public static ByteBuffer credit(int credits) {
+        return header(StreamFrameType.CREDIT, 0, 4).putInt(credits).flip();
+    }
+
+    public static ByteBuffer result(int streamId, byte[] json) {
+        return header(StreamFrameType.RESULT, streamId, json.length).put(json).flip();
+    }
+
+    public static ByteBuffer error(int streamId, String errorCode, String message) {
+        byte[] code = errorCode.getBytes(StandardCharsets.UTF_8);
+        byte[] text = truncate(message != null ? message : "", 0xffff).getBytes(StandardCharsets.UTF_8);
+        ByteBuffer frame = header(StreamFrameType.ERROR, streamId, 4 + code.length + text.length);
+        putString(frame, code);
+        putString(frame, text);
+        return frame.flip();
+    }
+
+    public static String readString(ByteBuffer frame) {
+        int length = frame.getShort() & 0xffff;
+        if (length > frame.remaining()) {
+            throw new IllegalArgumentException("String length " + length + " exceeds frame");
+        }
+        byte[] bytes = new byte[length];
+        frame.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuffer header(StreamFrameType type, int streamId, int payloadLength) {
+        return ByteBuffer.allocate(HEADER_SIZE + payloadLength).put(type.getCode()).putInt(streamId);
+    }
+
+    private static void putString(ByteBuffer frame, byte[] value) {
+        if (value.length > 0xffff) {
+            throw new IllegalArgumentException("String too long: " + value.length + " bytes");
+        }
+        frame.putShort((short) value.length).put(value);
+    }
+
+    // giới hạn theo số ký tự, UTF-8 có thể dài hơn nhưng thông báo lỗi thực tế rất ngắn
+    private static String truncate(String value, int maxLength) {
+        return value.length() <= maxLength / 3 ? value : value.substring(0, maxLength / 3);
+    }
+}
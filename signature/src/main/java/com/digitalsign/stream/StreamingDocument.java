@@ -0,0 +1,115 @@
+package com.digitalsign.stream;
+
+import com.digitalsign.exception.SignatureVerificationException;
+import com.digitalsign.model.VerificationMode;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Một tài liệu đang được nhận: các chunk được băm SHA-256 ngay khi đến và ghép vào bộ đệm. Khi client khai báo
+ * độ dài trong OPEN, bộ đệm được cấp đúng kích thước một lần và trả thẳng cho service, không sao chép; nếu không,
+ * bộ đệm tăng gấp đôi và được cắt lại khi kết thúc. Mọi byte bộ đệm được giữ chỗ trong {@link StreamBufferBudget}
+ * cho đến khi {@link #release} được gọi; release có thể bị gọi nhiều lần nhưng chỉ trả phần giữ chỗ một lần.
+ */
+final class StreamingDocument {
+    static final long UNKNOWN_LENGTH = -1;
+
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private final String fileName;
+    private final VerificationMode mode;
+    private final long maxSize;
+    private final long declaredLength;
+    private final StreamBufferBudget budget;
+    private final MessageDigest digest;
+    private byte[] buffer = new byte[0];
+    private int size;
+    private final AtomicLong reserved = new AtomicLong();
+
+    StreamingDocument(String fileName, VerificationMode mode, long maxSize, long declaredLength,
+                      StreamBufferBudget budget) throws SignatureVerificationException, NoSuchAlgorithmException {
+        this.fileName = fileName;
+        this.mode = mode;
+        this.maxSize = Math.min(maxSize, MAX_ARRAY_SIZE);
+        this.declaredLength = declaredLength;
+        this.budget = budget;
+        this.digest = MessageDigest.getInstance("SHA-256");
+        if (declaredLength > this.maxSize) {
+            throw tooLarge();
+        }
+        if (declaredLength > 0) {
+            buffer = new byte[(int) reserve(declaredLength)];
+        }
+    }
+
+    String getFileName() {
+        return fileName;
+    }
+
+    VerificationMode getMode() {
+        return mode;
+    }
+
+    void append(ByteBuffer chunk) throws SignatureVerificationException {
+        int length = chunk.remaining();
+        if (declaredLength != UNKNOWN_LENGTH && (long) size + length > declaredLength) {
+            throw new SignatureVerificationException("LENGTH_MISMATCH",
+                    "Document " + fileName + " is longer than the declared " + declaredLength + " bytes");
+        }
+        if ((long) size + length > maxSize) {
+            throw tooLarge();
+        }
+        if (size + length > buffer.length) {
+            long grown = Math.min(Math.max((long) buffer.length * 2, Math.max(INITIAL_CAPACITY, size + length)),
+                    maxSize);
+            reserve(grown - buffer.length);
+            buffer = Arrays.copyOf(buffer, (int) grown);
+        }
+        digest.update(chunk.duplicate());
+        chunk.get(buffer, size, length);
+        size += length;
+    }
+
+    byte[] getContent() throws SignatureVerificationException {
+        if (declaredLength != UNKNOWN_LENGTH && size != declaredLength) {
+            throw new SignatureVerificationException("LENGTH_MISMATCH",
+                    "Document " + fileName + " has " + size + " of the declared " + declaredLength + " bytes");
+        }
+        if (size == buffer.length) {
+            return buffer;
+        }
+        // bộ đệm cũ bị bỏ ngay sau khi cắt, chỉ giữ chỗ cho phần còn dùng
+        buffer = Arrays.copyOf(buffer, size);
+        budget.release(reserved.getAndSet(size) - size);
+        return buffer;
+    }
+
+    String getFileHash() {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    // trả phần giữ chỗ; gọi khi tài liệu bị huỷ hoặc đã xác minh xong
+    void release() {
+        budget.release(reserved.getAndSet(0));
+    }
+
+    private long reserve(long bytes) throws SignatureVerificationException {
+        if (!budget.tryReserve(bytes)) {
+            throw new SignatureVerificationException("SERVER_BUSY",
+                    "Streaming buffers are full, retry " + fileName + " later");
+        }
+        reserved.addAndGet(bytes);
+        return bytes;
+    }
+
+    private SignatureVerificationException tooLarge() {
+        return new SignatureVerificationException("DOCUMENT_TOO_LARGE",
+                "Document " + fileName + " exceeds " + maxSize + " bytes");
+    }
+}
@@ -0,0 +1,154 @@
+package com.digitalsign.stream;
+
+import com.digitalsign.service.SignatureVerificationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.ServletContext;
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.DeploymentException;
+import jakarta.websocket.Endpoint;
+import jakarta.websocket.EndpointConfig;
+import jakarta.websocket.HandshakeResponse;
+import jakarta.websocket.Session;
+import jakarta.websocket.server.HandshakeRequest;
+import jakarta.websocket.server.ServerContainer;
+import jakarta.websocket.server.ServerEndpointConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.ServletContextAware;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Endpoint WebSocket nhị phân {@value #PATH}: client gửi nhiều tài liệu theo từng chunk trên một kết nối,
+ * server trả kết quả ngay khi từng tài liệu xác minh xong. Dùng container JSR-356 có sẵn của Tomcat nhúng;
+ * khi không có container (test với MockServletContext) endpoint không được đăng ký.
+ */
+@Component
+public class StreamingVerificationEndpoint extends Endpoint implements ServletContextAware, SmartInitializingSingleton {
+    private static final Logger logger = LoggerFactory.getLogger(StreamingVerificationEndpoint.class);
+
+    public static final String PATH = "/api/signatures/stream";
+    private static final String TENANT_HEADER = "X-Tenant-Id";
+    private static final String TENANT_PROPERTY = "tenantId";
+    private static final String SESSION_PROPERTY = StreamingVerificationSession.class.getName();
+
+    @Autowired
+    private SignatureVerificationService signatureVerificationService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private StreamBufferBudget bufferBudget;
+
+    // số tài liệu tối đa đang xử lý trên mỗi kết nối
+    @Value("${signature.stream.window:16}")
+    private int window;
+
+    @Value("${signature.stream.max-chunk-size:1048576}")
+    private int maxChunkSize;
+
+    @Value("${signature.stream.max-document-size:104857600}")
+    private long maxDocumentSize;
+
+    // client không đọc kết quả trong thời hạn này thì kết nối bị đóng
+    @Value("${signature.stream.send-timeout:PT30S}")
+    private Duration sendTimeout;
+
+    private ServletContext servletContext;
+
+    @Override
+    public void setServletContext(ServletContext servletContext) {
+        this.servletContext = servletContext;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        ServerContainer container = servletContext == null ? null
+                : (ServerContainer) servletContext.getAttribute(ServerContainer.class.getName());
+        if (container == null) {
+            logger.info("No WebSocket container available, streaming verification endpoint disabled");
+            return;
+        }
+
+        ServerEndpointConfig config = ServerEndpointConfig.Builder.create(StreamingVerificationEndpoint.class, PATH)
+                .configurator(new ServerEndpointConfig.Configurator() {
+                    @Override
+                    public <T> T getEndpointInstance(Class<T> endpointClass) {
+                        return endpointClass.cast(StreamingVerificationEndpoint.this);
+                    }
+
+                    @Override
+                    public void modifyHandshake(ServerEndpointConfig sec, HandshakeRequest request,
+                                                HandshakeResponse response) {
+                        // Tomcat sao chép userProperties cho từng handshake
+                        List<String> tenant = request.getHeaders().get(TENANT_HEADER);
+                        if (tenant != null && !tenant.isEmpty()) {
+                            sec.getUserProperties().put(TENANT_PROPERTY, tenant.get(0));
+                        }
+                    }
+                })
+                .build();
+        try {
+            container.addEndpoint(config);
+            logger.info("Streaming verification endpoint registered at {} (window: {})", PATH, window);
+        } catch (DeploymentException e) {
+            throw new IllegalStateException("Could not register streaming verification endpoint", e);
+        }
+    }
+
+    @Override
+    public void onOpen(Session session, EndpointConfig config) {
+        session.setMaxBinaryMessageBufferSize(maxChunkSize + StreamFrames.HEADER_SIZE);
+        session.getAsyncRemote().setSendTimeout(sendTimeout.toMillis());
+        StreamingVerificationSession handler = new StreamingVerificationSession(signatureVerificationService,
+                objectMapper, new WebSocketFrameSink(session), bufferBudget,
+                (String) config.getUserProperties().get(TENANT_PROPERTY), window, maxDocumentSize);
+        session.getUserProperties().put(SESSION_PROPERTY, handler);
+        session.addMessageHandler(ByteBuffer.class, handler::onFrame);
+        handler.start();
+    }
+
+    @Override
+    public void onClose(Session session, CloseReason closeReason) {
+        StreamingVerificationSession handler = (StreamingVerificationSession) session.getUserProperties()
+                .get(SESSION_PROPERTY);
+        if (handler != null) {
+            handler.close();
+        }
+    }
+
+    @Override
+    public void onError(Session session, Throwable error) {
+        logger.warn("Verification stream error: {}", error.getMessage());
+    }
+
+    private static final class WebSocketFrameSink implements StreamingVerificationSession.FrameSink {
+        private final Session session;
+
+        private WebSocketFrameSink(Session session) {
+            this.session = session;
+        }
+
+        @Override
+        public void send(ByteBuffer frame, Consumer<Throwable> callback) {
+            session.getAsyncRemote().sendBinary(frame,
+                    result -> callback.accept(result.isOK() ? null : result.getException()));
+        }
+
+        @Override
+        public void close(String reason) throws IOException {
+            // reason phrase của close frame tối đa 123 byte
+            session.close(new CloseReason(CloseReason.CloseCodes.VIOLATED_POLICY,
+                    reason.length() > 120 ? reason.substring(0, 120) : reason));
+        }
+    }
+}
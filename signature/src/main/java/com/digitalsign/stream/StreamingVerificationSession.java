@@ -0,0 +1,333 @@
+package com.digitalsign.stream;
+
+import com.digitalsign.exception.SignatureVerificationException;
+import com.digitalsign.model.SignatureVerificationResult;
+import com.digitalsign.model.VerificationLane;
+import com.digitalsign.model.VerificationMode;
+import com.digitalsign.service.SignatureVerificationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Trạng thái giao thức của một kết nối, tách khỏi WebSocket để có thể chạy hoàn toàn trong process.
+ * Điều khiển luồng theo credit: server cấp {@code window} credit lúc mở, mỗi OPEN tiêu một credit và
+ * credit được trả lại khi kết quả (hoặc lỗi) của tài liệu đó đã gửi đi. Client mở quá số credit bị ngắt kết nối.
+ * {@link #onFrame} phải được gọi tuần tự từ một luồng; {@link #close} có thể chạy đồng thời trên luồng khác của
+ * container (onClose, callback gửi thất bại) nên bảng tài liệu đang nhận được khoá theo phiên. Kết quả được đưa vào hàng đợi gửi theo thứ tự hoàn thành
+ * và gửi bất đồng bộ từng frame một, nên worker xác minh không bao giờ bị chặn bởi client đọc chậm; hàng đợi
+ * bị chặn tự nhiên bởi credit (mỗi tài liệu tối đa một RESULT/ERROR và một CREDIT).
+ */
+public class StreamingVerificationSession {
+    private static final Logger logger = LoggerFactory.getLogger(StreamingVerificationSession.class);
+
+    /**
+     * Đích gửi frame về client. {@link #send} không bao giờ bị gọi khi frame trước chưa hoàn tất.
+     */
+    public interface FrameSink {
+        // không chặn; callback được gọi đúng một lần, với null khi đã gửi xong hoặc lỗi khi thất bại/quá hạn
+        void send(ByteBuffer frame, Consumer<Throwable> callback);
+
+        void close(String reason) throws IOException;
+    }
+
+    private final SignatureVerificationService verificationService;
+    private final ObjectMapper objectMapper;
+    private final FrameSink sink;
+    private final StreamBufferBudget bufferBudget;
+    private final String tenantId;
+    private final int window;
+    private final long maxDocumentSize;
+
+    // guarded by documents: luồng onFrame thêm/bớt, close() trên luồng container giải phóng phần còn lại
+    private final Map<Integer, StreamingDocument> documents = new HashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Object sendLock = new Object();
+    private final Deque<ByteBuffer> outbound = new ArrayDeque<>();
+    // guarded by sendLock: đang có frame gửi dở, luồng giữ cờ này chịu trách nhiệm gửi tiếp
+    private boolean sending;
+    // guarded by sendLock: đóng kết nối sau khi gửi hết hàng đợi (lỗi giao thức)
+    private String closeReason;
+    private volatile boolean closing;
+    private volatile boolean closed;
+
+    public StreamingVerificationSession(SignatureVerificationService verificationService, ObjectMapper objectMapper,
+                                        FrameSink sink, StreamBufferBudget bufferBudget, String tenantId, int window,
+                                        long maxDocumentSize) {
+        this.verificationService = verificationService;
+        this.objectMapper = objectMapper;
+        this.sink = sink;
+        this.bufferBudget = bufferBudget;
+        this.tenantId = tenantId;
+        this.window = window;
+        this.maxDocumentSize = maxDocumentSize;
+    }
+
+    public void start() {
+        send(StreamFrames.credit(window));
+    }
+
+    public void onFrame(ByteBuffer frame) {
+        if (closed || closing) return;
+        if (frame.remaining() < StreamFrames.HEADER_SIZE) {
+            protocolError(0, "Frame shorter than header");
+            return;
+        }
+        StreamFrameType type = StreamFrameType.fromCode(frame.get());
+        int streamId = frame.getInt();
+        if (type == null) {
+            protocolError(streamId, "Unknown frame type");
+            return;
+        }
+
+        switch (type) {
+            case OPEN:
+                open(streamId, frame);
+                break;
+            case CHUNK:
+                chunk(streamId, frame);
+                break;
+            case END:
+                end(streamId);
+                break;
+            case CANCEL:
+                cancel(streamId);
+                break;
+            default:
+                protocolError(streamId, "Unexpected client frame " + type);
+        }
+    }
+
+    public void close() {
+        closed = true;
+        releaseOpenDocuments();
+        synchronized (sendLock) {
+            outbound.clear();
+        }
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getOpenDocuments() {
+        synchronized (documents) {
+            return documents.size();
+        }
+    }
+
+    private void open(int streamId, ByteBuffer frame) {
+        boolean duplicate;
+        synchronized (documents) {
+            duplicate = documents.containsKey(streamId);
+        }
+        if (duplicate) {
+            protocolError(streamId, "Stream " + streamId + " is already open");
+            return;
+        }
+        if (inFlight.get() >= window) {
+            protocolError(streamId, "Flow control window of " + window + " documents exceeded");
+            return;
+        }
+
+        String fileName;
+        VerificationMode mode;
+        long length;
+        try {
+            fileName = StreamFrames.readString(frame);
+            mode = VerificationMode.valueOf(StreamFrames.readString(frame));
+            length = frame.remaining() >= 8 ? frame.getLong() : StreamingDocument.UNKNOWN_LENGTH;
+            if (length < StreamingDocument.UNKNOWN_LENGTH) {
+                throw new IllegalArgumentException("negative length " + length);
+            }
+        } catch (RuntimeException e) {
+            protocolError(streamId, "Malformed OPEN frame: " + e.getMessage());
+            return;
+        }
+
+        inFlight.incrementAndGet();
+        StreamingDocument document;
+        try {
+            document = new StreamingDocument(fileName, mode, maxDocumentSize, length, bufferBudget);
+        } catch (Exception e) {
+            complete(streamId, null, null, e);
+            return;
+        }
+        synchronized (documents) {
+            if (!closed) {
+                documents.put(streamId, document);
+                return;
+            }
+        }
+        // phiên vừa bị đóng trên luồng khác, không còn ai giải phóng tài liệu này
+        document.release();
+    }
+
+    private void chunk(int streamId, ByteBuffer frame) {
+        StreamingDocument document;
+        SignatureVerificationException failure = null;
+        synchronized (documents) {
+            if (closed) return;
+            document = documents.get(streamId);
+            if (document != null) {
+                try {
+                    document.append(frame);
+                } catch (SignatureVerificationException e) {
+                    documents.remove(streamId);
+                    failure = e;
+                }
+            }
+        }
+        if (document == null) {
+            protocolError(streamId, "Chunk for unknown stream " + streamId);
+        } else if (failure != null) {
+            complete(streamId, document, null, failure);
+        }
+    }
+
+    private void end(int streamId) {
+        StreamingDocument document = remove(streamId);
+        if (document == null) {
+            protocolError(streamId, "End of unknown stream " + streamId);
+            return;
+        }
+        try {
+            verificationService.submit(document.getContent(), document.getFileName(), document.getMode(),
+                            VerificationLane.BULK, tenantId, document.getFileHash())
+                    .whenComplete((result, error) -> complete(streamId, document, result, error));
+        } catch (Exception e) {
+            complete(streamId, document, null, e);
+        }
+    }
+
+    private void cancel(int streamId) {
+        StreamingDocument document = remove(streamId);
+        if (document != null) {
+            document.release();
+            release();
+        }
+    }
+
+    private void complete(int streamId, StreamingDocument document, SignatureVerificationResult result,
+                          Throwable error) {
+        if (document != null) {
+            document.release();
+        }
+        try {
+            if (error == null) {
+                send(StreamFrames.result(streamId, objectMapper.writeValueAsBytes(result)));
+            } else {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                String errorCode = cause instanceof SignatureVerificationException
+                        && ((SignatureVerificationException) cause).getErrorCode() != null
+                        ? ((SignatureVerificationException) cause).getErrorCode() : "VERIFICATION_ERROR";
+                send(StreamFrames.error(streamId, errorCode, cause.getMessage()));
+            }
+        } catch (Exception e) {
+            logger.error("Error sending result for stream {}: {}", streamId, e.getMessage());
+            send(StreamFrames.error(streamId, "VERIFICATION_ERROR", e.getMessage()));
+        } finally {
+            release();
+        }
+    }
+
+    private void release() {
+        inFlight.decrementAndGet();
+        send(StreamFrames.credit(1));
+    }
+
+    private StreamingDocument remove(int streamId) {
+        synchronized (documents) {
+            return documents.remove(streamId);
+        }
+    }
+
+    private void releaseOpenDocuments() {
+        synchronized (documents) {
+            for (StreamingDocument document : documents.values()) {
+                document.release();
+            }
+            documents.clear();
+        }
+    }
+
+    // frame lỗi được gửi sau các frame đang chờ, kết nối đóng khi hàng đợi đã trống
+    private void protocolError(int streamId, String message) {
+        logger.warn("Closing verification stream: {}", message);
+        closing = true;
+        boolean idle;
+        synchronized (sendLock) {
+            if (closed || closeReason != null) return;
+            outbound.add(StreamFrames.error(streamId, "PROTOCOL_ERROR", message));
+            closeReason = message;
+            idle = !sending;
+            sending = true;
+        }
+        releaseOpenDocuments();
+        if (idle) {
+            sendNext();
+        }
+    }
+
+    private void send(ByteBuffer frame) {
+        synchronized (sendLock) {
+            if (closed || closeReason != null) return;
+            outbound.add(frame);
+            if (sending) return;
+            sending = true;
+        }
+        sendNext();
+    }
+
+    // chỉ luồng đang giữ cờ sending gọi: gửi frame kế tiếp hoặc trả cờ khi hàng đợi trống
+    private void sendNext() {
+        ByteBuffer frame;
+        String reason = null;
+        synchronized (sendLock) {
+            frame = closed ? null : outbound.poll();
+            if (frame == null) {
+                sending = false;
+                reason = closed ? null : closeReason;
+            }
+        }
+        if (frame != null) {
+            sink.send(frame, this::onSent);
+        } else if (reason != null) {
+            closeSink(reason);
+        }
+    }
+
+    private void onSent(Throwable error) {
+        if (error == null) {
+            sendNext();
+            return;
+        }
+        // client đã ngắt kết nối hoặc không đọc kịp trong thời hạn gửi, các kết quả còn lại bị bỏ
+        logger.debug("Verification stream closed while sending: {}", error.getMessage());
+        close();
+        synchronized (sendLock) {
+            sending = false;
+        }
+        closeSink("Result frame could not be delivered");
+    }
+
+    private void closeSink(String reason) {
+        closed = true;
+        try {
+            sink.close(reason);
+        } catch (IOException e) {
+            logger.debug("Error closing verification stream: {}", e.getMessage());
+        }
+    }
+}
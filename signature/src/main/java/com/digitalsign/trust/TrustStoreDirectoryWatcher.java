@@ -0,0 +1,204 @@
+package com.digitalsign.trust;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.cert.CRL;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509CRL;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Nạp trust store từ thư mục cục bộ, mỗi thư mục con là một tenant chứa các file .pem/.crt/.cer (CA) và .crl,
+ * và theo dõi thay đổi bằng WatchService trên một luồng nền. Thay đổi được gom lại trong reload-delay
+ * rồi mới nạp lại, snapshot mới chỉ thay thế snapshot cũ khi đọc thành công toàn bộ thư mục.
+ */
+@Component
+public class TrustStoreDirectoryWatcher {
+    private static final Logger logger = LoggerFactory.getLogger(TrustStoreDirectoryWatcher.class);
+    private static final Set<String> CERTIFICATE_EXTENSIONS = Set.of(".pem", ".crt", ".cer", ".der");
+    private static final String CRL_EXTENSION = ".crl";
+
+    @Autowired
+    private TrustStoreRegistry registry;
+
+    @Value("${signature.trust.directory:}")
+    private String directory;
+
+    @Value("${signature.trust.reload-delay:PT1S}")
+    private Duration reloadDelay;
+
+    private Path root;
+    private WatchService watchService;
+    private final Map<WatchKey, Path> watchedDirectories = new HashMap<>();
+    private Thread watcherThread;
+
+    @PostConstruct
+    void start() throws IOException {
+        if (directory == null || directory.isBlank()) {
+            logger.info("Trust store directory not configured, trust anchors are not checked");
+            return;
+        }
+
+        root = Path.of(directory).toAbsolutePath();
+        Files.createDirectories(root);
+        watchService = FileSystems.getDefault().newWatchService();
+        watchedDirectories.put(root.register(watchService, ENTRY_CREATE, ENTRY_DELETE), root);
+
+        try (DirectoryStream<Path> tenants = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path tenantDirectory : tenants) {
+                watchTenant(tenantDirectory);
+                reload(tenantDirectory);
+            }
+        }
+
+        watcherThread = new Thread(this::watchLoop, "trust-store-watcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+    }
+
+    @PreDestroy
+    void stop() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    private void watchLoop() {
+        Set<Path> pending = new HashSet<>();
+        while (true) {
+            try {
+                WatchKey key = pending.isEmpty()
+                        ? watchService.take()
+                        : watchService.poll(reloadDelay.toMillis(), TimeUnit.MILLISECONDS);
+                if (key == null) {
+                    // không còn thay đổi trong reload-delay: nạp lại các tenant bị ảnh hưởng
+                    pending.forEach(this::reload);
+                    pending.clear();
+                    continue;
+                }
+
+                Path watched = watchedDirectories.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == OVERFLOW || watched == null) {
+                        continue;
+                    }
+                    Path changed = watched.resolve((Path) event.context());
+                    if (watched.equals(root)) {
+                        if (event.kind() == ENTRY_CREATE && Files.isDirectory(changed)) {
+                            watchTenant(changed);
+                        }
+                        pending.add(changed);
+                    } else {
+                        pending.add(watched);
+                    }
+                }
+                if (!key.reset()) {
+                    watchedDirectories.remove(key);
+                }
+            } catch (ClosedWatchServiceException e) {
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.warn("Trust store watcher error: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void watchTenant(Path tenantDirectory) throws IOException {
+        watchedDirectories.put(tenantDirectory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE),
+                tenantDirectory);
+    }
+
+    private void reload(Path tenantDirectory) {
+        String tenantId = tenantDirectory.getFileName().toString();
+        if (!Files.isDirectory(tenantDirectory)) {
+            registry.remove(tenantId);
+            return;
+        }
+
+        try {
+            registry.update(tenantId, loadCertificates(tenantDirectory), loadCrls(tenantDirectory));
+        } catch (Exception e) {
+            // giữ snapshot cũ, không thay bằng một tập CA không đầy đủ
+            logger.error("Could not reload trust store for tenant {}: {}", tenantId, e.getMessage());
+        }
+    }
+
+    private List<X509Certificate> loadCertificates(Path tenantDirectory) throws Exception {
+        CertificateFactory factory = CertificateFactory.getInstance("X.509");
+        List<X509Certificate> certificates = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(tenantDirectory, this::isCertificateFile)) {
+            for (Path file : files) {
+                try (InputStream in = Files.newInputStream(file)) {
+                    for (Certificate certificate : factory.generateCertificates(in)) {
+                        certificates.add((X509Certificate) certificate);
+                    }
+                } catch (Exception e) {
+                    throw new IOException(file.getFileName() + ": " + e.getMessage(), e);
+                }
+            }
+        }
+        return certificates;
+    }
+
+    private List<X509CRL> loadCrls(Path tenantDirectory) throws Exception {
+        CertificateFactory factory = CertificateFactory.getInstance("X.509");
+        List<X509CRL> crls = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(tenantDirectory,
+                file -> CRL_EXTENSION.equals(extension(file)) && Files.isRegularFile(file))) {
+            for (Path file : files) {
+                try (InputStream in = Files.newInputStream(file)) {
+                    for (CRL crl : factory.generateCRLs(in)) {
+                        crls.add((X509CRL) crl);
+                    }
+                } catch (Exception e) {
+                    throw new IOException(file.getFileName() + ": " + e.getMessage(), e);
+                }
+            }
+        }
+        return crls;
+    }
+
+    private boolean isCertificateFile(Path file) {
+        return CERTIFICATE_EXTENSIONS.contains(extension(file)) && Files.isRegularFile(file);
+    }
+
+    private String extension(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(dot) : "";
+    }
+}
@@ -0,0 +1,105 @@
+package com.digitalsign.trust;
+
+import com.digitalsign.cache.VerificationCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.cert.CRLException;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509CRL;
+import java.security.cert.X509Certificate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Trust store theo tenant. Map snapshot là bất biến và được thay thế copy-on-write:
+ * luồng xác minh chỉ đọc một biến volatile, việc cập nhật (hiếm) được tuần tự hoá giữa các writer.
+ */
+@Component
+public class TrustStoreRegistry {
+    public static final String DEFAULT_TENANT = "default";
+
+    private static final Logger logger = LoggerFactory.getLogger(TrustStoreRegistry.class);
+
+    @Autowired
+    private VerificationCache verificationCache;
+
+    private static final TrustStoreSnapshot UNCONFIGURED = TrustStoreSnapshot.unconfigured(DEFAULT_TENANT);
+    private static final TrustStoreSnapshot NO_ANCHORS = TrustStoreSnapshot.empty(DEFAULT_TENANT);
+
+    @Value("${signature.trust.directory:}")
+    private String directory;
+
+    private volatile Map<String, TrustStoreSnapshot> snapshots = Map.of();
+
+    /**
+     * Header X-Tenant-Id do client tự đặt nên tenant không có trust store (kể cả tên bịa) luôn dùng trust store
+     * của tenant mặc định, không bao giờ bỏ qua kiểm tra CA. Khi đã cấu hình thư mục trust mà tenant mặc định
+     * không có CA nào, mọi chứng thư đều không được tin cậy. Snapshot trả về luôn thuộc một tenant đã cấu hình
+     * (hoặc tenant mặc định) nên số partition của cache bị giới hạn bởi số thư mục tenant.
+     */
+    public TrustStoreSnapshot getSnapshot(String tenantId) {
+        Map<String, TrustStoreSnapshot> current = snapshots;
+        if (tenantId != null && !tenantId.isBlank()) {
+            TrustStoreSnapshot snapshot = current.get(tenantId);
+            if (snapshot != null) {
+                return snapshot;
+            }
+            logger.debug("No trust store for tenant {}, using the default tenant", tenantId);
+        }
+        TrustStoreSnapshot fallback = current.get(DEFAULT_TENANT);
+        if (fallback != null) {
+            return fallback;
+        }
+        return isEnforced() ? NO_ANCHORS : UNCONFIGURED;
+    }
+
+    public boolean isEnforced() {
+        return directory != null && !directory.isBlank();
+    }
+
+    public TrustStoreSnapshot update(String tenantId, Collection<X509Certificate> anchors)
+            throws CertificateEncodingException, CRLException {
+        return update(tenantId, anchors, List.of());
+    }
+
+    public TrustStoreSnapshot update(String tenantId, Collection<X509Certificate> anchors, Collection<X509CRL> crls)
+            throws CertificateEncodingException, CRLException {
+        TrustStoreSnapshot snapshot = TrustStoreSnapshot.of(tenantId, anchors, crls);
+        TrustStoreSnapshot previous;
+        synchronized (this) {
+            Map<String, TrustStoreSnapshot> next = new HashMap<>(snapshots);
+            previous = next.put(tenantId, snapshot);
+            snapshots = Map.copyOf(next);
+        }
+
+        if (previous == null || !previous.getFingerprint().equals(snapshot.getFingerprint())) {
+            logger.info("Trust store for tenant {} updated: {} anchors, {} CRLs ({})", tenantId, snapshot.size(),
+                    snapshot.getCrls().size(), snapshot.getFingerprint());
+            verificationCache.clearTenant(tenantId);
+        }
+        return snapshot;
+    }
+
+    public void remove(String tenantId) {
+        synchronized (this) {
+            if (!snapshots.containsKey(tenantId)) {
+                return;
+            }
+            Map<String, TrustStoreSnapshot> next = new HashMap<>(snapshots);
+            next.remove(tenantId);
+            snapshots = Map.copyOf(next);
+        }
+        logger.info("Trust store for tenant {} removed", tenantId);
+        verificationCache.clearTenant(tenantId);
+    }
+
+    public Map<String, TrustStoreSnapshot> getSnapshots() {
+        return snapshots;
+    }
+}
@@ -0,0 +1,125 @@
+package com.digitalsign.trust;
+
+import java.security.InvalidAlgorithmParameterException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CRLException;
+import java.security.cert.CertStore;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.CollectionCertStoreParameters;
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509CRL;
+import java.security.cert.X509Certificate;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tập CA tin cậy (và CRL nếu có) của một tenant tại một thời điểm, dựng sẵn thành TrustAnchor cho PKIX.
+ * Không thay đổi sau khi tạo: khi cập nhật, registry tạo snapshot mới và thay thế nguyên khối nên luồng đọc
+ * không cần khoá. Fingerprint là SHA-256 trên các chứng thư và CRL đã sắp xếp, giống nhau giữa các replica
+ * có cùng thư mục trust, và đổi khi danh sách thu hồi đổi.
+ */
+public final class TrustStoreSnapshot {
+    private static final String UNCONFIGURED = "unconfigured";
+
+    private final String tenantId;
+    private final String fingerprint;
+    private final Instant loadedAt;
+    private final Set<TrustAnchor> trustAnchors;
+    private final List<X509CRL> crls;
+    private final CertStore crlStore;
+
+    private TrustStoreSnapshot(String tenantId, String fingerprint, Set<TrustAnchor> trustAnchors,
+                               List<X509CRL> crls) {
+        this.tenantId = tenantId;
+        this.fingerprint = fingerprint;
+        this.loadedAt = Instant.now();
+        this.trustAnchors = trustAnchors;
+        this.crls = crls;
+        try {
+            this.crlStore = CertStore.getInstance("Collection", new CollectionCertStoreParameters(crls));
+        } catch (InvalidAlgorithmParameterException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static TrustStoreSnapshot of(String tenantId, Collection<X509Certificate> anchors)
+            throws CertificateEncodingException, CRLException {
+        return of(tenantId, anchors, List.of());
+    }
+
+    public static TrustStoreSnapshot of(String tenantId, Collection<X509Certificate> anchors,
+                                        Collection<X509CRL> crls) throws CertificateEncodingException, CRLException {
+        Set<X509Certificate> uniqueAnchors = new LinkedHashSet<>(anchors);
+        Set<TrustAnchor> trustAnchors = new LinkedHashSet<>();
+        List<byte[]> encoded = new ArrayList<>(uniqueAnchors.size() + crls.size());
+        for (X509Certificate anchor : uniqueAnchors) {
+            trustAnchors.add(new TrustAnchor(anchor, null));
+            encoded.add(anchor.getEncoded());
+        }
+        for (X509CRL crl : crls) {
+            encoded.add(crl.getEncoded());
+        }
+        return new TrustStoreSnapshot(tenantId, fingerprint(encoded), Set.copyOf(trustAnchors), List.copyOf(crls));
+    }
+
+    // không có thư mục trust nào được cấu hình: không kiểm tra chuỗi tin cậy (giữ hành vi cũ)
+    public static TrustStoreSnapshot unconfigured(String tenantId) {
+        return new TrustStoreSnapshot(tenantId, UNCONFIGURED, Set.of(), List.of());
+    }
+
+    // đã cấu hình nhưng không có CA nào: mọi chứng thư đều không được tin cậy
+    public static TrustStoreSnapshot empty(String tenantId) {
+        return new TrustStoreSnapshot(tenantId, fingerprint(new ArrayList<>()), Set.of(), List.of());
+    }
+
+    public Set<TrustAnchor> getTrustAnchors() {
+        return trustAnchors;
+    }
+
+    public List<X509CRL> getCrls() {
+        return crls;
+    }
+
+    public CertStore getCrlStore() {
+        return crlStore;
+    }
+
+    public boolean isConfigured() {
+        return !UNCONFIGURED.equals(fingerprint);
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+
+    public int size() {
+        return trustAnchors.size();
+    }
+
+    private static String fingerprint(List<byte[]> encoded) {
+        encoded.sort(java.util.Arrays::compare);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (byte[] certificate : encoded) {
+                digest.update(certificate);
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.digitalsign.util;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public final class AlgorithmDescriptor {
+    public enum Kind {
+        DIGEST,
+        SIGNATURE,
+        KEY
+    }
+
+    private final String oid;
+    private final Kind kind;
+    // tên JCA: "SHA-256", "SHA256withRSA", "RSA"...
+    private final String jcaName;
+    // thuật toán băm đi kèm, null nếu phụ thuộc vào digestAlgorithm của signer (rsaEncryption, id-ecPublicKey)
+    private final String digestAlgorithm;
+    private final String keyType;
+    // độ an toàn (bit) theo NIST SP 800-57; 0 = không còn an toàn hoặc phụ thuộc độ dài khoá
+    private final int securityStrength;
+
+    public boolean isDigest() {
+        return kind == Kind.DIGEST;
+    }
+
+    public boolean isSignature() {
+        return kind == Kind.SIGNATURE;
+    }
+
+    public boolean isKey() {
+        return kind == Kind.KEY;
+    }
+}
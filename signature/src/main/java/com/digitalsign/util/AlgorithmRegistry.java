@@ -0,0 +1,202 @@
+package com.digitalsign.util;
+
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.edec.EdECObjectIdentifiers;
+import org.bouncycastle.asn1.nist.NISTObjectIdentifiers;
+import org.bouncycastle.asn1.oiw.OIWObjectIdentifiers;
+import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
+import org.bouncycastle.asn1.x9.X9ObjectIdentifiers;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static com.digitalsign.util.AlgorithmDescriptor.Kind.DIGEST;
+import static com.digitalsign.util.AlgorithmDescriptor.Kind.KEY;
+import static com.digitalsign.util.AlgorithmDescriptor.Kind.SIGNATURE;
+
+/**
+ * Bảng tra cứu thuật toán theo OID, được nạp sẵn một lần và không thay đổi sau đó.
+ * Các phép tra cứu là một lần get trên map bất biến, không cấp phát đối tượng mới.
+ */
+@Component
+public class AlgorithmRegistry {
+    private final Map<String, AlgorithmDescriptor> byOid;
+    private final Map<String, AlgorithmDescriptor> byName;
+    // keyOid -> digestOid -> chữ ký, dùng khi CMS chỉ ghi loại khoá (rsaEncryption, id-ecPublicKey...)
+    private final Map<String, Map<String, AlgorithmDescriptor>> byKeyAndDigest;
+
+    public AlgorithmRegistry() {
+        Map<String, AlgorithmDescriptor> oids = new HashMap<>();
+        Map<String, AlgorithmDescriptor> names = new HashMap<>();
+        Map<String, Map<String, AlgorithmDescriptor>> composite = new HashMap<>();
+
+        // digest
+        register(oids, names, digest(PKCSObjectIdentifiers.md5, "MD5", 0), "MD5");
+        register(oids, names, digest(OIWObjectIdentifiers.idSHA1, "SHA-1", 0), "SHA1");
+        register(oids, names, digest(NISTObjectIdentifiers.id_sha224, "SHA-224", 112), "SHA224");
+        register(oids, names, digest(NISTObjectIdentifiers.id_sha256, "SHA-256", 128), "SHA256");
+        register(oids, names, digest(NISTObjectIdentifiers.id_sha384, "SHA-384", 192), "SHA384");
+        register(oids, names, digest(NISTObjectIdentifiers.id_sha512, "SHA-512", 256), "SHA512");
+        register(oids, names, digest(NISTObjectIdentifiers.id_sha3_224, "SHA3-224", 112));
+        register(oids, names, digest(NISTObjectIdentifiers.id_sha3_256, "SHA3-256", 128));
+        register(oids, names, digest(NISTObjectIdentifiers.id_sha3_384, "SHA3-384", 192));
+        register(oids, names, digest(NISTObjectIdentifiers.id_sha3_512, "SHA3-512", 256));
+        register(oids, names, digest(NISTObjectIdentifiers.id_shake256, "SHAKE256", 256));
+        register(oids, names, digest(NISTObjectIdentifiers.id_shake256_len, "SHAKE256", 256));
+
+        // loại khoá: thuật toán băm lấy từ digestAlgorithm của signer
+        register(oids, names, key(PKCSObjectIdentifiers.rsaEncryption, "RSA"));
+        register(oids, names, key(X9ObjectIdentifiers.id_ecPublicKey, "EC"), "ECDSA");
+        register(oids, names, key(X9ObjectIdentifiers.id_dsa, "DSA"));
+
+        // RSA PKCS#1 v1.5
+        register(oids, names, signature(PKCSObjectIdentifiers.md5WithRSAEncryption, "MD5withRSA", "MD5", "RSA", 0));
+        register(oids, names, signature(PKCSObjectIdentifiers.sha1WithRSAEncryption, "SHA1withRSA", "SHA-1", "RSA", 0),
+                "SHA1_WITH_RSA");
+        register(oids, names, signature(OIWObjectIdentifiers.sha1WithRSA, "SHA1withRSA", "SHA-1", "RSA", 0));
+        register(oids, names, signature(PKCSObjectIdentifiers.sha224WithRSAEncryption, "SHA224withRSA", "SHA-224", "RSA", 112));
+        register(oids, names, signature(PKCSObjectIdentifiers.sha256WithRSAEncryption, "SHA256withRSA", "SHA-256", "RSA", 128),
+                "SHA256_WITH_RSA");
+        register(oids, names, signature(PKCSObjectIdentifiers.sha384WithRSAEncryption, "SHA384withRSA", "SHA-384", "RSA", 192));
+        register(oids, names, signature(PKCSObjectIdentifiers.sha512WithRSAEncryption, "SHA512withRSA", "SHA-512", "RSA", 256),
+                "SHA512_WITH_RSA");
+        register(oids, names, signature(NISTObjectIdentifiers.id_rsassa_pkcs1_v1_5_with_sha3_224, "SHA3-224withRSA", "SHA3-224", "RSA", 112));
+        register(oids, names, signature(NISTObjectIdentifiers.id_rsassa_pkcs1_v1_5_with_sha3_256, "SHA3-256withRSA", "SHA3-256", "RSA", 128));
+        register(oids, names, signature(NISTObjectIdentifiers.id_rsassa_pkcs1_v1_5_with_sha3_384, "SHA3-384withRSA", "SHA3-384", "RSA", 192));
+        register(oids, names, signature(NISTObjectIdentifiers.id_rsassa_pkcs1_v1_5_with_sha3_512, "SHA3-512withRSA", "SHA3-512", "RSA", 256));
+
+        // RSA-PSS: thuật toán băm nằm trong tham số, tra cứu qua byKeyAndDigest
+        register(oids, names, new AlgorithmDescriptor(PKCSObjectIdentifiers.id_RSASSA_PSS.getId(), SIGNATURE,
+                "RSASSA-PSS", null, "RSA", 0));
+
+        // ECDSA
+        register(oids, names, signature(X9ObjectIdentifiers.ecdsa_with_SHA1, "SHA1withECDSA", "SHA-1", "EC", 0));
+        register(oids, names, signature(X9ObjectIdentifiers.ecdsa_with_SHA224, "SHA224withECDSA", "SHA-224", "EC", 112));
+        register(oids, names, signature(X9ObjectIdentifiers.ecdsa_with_SHA256, "SHA256withECDSA", "SHA-256", "EC", 128));
+        register(oids, names, signature(X9ObjectIdentifiers.ecdsa_with_SHA384, "SHA384withECDSA", "SHA-384", "EC", 192));
+        register(oids, names, signature(X9ObjectIdentifiers.ecdsa_with_SHA512, "SHA512withECDSA", "SHA-512", "EC", 256));
+        register(oids, names, signature(NISTObjectIdentifiers.id_ecdsa_with_sha3_224, "SHA3-224withECDSA", "SHA3-224", "EC", 112));
+        register(oids, names, signature(NISTObjectIdentifiers.id_ecdsa_with_sha3_256, "SHA3-256withECDSA", "SHA3-256", "EC", 128));
+        register(oids, names, signature(NISTObjectIdentifiers.id_ecdsa_with_sha3_384, "SHA3-384withECDSA", "SHA3-384", "EC", 192));
+        register(oids, names, signature(NISTObjectIdentifiers.id_ecdsa_with_sha3_512, "SHA3-512withECDSA", "SHA3-512", "EC", 256));
+
+        // DSA
+        register(oids, names, signature(X9ObjectIdentifiers.id_dsa_with_sha1, "SHA1withDSA", "SHA-1", "DSA", 0));
+        register(oids, names, signature(NISTObjectIdentifiers.dsa_with_sha224, "SHA224withDSA", "SHA-224", "DSA", 112));
+        register(oids, names, signature(NISTObjectIdentifiers.dsa_with_sha256, "SHA256withDSA", "SHA-256", "DSA", 128));
+
+        // EdDSA (RFC 8419): Ed25519 đi kèm SHA-512, Ed448 đi kèm SHAKE256
+        register(oids, names, signature(EdECObjectIdentifiers.id_Ed25519, "Ed25519", "SHA-512", "Ed25519", 128));
+        register(oids, names, signature(EdECObjectIdentifiers.id_Ed448, "Ed448", "SHAKE256", "Ed448", 224));
+
+        // CMS thường ghi rsaEncryption/id-ecPublicKey + digestAlgorithm riêng
+        composite(composite, oids, PKCSObjectIdentifiers.rsaEncryption, "withRSA", "RSA");
+        composite(composite, oids, X9ObjectIdentifiers.id_ecPublicKey, "withECDSA", "EC");
+        composite(composite, oids, X9ObjectIdentifiers.id_dsa, "withDSA", "DSA");
+        composite(composite, oids, PKCSObjectIdentifiers.id_RSASSA_PSS, "withRSAandMGF1", "RSA");
+        for (AlgorithmDescriptor descriptor : oids.values()) {
+            // chữ ký có băm cố định: cặp (oid chữ ký, oid băm) trả về chính nó
+            if (descriptor.isSignature() && descriptor.getDigestAlgorithm() != null) {
+                AlgorithmDescriptor digest = names.get(descriptor.getDigestAlgorithm());
+                composite.computeIfAbsent(descriptor.getOid(), k -> new HashMap<>())
+                        .put(digest.getOid(), descriptor);
+            }
+        }
+
+        this.byOid = Map.copyOf(oids);
+        this.byName = Map.copyOf(names);
+        Map<String, Map<String, AlgorithmDescriptor>> frozen = new HashMap<>();
+        composite.forEach((k, v) -> frozen.put(k, Map.copyOf(v)));
+        this.byKeyAndDigest = Map.copyOf(frozen);
+    }
+
+    public AlgorithmDescriptor lookup(String oidOrName) {
+        if (oidOrName == null) return null;
+
+        AlgorithmDescriptor descriptor = byOid.get(oidOrName);
+        if (descriptor == null) {
+            descriptor = byName.get(oidOrName);
+        }
+        if (descriptor == null) {
+            // chỉ cấp phát chuỗi mới khi không khớp chính xác
+            descriptor = byName.get(oidOrName.trim().toUpperCase(Locale.ROOT));
+        }
+        return descriptor;
+    }
+
+    /**
+     * Xác định thuật toán chữ ký thực tế của một SignerInfo từ digestAlgorithm và
+     * signatureAlgorithm (encryptionAlgorithm) của nó.
+     */
+    public AlgorithmDescriptor resolveSignature(String digestOid, String signatureOid) {
+        if (signatureOid == null) return null;
+
+        Map<String, AlgorithmDescriptor> byDigest = byKeyAndDigest.get(signatureOid);
+        if (byDigest != null && digestOid != null) {
+            AlgorithmDescriptor descriptor = byDigest.get(digestOid);
+            if (descriptor != null) return descriptor;
+        }
+
+        AlgorithmDescriptor descriptor = lookup(signatureOid);
+        return descriptor != null && !descriptor.isDigest() ? descriptor : null;
+    }
+
+    public String digestName(String digestOid) {
+        AlgorithmDescriptor descriptor = lookup(digestOid);
+        return descriptor != null ? descriptor.getDigestAlgorithm() : null;
+    }
+
+    public int size() {
+        return byOid.size();
+    }
+
+    private static AlgorithmDescriptor digest(ASN1ObjectIdentifier oid, String name, int strength) {
+        return new AlgorithmDescriptor(oid.getId(), DIGEST, name, name, null, strength);
+    }
+
+    private static AlgorithmDescriptor key(ASN1ObjectIdentifier oid, String keyType) {
+        return new AlgorithmDescriptor(oid.getId(), KEY, keyType, null, keyType, 0);
+    }
+
+    private static AlgorithmDescriptor signature(ASN1ObjectIdentifier oid, String name, String digest,
+                                                 String keyType, int strength) {
+        return new AlgorithmDescriptor(oid.getId(), SIGNATURE, name, digest, keyType, strength);
+    }
+
+    private static void register(Map<String, AlgorithmDescriptor> oids, Map<String, AlgorithmDescriptor> names,
+                                 AlgorithmDescriptor descriptor, String... aliases) {
+        oids.put(descriptor.getOid(), descriptor);
+        names.putIfAbsent(descriptor.getJcaName(), descriptor);
+        names.putIfAbsent(descriptor.getJcaName().toUpperCase(Locale.ROOT), descriptor);
+        for (String alias : aliases) {
+            names.putIfAbsent(alias, descriptor);
+        }
+    }
+
+    private static void composite(Map<String, Map<String, AlgorithmDescriptor>> composite,
+                                  Map<String, AlgorithmDescriptor> oids, ASN1ObjectIdentifier keyOid,
+                                  String suffix, String keyType) {
+        Map<String, AlgorithmDescriptor> byDigest = composite.computeIfAbsent(keyOid.getId(), k -> new HashMap<>());
+        for (AlgorithmDescriptor digest : oids.values()) {
+            if (!digest.isDigest() || digest.getJcaName().startsWith("SHAKE")) continue;
+
+            // "SHA-256" -> "SHA256withRSA", "SHA3-256" -> "SHA3-256withRSA"
+            String prefix = digest.getJcaName().startsWith("SHA3") ? digest.getJcaName()
+                    : digest.getJcaName().replace("-", "");
+            String jcaName = prefix + suffix;
+            AlgorithmDescriptor fixed = findByJcaName(oids, jcaName);
+            byDigest.put(digest.getOid(), fixed != null ? fixed
+                    : new AlgorithmDescriptor(keyOid.getId(), SIGNATURE, jcaName, digest.getJcaName(), keyType,
+                    digest.getSecurityStrength()));
+        }
+    }
+
+    private static AlgorithmDescriptor findByJcaName(Map<String, AlgorithmDescriptor> oids, String jcaName) {
+        for (AlgorithmDescriptor descriptor : oids.values()) {
+            if (descriptor.isSignature() && descriptor.getJcaName().equals(jcaName)) return descriptor;
+        }
+        return null;
+    }
+}
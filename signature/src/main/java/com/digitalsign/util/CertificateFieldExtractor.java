@@ -0,0 +1,186 @@
+package com.digitalsign.util;
+
+import com.digitalsign.model.CertificateInfo;
+import org.bouncycastle.asn1.ASN1Encodable;
+import org.bouncycastle.asn1.ASN1GeneralizedTime;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.ASN1Primitive;
+import org.bouncycastle.asn1.ASN1String;
+import org.bouncycastle.asn1.ASN1UTCTime;
+import org.bouncycastle.asn1.x500.AttributeTypeAndValue;
+import org.bouncycastle.asn1.x500.RDN;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x500.style.BCStyle;
+import org.bouncycastle.asn1.x500.style.IETFUtils;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.asn1.x509.GeneralNames;
+import org.bouncycastle.asn1.x509.KeyUsage;
+import org.bouncycastle.asn1.x509.Time;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.springframework.stereotype.Component;
+
+import javax.security.auth.x500.X500Principal;
+import java.math.BigInteger;
+import java.security.cert.X509Certificate;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * Đọc các trường chứng thư trực tiếp từ cấu trúc TBS đã giải mã của X509CertificateHolder: không dựng chuỗi DN
+ * RFC 2253 rồi parse lại, không mã hoá lại chứng thư. Chuỗi key usage cho mọi tổ hợp bit được dựng sẵn một lần.
+ */
+@Component
+public class CertificateFieldExtractor {
+    private static final String NOT_SPECIFIED = "Not specified";
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    private static final int DER_TIME_DIGITS = 14;
+    private static final String UTC_SUFFIX = "GMT+00:00";
+
+    private static final String[] KEY_USAGE_NAMES = {
+            "Digital Signature", "Non Repudiation", "Key Encipherment", "Data Encipherment",
+            "Key Agreement", "Key Cert Sign", "CRL Sign", "Encipher Only", "Decipher Only"
+    };
+    private static final int[] KEY_USAGE_BITS = {
+            KeyUsage.digitalSignature, KeyUsage.nonRepudiation, KeyUsage.keyEncipherment, KeyUsage.dataEncipherment,
+            KeyUsage.keyAgreement, KeyUsage.keyCertSign, KeyUsage.cRLSign, KeyUsage.encipherOnly, KeyUsage.decipherOnly
+    };
+    // chỉ số là mặt nạ 9 bit theo thứ tự KEY_USAGE_NAMES
+    private static final String[] KEY_USAGE_TEXT = buildKeyUsageText();
+
+    public CertificateInfo extractCertificateInfo(X509CertificateHolder holder, X509Certificate certificate,
+                                                  String thumbprint) {
+        CertificateInfo info = new CertificateInfo();
+        info.setSubjectName(commonName(holder.getSubject(), certificate.getSubjectX500Principal()));
+        info.setIssuerName(commonName(holder.getIssuer(), certificate.getIssuerX500Principal()));
+        info.setSerialNumber(serialNumber(holder));
+        // tên thuật toán được provider tính sẵn khi tạo X509Certificate
+        info.setAlgoristhm(certificate.getSigAlgName());
+        info.setValidFrom(toLocalDateTime(holder.toASN1Structure().getStartDate()));
+        info.setValidTo(toLocalDateTime(holder.toASN1Structure().getEndDate()));
+        info.setThumbprint(thumbprint);
+        info.setKeyUsage(keyUsage(holder));
+        return info;
+    }
+
+    // không có CN thì trả về cả DN dạng RFC 2253 của X500Principal.getName(), như cách hiển thị trước đây
+    public String commonName(X500Name name, X500Principal principal) {
+        String commonName = attribute(name, BCStyle.CN);
+        return commonName != null ? commonName : principal.getName();
+    }
+
+    public String organization(X500Name name) {
+        return attribute(name, BCStyle.O);
+    }
+
+    // ưu tiên rfc822Name trong SubjectAltName, sau đó tới thuộc tính E= của subject
+    public String email(X509CertificateHolder holder) {
+        Extension subjectAltName = holder.getExtension(Extension.subjectAlternativeName);
+        if (subjectAltName != null) {
+            for (GeneralName name : GeneralNames.getInstance(subjectAltName.getParsedValue()).getNames()) {
+                if (name.getTagNo() == GeneralName.rfc822Name) {
+                    return ((ASN1String) name.getName()).getString();
+                }
+            }
+        }
+        return attribute(holder.getSubject(), BCStyle.EmailAddress);
+    }
+
+    public String keyUsage(X509CertificateHolder holder) {
+        Extension extension = holder.getExtension(Extension.keyUsage);
+        if (extension == null) return NOT_SPECIFIED;
+
+        KeyUsage keyUsage = KeyUsage.getInstance(extension.getParsedValue());
+        int mask = 0;
+        for (int i = 0; i < KEY_USAGE_BITS.length; i++) {
+            if (keyUsage.hasUsages(KEY_USAGE_BITS[i])) {
+                mask |= 1 << i;
+            }
+        }
+        return KEY_USAGE_TEXT[mask];
+    }
+
+    // cùng định dạng với BigInteger.toString(16).toUpperCase()
+    public String serialNumber(X509CertificateHolder holder) {
+        BigInteger serial = holder.getSerialNumber();
+        if (serial.signum() <= 0) {
+            return serial.toString(16).toUpperCase();
+        }
+        byte[] bytes = serial.toByteArray();
+        int offset = bytes[0] == 0 ? 1 : 0;
+        boolean skipHighNibble = (bytes[offset] & 0xf0) == 0;
+        char[] hex = new char[(bytes.length - offset) * 2 - (skipHighNibble ? 1 : 0)];
+        int pos = 0;
+        for (int i = offset; i < bytes.length; i++) {
+            if (i != offset || !skipHighNibble) {
+                hex[pos++] = HEX[(bytes[i] >> 4) & 0x0f];
+            }
+            hex[pos++] = HEX[bytes[i] & 0x0f];
+        }
+        return new String(hex);
+    }
+
+    // giá trị đầu tiên của thuộc tính, kể cả trong RDN nhiều giá trị
+    public String attribute(X500Name name, ASN1ObjectIdentifier type) {
+        for (RDN rdn : name.getRDNs()) {
+            if (rdn.isMultiValued()) {
+                for (AttributeTypeAndValue value : rdn.getTypesAndValues()) {
+                    if (type.equals(value.getType())) return valueToString(value.getValue());
+                }
+            } else if (type.equals(rdn.getFirst().getType())) {
+                return valueToString(rdn.getFirst().getValue());
+            }
+        }
+        return null;
+    }
+
+    // giá trị hiển thị, không escape theo RFC 4514
+    private String valueToString(ASN1Encodable value) {
+        return value instanceof ASN1String ? ((ASN1String) value).getString() : IETFUtils.valueToString(value);
+    }
+
+    /**
+     * Time.getDate() đi qua SimpleDateFormat, tốn vài KB mỗi lần gọi. DER bắt buộc dạng UTC không có phần lẻ giây
+     * ("yyyyMMddHHmmss" + "GMT+00:00" sau khi chuẩn hoá năm) nên đọc thẳng các chữ số; dạng khác mới dùng getDate().
+     */
+    private LocalDateTime toLocalDateTime(Time time) {
+        ASN1Primitive primitive = time.toASN1Primitive();
+        String value = primitive instanceof ASN1UTCTime
+                ? ((ASN1UTCTime) primitive).getAdjustedTime() : ((ASN1GeneralizedTime) primitive).getTime();
+        if (value.length() == DER_TIME_DIGITS + UTC_SUFFIX.length() && value.endsWith(UTC_SUFFIX)) {
+            LocalDateTime utc = LocalDateTime.of(digits(value, 0, 4), digits(value, 4, 6), digits(value, 6, 8),
+                    digits(value, 8, 10), digits(value, 10, 12), digits(value, 12, 14));
+            return utc.atOffset(ZoneOffset.UTC).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+        }
+        return time.getDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime();
+    }
+
+    private static int digits(String value, int from, int to) {
+        int result = 0;
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new DateTimeException("Invalid certificate time: " + value);
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    private static String[] buildKeyUsageText() {
+        String[] text = new String[1 << KEY_USAGE_NAMES.length];
+        for (int mask = 0; mask < text.length; mask++) {
+            StringBuilder usage = new StringBuilder();
+            for (int i = 0; i < KEY_USAGE_NAMES.length; i++) {
+                if ((mask & (1 << i)) != 0) {
+                    if (usage.length() > 0) usage.append(", ");
+                    usage.append(KEY_USAGE_NAMES[i]);
+                }
+            }
+            text[mask] = usage.length() > 0 ? usage.toString() : NOT_SPECIFIED;
+        }
+        return text;
+    }
+}
@@ -1,50 +1,61 @@
 package com.digitalsign.util;
 
 import com.digitalsign.model.CertificateInfo;
+import com.digitalsign.trust.TrustStoreSnapshot;
 import org.bouncycastle.asn1.x500.X500Name;
 import org.bouncycastle.asn1.x500.style.BCStyle;
-import org.bouncycastle.asn1.x500.style.IETFUtils;
 import org.bouncycastle.cert.X509CertificateHolder;
 import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateHolder;
 import org.bouncycastle.jcajce.provider.asymmetric.X509;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.security.GeneralSecurityException;
+import java.security.cert.CertPathBuilder;
+import java.security.cert.CertPathBuilderException;
+import java.security.cert.CertStore;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.CollectionCertStoreParameters;
+import java.security.cert.PKIXBuilderParameters;
+import java.security.cert.PKIXCertPathBuilderResult;
+import java.security.cert.PKIXRevocationChecker;
+import java.security.cert.X509CertSelector;
 import java.security.cert.X509Certificate;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Objects;
 
 @Component
 public class CertificateUtils {
+    private static final int MAX_CHAIN_LENGTH = 10;
+
     @Autowired
     private CryptoUtils cryptoUtils;
 
-    public CertificateInfo extractCertificateInfo(X509Certificate certificate) throws Exception {
-        CertificateInfo info = new CertificateInfo();
-
-        info.setSubjectName(extractCommonName(certificate.getSubjectX500Principal().getName()));
-        info.setIssuerName(extractCommonName(certificate.getIssuerX500Principal().getName()));
-        info.setSerialNumber(certificate.getSerialNumber().toString(16).toUpperCase());
-        info.setAlgoristhm(certificate.getSigAlgName());
-
-        info.setValidFrom(convertToLocalDateTime(certificate.getNotBefore()));
-        info.setValidTo(convertToLocalDateTime(certificate.getNotAfter()));
-
-        info.setThumbprint(cryptoUtils.getCertificateThumbPrint(certificate));
+    @Autowired
+    private CertificateFieldExtractor certificateFieldExtractor;
 
-        info.setKeyUsage(extractKeyUsage(certificate));
+    public CertificateInfo extractCertificateInfo(X509Certificate certificate) throws Exception {
+        return extractCertificateInfo(new JcaX509CertificateHolder(certificate), certificate,
+                cryptoUtils.getCertificateThumbPrint(certificate));
+    }
 
-        return info;
+    // đọc thẳng từ holder đã giải mã; thumbprint do nơi gọi tính sẵn (thường là một lần khi parse CMS)
+    public CertificateInfo extractCertificateInfo(X509CertificateHolder holder, X509Certificate certificate,
+                                                  String thumbprint) {
+        return certificateFieldExtractor.extractCertificateInfo(holder, certificate, thumbprint);
     }
 
+    // các hàm theo chuỗi DN dùng chung cách đọc thuộc tính với CertificateFieldExtractor (giá trị không escape)
     public String extractCommonName(String distinguishedName){
         try{
-            X500Name x500Name = new X500Name(distinguishedName);
-            return IETFUtils.valueToString(x500Name.getRDNs(BCStyle.CN)[0].getFirst().getValue());
-        } catch (Exception e){
+            String commonName = certificateFieldExtractor.attribute(new X500Name(distinguishedName), BCStyle.CN);
+            return commonName != null ? commonName : distinguishedName;
+        } catch (IllegalArgumentException e){
             String[] parts = distinguishedName.split(",");
             for(String part : parts){
                 String trimmed = part.trim();
@@ -58,9 +69,8 @@ public class CertificateUtils {
 
     public String extractOrganization(String distinguishedName){
         try{
-            X500Name x500Name = new X500Name(distinguishedName);
-            return IETFUtils.valueToString(x500Name.getRDNs(BCStyle.O)[0].getFirst().getValue());
-        } catch (Exception e){
+            return certificateFieldExtractor.organization(new X500Name(distinguishedName));
+        } catch (IllegalArgumentException e){
             return null;
         }
     }
@@ -83,27 +93,54 @@ public class CertificateUtils {
         }
     }
 
-    private LocalDateTime convertToLocalDateTime(Date date){
-        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime();
+    public boolean isTrusted(X509Certificate certificate, Collection<X509Certificate> intermediates,
+                             TrustStoreSnapshot trustStore){
+        try{
+            validateTrustChain(certificate, intermediates, trustStore, new Date());
+            return true;
+        } catch (GeneralSecurityException e){
+            return false;
+        }
     }
 
-    private String extractKeyUsage(X509Certificate certificate){
-        boolean[] keyUsage = certificate.getKeyUsage();
-        if (keyUsage == null) return "Not specified";
-
-        StringBuilder usage = new StringBuilder();
-        String[] keyUsageNames = {
-                "Digital Signature", "Non Repudiation", "Key Encipherment", "Data Encipherment",
-                "Key Agreement", "Key Cert Sign", "CRL Sign", "Encipher Only", "Decipher Only"
-        };
+    /**
+     * Dựng và kiểm tra chuỗi PKIX từ chứng thư signer tới một CA tin cậy của tenant. Chứng thư trung gian do
+     * CMS cung cấp chỉ là ứng viên: PKIX kiểm tra basicConstraints (cA, pathLen), keyUsage keyCertSign,
+     * hiệu lực của từng chứng thư và CRL của trust store. Trust anchor được PKIX coi là khoá tin cậy
+     * nên hạn của nó được kiểm tra riêng. Thiếu CRL cho một CA thì bỏ qua kiểm tra thu hồi (soft-fail),
+     * chứng thư nằm trong CRL luôn bị từ chối.
+     */
+    public PKIXCertPathBuilderResult validateTrustChain(X509Certificate certificate,
+                                                        Collection<X509Certificate> intermediates,
+                                                        TrustStoreSnapshot trustStore, Date date)
+            throws GeneralSecurityException {
+        if (trustStore.getTrustAnchors().isEmpty()){
+            throw new CertPathBuilderException("No trust anchors configured for tenant " + trustStore.getTenantId());
+        }
 
-        for(int i=0; i < keyUsage.length && i < keyUsageNames.length; i++){
-            if (keyUsage[i]){
-                if (usage.length() > 0) usage.append(", ");
-                usage.append(keyUsageNames[i]);
-            }
+        X509CertSelector target = new X509CertSelector();
+        target.setCertificate(certificate);
+        PKIXBuilderParameters parameters = new PKIXBuilderParameters(trustStore.getTrustAnchors(), target);
+        List<X509Certificate> candidates = new ArrayList<>(intermediates.size() + 1);
+        candidates.add(certificate);
+        candidates.addAll(intermediates);
+        parameters.addCertStore(CertStore.getInstance("Collection", new CollectionCertStoreParameters(candidates)));
+        parameters.addCertStore(trustStore.getCrlStore());
+        parameters.setMaxPathLength(MAX_CHAIN_LENGTH);
+        parameters.setDate(date);
+
+        CertPathBuilder builder = CertPathBuilder.getInstance("PKIX");
+        PKIXRevocationChecker revocationChecker = (PKIXRevocationChecker) builder.getRevocationChecker();
+        revocationChecker.setOptions(EnumSet.of(PKIXRevocationChecker.Option.PREFER_CRLS,
+                PKIXRevocationChecker.Option.NO_FALLBACK, PKIXRevocationChecker.Option.SOFT_FAIL));
+        parameters.addCertPathChecker(revocationChecker);
+
+        PKIXCertPathBuilderResult result = (PKIXCertPathBuilderResult) builder.build(parameters);
+        X509Certificate anchor = result.getTrustAnchor().getTrustedCert();
+        if (anchor != null){
+            anchor.checkValidity(date);
         }
-        return usage.length() > 0 ? usage.toString() : "Not specified";
+        return result;
     }
 
     public String getCertificateStatusDescription(X509Certificate certificate){
@@ -120,28 +157,10 @@ public class CertificateUtils {
 
     public String extractEmailFromCertificate(X509Certificate certificate){
         try{
-            if (certificate.getSubjectAlternativeNames() != null){
-                for(List<?> sanObj : certificate.getSubjectAlternativeNames()){
-                    if(sanObj instanceof List<?>){
-                        List<?> san = (java.util.List<?>) sanObj;
-                        if (san.size() >= 2 && san.get(0).equals(1)){
-                            return san.get(1).toString();
-                        }
-                    }
-                }
-            }
-        }catch (Exception e){
-
-        }
-        String subjectDN = certificate.getSubjectX500Principal().getName();
-        String[] parts = subjectDN.split(",");
-        for(String part : parts){
-            String trimmed = part.trim();
-            if(trimmed.startsWith("EMAILADDRESS=") || trimmed.startsWith("E=")){
-                return trimmed.substring(trimmed.indexOf('=') + 1);
-            }
+            return certificateFieldExtractor.email(new JcaX509CertificateHolder(certificate));
+        } catch (CertificateEncodingException | IllegalArgumentException e){
+            return null;
         }
-        return null;
     }
 
     public X509Certificate convertToX509Certificate(X509CertificateHolder certHolder) throws Exception {
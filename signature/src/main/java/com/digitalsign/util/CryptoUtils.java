@@ -1,19 +1,17 @@
 package com.digitalsign.util;
 
-import org.bouncycastle.pqc.jcajce.provider.BouncyCastlePQCProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.nio.ByteBuffer;
 import java.security.*;
 import java.security.cert.X509Certificate;
 import java.util.HexFormat;
 
 @Component
 public class CryptoUtils {
-    static {
-        if(Security.getProvider("BC") == null) {
-            Security.addProvider(new BouncyCastlePQCProvider());
-        }
-    }
+    @Autowired
+    private AlgorithmRegistry algorithmRegistry;
 
     public byte[] calculateHash(byte[] data, String algoristhm) throws NoSuchAlgorithmException{
         MessageDigest digest = MessageDigest.getInstance(algoristhm);
@@ -24,6 +22,13 @@ public class CryptoUtils {
         return calculateHash(data, "SHA-256");
     }
 
+    // băm trực tiếp trên buffer (có thể là vùng map của file spool), không sao chép nội dung lên heap
+    public byte[] calculateSHA256(ByteBuffer data) throws NoSuchAlgorithmException{
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        digest.update(data.duplicate());
+        return digest.digest();
+    }
+
     public byte[] calculateSHA1(byte[] data) throws NoSuchAlgorithmException{
         return calculateHash(data, "SHA-1");
     }
@@ -53,32 +58,20 @@ public class CryptoUtils {
     public String normalizeAlgoristhm(String algoristhm) {
         if (algoristhm == null) return "UNKNOWN";
 
-        String normalized = algoristhm.toUpperCase().trim();
-
-        switch (normalized){
-            case "SHA256WITHRSA":
-            case "SHA256_WITH_RSA":
-                return "SHA256withRSA";
-            case "SHA1WITHRSA":
-            case "SHA1_WITH_RSA":
-                return "SHA1withRSA";
-            case "SHA512WITHRSA":
-            case "SHA512_WITH_RSA":
-                return "SHA512withRSA";
-            default:
-                return normalized;
-        }
+        AlgorithmDescriptor descriptor = algorithmRegistry.lookup(algoristhm);
+        return descriptor != null ? descriptor.getJcaName() : algoristhm.toUpperCase().trim();
+    }
+
+    // tên thuật toán chữ ký từ cặp OID của SignerInformation (getDigestAlgOID / getEncryptionAlgOID)
+    public String normalizeAlgoristhm(String digestAlgOid, String encryptionAlgOid) {
+        AlgorithmDescriptor descriptor = algorithmRegistry.resolveSignature(digestAlgOid, encryptionAlgOid);
+        return descriptor != null ? descriptor.getJcaName() : normalizeAlgoristhm(encryptionAlgOid);
     }
 
     public String extractHashAlgoristhm(String signatureAlgoristhm){
         if(signatureAlgoristhm == null) return "UNKNOWN";
 
-        String normalized = signatureAlgoristhm.toUpperCase();
-        if(normalized.contains("SHA256")) return "SHA-256";
-        if(normalized.contains("SHA1")) return "SHA-1";
-        if(normalized.contains("SHA512")) return "SHA-512";
-        if(normalized.contains("MD5")) return "MD5";
-
-        return "UNKNOWN";
+        String digest = algorithmRegistry.digestName(signatureAlgoristhm);
+        return digest != null ? digest : "UNKNOWN";
     }
 }
@@ -1,6 +1,7 @@
 package com.digitalsign.util;
 
 import org.apache.tika.Tika;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -15,14 +16,45 @@ import java.util.HexFormat;
 
 @Component
 public class FileUtils {
-    private final Tika tika = new Tika();
+    // Tika nạp toàn bộ detector qua ServiceLoader khi khởi tạo, chỉ làm việc đó ở lần detect đầu tiên
+    private static final class TikaHolder {
+        private static final Tika TIKA = new Tika();
+    }
+
+    // file lớn hơn ngưỡng này được ghi ra file spool và map vào bộ nhớ thay vì đọc vào heap
+    @Value("${signature.upload.spool-threshold:1048576}")
+    private long spoolThreshold;
+
+    @Value("${signature.upload.spool-directory:${java.io.tmpdir}}")
+    private String spoolDirectory;
 
     public String detectFileType(byte[] content){
-        return tika.detect(content);
+        return TikaHolder.TIKA.detect(content);
     }
 
     public String detectFileType(MultipartFile file) throws IOException{
-        return tika.detect(file.getInputStream(), file.getOriginalFilename());
+        return TikaHolder.TIKA.detect(file.getInputStream(), file.getOriginalFilename());
+    }
+
+    public String detectFileType(UploadedContent content) throws IOException{
+        try(InputStream inputStream = content.openStream()){
+            return TikaHolder.TIKA.detect(inputStream, content.getFileName());
+        }
+    }
+
+    public UploadedContent openUpload(MultipartFile file) throws IOException{
+        if (file.getSize() <= spoolThreshold){
+            return UploadedContent.inMemory(file.getOriginalFilename(), file.getBytes());
+        }
+
+        Path spoolFile = Files.createTempFile(Path.of(spoolDirectory), "upload-", ".spool");
+        try{
+            file.transferTo(spoolFile);
+            return UploadedContent.spooled(file.getOriginalFilename(), spoolFile);
+        }catch (IOException | RuntimeException e){
+            deleteTempFile(spoolFile);
+            throw e;
+        }
     }
 
     public String getFileExtension(String filename){
@@ -57,6 +89,12 @@ public class FileUtils {
         return HexFormat.of().formatHex(hash);
     }
 
+    public String calculateFileHash(UploadedContent content, String algoristhm) throws NoSuchAlgorithmException{
+        MessageDigest digest = MessageDigest.getInstance(algoristhm);
+        digest.update(content.asByteBuffer());
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
     public String calculateSHA25Hash(byte[] content) throws NoSuchAlgorithmException{
         return calculateFileHash(content, "SHA-256");
     }
@@ -0,0 +1,142 @@
+package com.digitalsign.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Nội dung file upload, nằm trên heap (file nhỏ) hoặc trong file spool được map vào bộ nhớ (file lớn).
+ * Luôn dùng trong try-with-resources để file spool được xoá ngay khi xử lý xong.
+ */
+public final class UploadedContent implements Closeable {
+    private final String fileName;
+    private final long size;
+    private final byte[] bytes;
+    private final Path spoolFile;
+    private final ByteBuffer buffer;
+
+    private UploadedContent(String fileName, byte[] bytes, Path spoolFile, ByteBuffer buffer) {
+        this.fileName = fileName;
+        this.bytes = bytes;
+        this.spoolFile = spoolFile;
+        this.buffer = buffer.asReadOnlyBuffer();
+        this.size = buffer.remaining();
+    }
+
+    public static UploadedContent inMemory(String fileName, byte[] bytes) {
+        return new UploadedContent(fileName, bytes, null, ByteBuffer.wrap(bytes));
+    }
+
+    public static UploadedContent spooled(String fileName, Path spoolFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(spoolFile, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new UploadedContent(fileName, null, spoolFile, mapped);
+        }
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public boolean isSpooled() {
+        return spoolFile != null;
+    }
+
+    public Path getSpoolFile() {
+        return spoolFile;
+    }
+
+    // mỗi lần gọi trả về một view độc lập (position/limit riêng), không sao chép dữ liệu
+    public ByteBuffer asByteBuffer() {
+        return buffer.duplicate();
+    }
+
+    public InputStream openStream() {
+        return new ByteBufferInputStream(asByteBuffer());
+    }
+
+    /**
+     * Trả về nội dung dạng byte[]. Với file trên heap đây chính là mảng đã đọc (không sao chép);
+     * với file spool, dữ liệu được sao chép từ vùng map nên chỉ gọi khi API phía sau bắt buộc dùng byte[].
+     */
+    public byte[] toByteArray() {
+        if (bytes != null) {
+            return bytes;
+        }
+        byte[] copy = new byte[(int) size];
+        asByteBuffer().get(copy);
+        return copy;
+    }
+
+    @Override
+    public void close() {
+        if (spoolFile == null) return;
+
+        try {
+            Files.deleteIfExists(spoolFile);
+        } catch (IOException e) {
+            // Windows không cho xoá file đang được map, để JVM xoá khi thoát
+            spoolFile.toFile().deleteOnExit();
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) return 0;
+            if (!buffer.hasRemaining()) return -1;
+
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(int readLimit) {
+            buffer.mark();
+        }
+
+        @Override
+        public synchronized void reset() {
+            buffer.reset();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.digitalsign;
+
+import com.digitalsign.config.SecurityConfig;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.BasicConstraints;
+import org.bouncycastle.asn1.x509.CRLReason;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.KeyUsage;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.X509v2CRLBuilder;
+import org.bouncycastle.cert.jcajce.JcaCertStore;
+import org.bouncycastle.cert.jcajce.JcaX509CRLConverter;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.cms.CMSProcessableByteArray;
+import org.bouncycastle.cms.CMSSignedDataGenerator;
+import org.bouncycastle.cms.jcajce.JcaSignerInfoGeneratorBuilder;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.cert.X509CRL;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sinh chứng thư, CRL và chữ ký CMS cho test. Khoá EC P-256 để test chạy nhanh.
+ */
+public final class TestCertificates {
+    private static final String SIGNATURE_ALGORITHM = "SHA256withECDSA";
+    private static final AtomicLong SERIAL = new AtomicLong(System.currentTimeMillis());
+
+    static {
+        SecurityConfig.registerProviders();
+    }
+
+    public static final class Issued {
+        private final X509Certificate certificate;
+        private final PrivateKey privateKey;
+
+        private Issued(X509Certificate certificate, PrivateKey privateKey) {
+            this.certificate = certificate;
+            this.privateKey = privateKey;
+        }
+
+        public X509Certificate getCertificate() {
+            return certificate;
+        }
+
+        public PrivateKey getPrivateKey() {
+            return privateKey;
+        }
+    }
+
+    private TestCertificates() {
+    }
+
+    public static Issued rootCa(String commonName) throws Exception {
+        return rootCa(commonName, Instant.now().minus(Duration.ofDays(1)), Instant.now().plus(Duration.ofDays(365)));
+    }
+
+    public static Issued rootCa(String commonName, Instant notBefore, Instant notAfter) throws Exception {
+        return issue(commonName, null, true, notBefore, notAfter);
+    }
+
+    public static Issued intermediateCa(String commonName, Issued issuer) throws Exception {
+        return issue(commonName, issuer, true, Instant.now().minus(Duration.ofDays(1)),
+                Instant.now().plus(Duration.ofDays(365)));
+    }
+
+    public static Issued endEntity(String commonName, Issued issuer) throws Exception {
+        return issue(commonName, issuer, false, Instant.now().minus(Duration.ofDays(1)),
+                Instant.now().plus(Duration.ofDays(30)));
+    }
+
+    public static Issued endEntity(String commonName, Issued issuer, Instant notBefore, Instant notAfter)
+            throws Exception {
+        return issue(commonName, issuer, false, notBefore, notAfter);
+    }
+
+    // issuer == null: chứng thư tự ký
+    public static Issued issue(String commonName, Issued issuer, boolean ca, Instant notBefore, Instant notAfter)
+            throws Exception {
+        KeyPair keyPair = keyPair();
+        X500Name subject = new X500Name("CN=" + commonName + ",O=Test");
+        X500Name issuerName = issuer == null ? subject
+                : X500Name.getInstance(issuer.getCertificate().getSubjectX500Principal().getEncoded());
+        PrivateKey signingKey = issuer == null ? keyPair.getPrivate() : issuer.getPrivateKey();
+
+        JcaX509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(issuerName,
+                BigInteger.valueOf(SERIAL.incrementAndGet()), Date.from(notBefore), Date.from(notAfter), subject,
+                keyPair.getPublic());
+        builder.addExtension(Extension.basicConstraints, true, new BasicConstraints(ca));
+        builder.addExtension(Extension.keyUsage, true, new KeyUsage(ca
+                ? KeyUsage.keyCertSign | KeyUsage.cRLSign
+                : KeyUsage.digitalSignature | KeyUsage.nonRepudiation));
+        X509CertificateHolder holder = builder.build(signer(signingKey));
+        return new Issued(new JcaX509CertificateConverter().setProvider("BC").getCertificate(holder),
+                keyPair.getPrivate());
+    }
+
+    // chứng thư tự ký với DN và extension tuỳ ý, dùng cho test đọc trường chứng thư
+    public static Issued selfSigned(String subjectDn, Extension... extensions) throws Exception {
+        KeyPair keyPair = keyPair();
+        X500Name subject = new X500Name(subjectDn);
+        JcaX509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(subject,
+                BigInteger.valueOf(SERIAL.incrementAndGet()), Date.from(Instant.now().minus(Duration.ofDays(1))),
+                Date.from(Instant.now().plus(Duration.ofDays(30))), subject, keyPair.getPublic());
+        for (Extension extension : extensions) {
+            builder.addExtension(extension);
+        }
+        X509CertificateHolder holder = builder.build(signer(keyPair.getPrivate()));
+        return new Issued(new JcaX509CertificateConverter().setProvider("BC").getCertificate(holder),
+                keyPair.getPrivate());
+    }
+
+    public static X509CRL crl(Issued issuer, X509Certificate... revoked) throws Exception {
+        Date now = new Date();
+        X509v2CRLBuilder builder = new X509v2CRLBuilder(
+                X500Name.getInstance(issuer.getCertificate().getSubjectX500Principal().getEncoded()), now);
+        builder.setNextUpdate(new Date(now.getTime() + Duration.ofDays(7).toMillis()));
+        for (X509Certificate certificate : revoked) {
+            builder.addCRLEntry(certificate.getSerialNumber(), now, CRLReason.keyCompromise);
+        }
+        return new JcaX509CRLConverter().setProvider("BC").getCRL(builder.build(signer(issuer.getPrivateKey())));
+    }
+
+    public static byte[] signCms(byte[] content, Issued signer, boolean encapsulate, X509Certificate... extra)
+            throws Exception {
+        CMSSignedDataGenerator generator = new CMSSignedDataGenerator();
+        generator.addSignerInfoGenerator(new JcaSignerInfoGeneratorBuilder(
+                new JcaDigestCalculatorProviderBuilder().setProvider("BC").build())
+                .build(signer(signer.getPrivateKey()), signer.getCertificate()));
+        List<X509Certificate> certificates = new ArrayList<>(List.of(extra));
+        certificates.add(0, signer.getCertificate());
+        generator.addCertificates(new JcaCertStore(certificates));
+        return generator.generate(new CMSProcessableByteArray(content), encapsulate).getEncoded();
+    }
+
+    public static KeyPair keyPair() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC", "BC");
+        generator.initialize(256);
+        return generator.generateKeyPair();
+    }
+
+    private static ContentSigner signer(PrivateKey key) throws Exception {
+        return new JcaContentSignerBuilder(SIGNATURE_ALGORITHM).setProvider("BC").build(key);
+    }
+}
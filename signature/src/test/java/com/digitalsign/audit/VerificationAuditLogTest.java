@@ -0,0 +1,199 @@
+package com.digitalsign.audit;
+
+import com.digitalsign.model.CertificateInfo;
+import com.digitalsign.model.SignatureInfo;
+import com.digitalsign.model.SignatureVerificationResult;
+import com.digitalsign.model.VerificationStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VerificationAuditLogTest {
+    // vài chục bản ghi mỗi segment để kiểm tra chỉ mục của segment đã đầy
+    private static final int SEGMENT_SIZE = 4096;
+
+    @TempDir
+    Path directory;
+
+    private VerificationAuditLog auditLog;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        auditLog = open();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        auditLog.close();
+    }
+
+    @Test
+    void findsRecordsAcrossSealedAndActiveSegments() {
+        for (int i = 0; i < 200; i++) {
+            auditLog.append(result("doc-" + i + ".pdf", "0A" + (i % 4), "Signer " + (i % 4)), "tenant-" + (i % 2));
+        }
+
+        assertTrue(indexFiles() > 0);
+        assertEquals(200, auditLog.size());
+        assertEquals(50, auditLog.findBySerial("a0", "tenant-0", 0, 1000).size());
+        assertEquals(50, auditLog.findByThumbprint("THUMB-SIGNER 1", "tenant-1", 0, 1000).size());
+        assertEquals(50, auditLog.findBySigner("signer 2", null, null, "tenant-0", 0, 1000).size());
+        assertEquals(100, auditLog.findByTime(null, null, "tenant-1", 0, 1000).size());
+        assertTrue(auditLog.findBySerial("a0", "tenant-1", 0, 1000).isEmpty());
+    }
+
+    @Test
+    void reopeningLoadsSealedIndexesAndKeepsTheOrder() throws Exception {
+        for (int i = 0; i < 200; i++) {
+            auditLog.append(result("doc-" + i + ".pdf", "0A" + (i % 4), "Signer " + (i % 4)), "tenant-a");
+        }
+        auditLog.close();
+        auditLog = open();
+
+        List<AuditRecord> records = auditLog.findBySerial("0a1", "tenant-a", 0, 1000);
+        assertEquals(50, records.size());
+        for (int i = 0; i < records.size(); i++) {
+            assertEquals("doc-" + (i * 4 + 1) + ".pdf", records.get(i).getFileName());
+            assertEquals("tenant-a", records.get(i).getTenantId());
+        }
+
+        auditLog.append(result("after-reopen.pdf", "0A1", "Signer 1"), "tenant-a");
+        assertEquals(51, auditLog.findBySerial("0a1", "tenant-a", 0, 1000).size());
+    }
+
+    @Test
+    void pagesAreContiguousAndFilteredByTenant() {
+        for (int i = 0; i < 100; i++) {
+            auditLog.append(result("doc-" + i + ".pdf", "01", "Signer"), i % 2 == 0 ? "tenant-a" : "tenant-b");
+        }
+
+        List<String> paged = new ArrayList<>();
+        for (int offset = 0; offset < 50; offset += 15) {
+            for (AuditRecord record : auditLog.findBySerial("01", "tenant-b", offset, 15)) {
+                paged.add(record.getFileName());
+            }
+        }
+        assertEquals(50, paged.size());
+        assertEquals("doc-1.pdf", paged.get(0));
+        assertEquals("doc-99.pdf", paged.get(49));
+        assertTrue(auditLog.findBySerial("01", "tenant-b", 50, 15).isEmpty());
+    }
+
+    @Test
+    void limitIsCappedAndValidated() {
+        ReflectionTestUtils.setField(auditLog, "maxPageSize", 10);
+        for (int i = 0; i < 30; i++) {
+            auditLog.append(result("doc-" + i + ".pdf", "01", "Signer"), "tenant-a");
+        }
+
+        assertEquals(10, auditLog.findByTime(null, null, "tenant-a", 0, 1000).size());
+        assertThrows(IllegalArgumentException.class, () -> auditLog.findByTime(null, null, "tenant-a", -1, 10));
+        assertThrows(IllegalArgumentException.class, () -> auditLog.findByTime(null, null, "tenant-a", 0, 0));
+        // không có tenant thì không truy vấn, thay vì trả bản ghi của mọi tenant
+        assertThrows(NullPointerException.class, () -> auditLog.findByTime(null, null, null, 0, 10));
+    }
+
+    @Test
+    void corruptIndexFallsBackToScanningTheSegment() throws Exception {
+        for (int i = 0; i < 200; i++) {
+            auditLog.append(result("doc-" + i + ".pdf", "01", "Signer"), "tenant-a");
+        }
+        auditLog.close();
+        try (var files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (file.toString().endsWith(".idx")) {
+                    byte[] bytes = Files.readAllBytes(file);
+                    bytes[bytes.length - 1] ^= 1;
+                    Files.write(file, bytes);
+                }
+            }
+        }
+
+        auditLog = open();
+        assertEquals(200, auditLog.findBySerial("01", "tenant-a", 0, 1000).size());
+    }
+
+    @Test
+    void signerAndTimeQueriesHonourTheWindowAndTenant() throws Exception {
+        auditLog.append(result("early.pdf", "01", "Nguyen Van A"), "tenant-a");
+        auditLog.append(result("other.pdf", "02", "Tran Thi B"), "tenant-a");
+        Thread.sleep(5);
+        Instant middle = Instant.now();
+        Thread.sleep(5);
+        auditLog.append(result("late.pdf", "01", "Nguyen Van A"), "tenant-a");
+        auditLog.append(result("late-b.pdf", "01", "Nguyen Van A"), "tenant-b");
+
+        List<AuditRecord> late = auditLog.findBySigner("NGUYEN VAN A", middle, null, "tenant-a", 0, 10);
+        assertEquals(1, late.size());
+        AuditRecord record = late.get(0);
+        assertEquals("late.pdf", record.getFileName());
+        assertEquals("hash-late.pdf", record.getFileHash());
+        assertEquals(VerificationStatus.VALID, record.getOverallStatus());
+        assertEquals("Nguyen Van A", record.getSignatures().get(0).getSignerName());
+
+        assertEquals(2, auditLog.findByTime(null, middle, "tenant-a", 0, 10).size());
+        assertEquals(1, auditLog.findByTime(middle, null, "tenant-b", 0, 10).size());
+        assertTrue(auditLog.findBySigner("Le Van C", null, null, "tenant-a", 0, 10).isEmpty());
+    }
+
+    @Test
+    void statusOnlyResultsAreFoundBySerialAndThumbprint() {
+        SignatureInfo signature = new SignatureInfo();
+        signature.setCertificateSerialNumber("0AB1");
+        signature.setCertificateThumbprint("beef");
+        signature.setStatus(VerificationStatus.INVALID);
+        SignatureVerificationResult result = new SignatureVerificationResult("status-only.pdf", "application/pdf");
+        result.setOverallStatus(VerificationStatus.INVALID);
+        result.getSignatures().add(signature);
+        auditLog.append(result, "tenant-a");
+
+        assertEquals("status-only.pdf", auditLog.findBySerial("ab1", "tenant-a", 0, 10).get(0).getFileName());
+        assertEquals(1, auditLog.findByThumbprint("BEEF", "tenant-a", 0, 10).size());
+    }
+
+    private VerificationAuditLog open() throws Exception {
+        VerificationAuditLog log = new VerificationAuditLog();
+        ReflectionTestUtils.setField(log, "enabled", true);
+        ReflectionTestUtils.setField(log, "directory", directory.toString());
+        ReflectionTestUtils.setField(log, "segmentSize", SEGMENT_SIZE);
+        ReflectionTestUtils.setField(log, "maxPageSize", 1000);
+        log.open();
+        return log;
+    }
+
+    private long indexFiles() {
+        try (var files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".idx")).count();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static SignatureVerificationResult result(String fileName, String serial, String signer) {
+        CertificateInfo certificate = new CertificateInfo();
+        certificate.setSerialNumber(serial);
+        certificate.setThumbprint("thumb-" + signer);
+        SignatureInfo signature = new SignatureInfo();
+        signature.setSignerName(signer);
+        signature.setCertificate(certificate);
+        signature.setStatus(VerificationStatus.VALID);
+
+        SignatureVerificationResult result = new SignatureVerificationResult(fileName, "application/pdf");
+        result.setFileHash("hash-" + fileName);
+        result.setOverallStatus(VerificationStatus.VALID);
+        result.getSignatures().add(signature);
+        return result;
+    }
+}
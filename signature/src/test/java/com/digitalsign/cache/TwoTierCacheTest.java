@@ -0,0 +1,154 @@
+package com.digitalsign.cache;
+
+import com.digitalsign.model.CertificateInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TwoTierCacheTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private TwoTierCache<String> cache(RemoteCacheStore remote, String nodeId, int maxEntries, int maxPartitions) {
+        return new TwoTierCache<>("test", String.class, objectMapper, remote, nodeId, maxEntries, maxPartitions,
+                Duration.ofMinutes(1));
+    }
+
+    @Test
+    void doesNotCreateMorePartitionsThanTheLimit() {
+        InMemoryRemoteCacheStore remote = new InMemoryRemoteCacheStore();
+        TwoTierCache<String> cache = cache(remote, "a", 8, 2);
+
+        for (int i = 0; i < 100; i++) {
+            cache.put("tenant-" + i, "key-" + i, "value-" + i);
+        }
+
+        assertEquals(2, ((Map<?, ?>) ReflectionTestUtils.getField(cache, "near")).size());
+        // mục của partition không được tạo vẫn đọc được từ tầng remote
+        assertEquals("value-50", cache.get("tenant-50", "key-50"));
+        assertEquals(1, cache.getRemoteHits());
+    }
+
+    @Test
+    void clearingAPartitionReachesEveryNode() {
+        InMemoryRemoteCacheStore remote = new InMemoryRemoteCacheStore();
+        TwoTierCache<String> nodeA = cache(remote, "a", 8, 4);
+        TwoTierCache<String> nodeB = cache(remote, "b", 8, 4);
+        nodeA.put("tenant-1", "key-1", "value-1");
+        nodeA.put("tenant-2", "key-2", "value-2");
+        // node B đưa cả hai mục vào near-cache của mình
+        nodeB.get("tenant-1", "key-1");
+        nodeB.get("tenant-2", "key-2");
+        assertEquals(2, nodeB.getRemoteHits());
+
+        nodeA.clearPartition("tenant-1", "trust store changed");
+
+        assertEquals("value-1", nodeB.get("tenant-1", "key-1"));
+        assertEquals(3, nodeB.getRemoteHits());
+        assertEquals("value-2", nodeB.get("tenant-2", "key-2"));
+        assertEquals(1, nodeB.getNearHits());
+    }
+
+    @Test
+    void everyGetReturnsAFreshCopy() {
+        TwoTierCache<CertificateInfo> cache = new TwoTierCache<>("certificates", CertificateInfo.class,
+                new ObjectMapper().findAndRegisterModules(), new InMemoryRemoteCacheStore(), "a", 8, 4,
+                Duration.ofMinutes(1));
+        CertificateInfo info = new CertificateInfo();
+        info.setSubjectName("Signer");
+        cache.put("tenant", "thumbprint", info);
+
+        cache.get("tenant", "thumbprint").setSubjectName("changed by caller");
+        assertEquals("Signer", cache.get("tenant", "thumbprint").getSubjectName());
+    }
+
+    @Test
+    void invalidatingAKeyRemovesItFromEveryNodeAndTheRemoteTier() {
+        InMemoryRemoteCacheStore remote = new InMemoryRemoteCacheStore();
+        TwoTierCache<String> nodeA = cache(remote, "a", 8, 4);
+        TwoTierCache<String> nodeB = cache(remote, "b", 8, 4);
+        nodeA.put("tenant-1", "key-1", "value-1");
+        assertEquals("value-1", nodeB.get("tenant-1", "key-1"));
+
+        nodeA.invalidate("key-1", "revoked");
+
+        assertNull(nodeB.get("tenant-1", "key-1"));
+        assertNull(nodeA.get("tenant-1", "key-1"));
+        assertEquals(1, nodeB.getMisses());
+    }
+
+    @Test
+    void leastRecentlyUsedEntryLeavesTheNearPartitionFirst() {
+        InMemoryRemoteCacheStore remote = new InMemoryRemoteCacheStore();
+        TwoTierCache<String> cache = cache(remote, "a", 2, 4);
+        cache.put("tenant", "key-1", "value-1");
+        cache.put("tenant", "key-2", "value-2");
+        cache.get("tenant", "key-1");
+        cache.put("tenant", "key-3", "value-3");
+
+        assertEquals("value-1", cache.get("tenant", "key-1"));
+        assertEquals(2, cache.getNearHits());
+        // key-2 chỉ còn ở tầng remote
+        assertEquals("value-2", cache.get("tenant", "key-2"));
+        assertEquals(1, cache.getRemoteHits());
+    }
+
+    @Test
+    void entriesExpireAfterTheTtl() throws Exception {
+        TwoTierCache<String> cache = new TwoTierCache<>("test", String.class, objectMapper,
+                new InMemoryRemoteCacheStore(), "a", 8, 4, Duration.ofMillis(20));
+        cache.put("tenant", "key", "value");
+        Thread.sleep(50);
+
+        assertNull(cache.get("tenant", "key"));
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void failingRemoteTierLeavesTheNearCacheWorking() {
+        TwoTierCache<String> cache = cache(new FailingRemoteCacheStore(), "a", 8, 4);
+        cache.put("tenant", "key", "value");
+
+        assertEquals("value", cache.get("tenant", "key"));
+        assertNull(cache.get("tenant", "missing"));
+        assertEquals(1, cache.getNearHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    private static final class FailingRemoteCacheStore implements RemoteCacheStore {
+        @Override
+        public byte[] get(String region, String key) {
+            throw new IllegalStateException("remote down");
+        }
+
+        @Override
+        public void put(String region, String key, byte[] value, Duration ttl) {
+            throw new IllegalStateException("remote down");
+        }
+
+        @Override
+        public void evict(String region, String key) {
+            throw new IllegalStateException("remote down");
+        }
+
+        @Override
+        public void clear(String region) {
+            throw new IllegalStateException("remote down");
+        }
+
+        @Override
+        public void publish(CacheInvalidation invalidation) {
+            throw new IllegalStateException("remote down");
+        }
+
+        @Override
+        public void subscribe(Consumer<CacheInvalidation> listener) {
+        }
+    }
+}
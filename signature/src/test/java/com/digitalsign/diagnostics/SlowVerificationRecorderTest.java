@@ -0,0 +1,84 @@
+package com.digitalsign.diagnostics;
+
+import com.digitalsign.model.VerificationMode;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlowVerificationRecorderTest {
+    @Test
+    void keepsTheMostRecentSlowVerificationsSlowestFirst() {
+        SlowVerificationRecorder recorder = recorder(3);
+        for (long millis : new long[]{40, 10, 90, 20, 70, 5, 60}) {
+            recorder.record(trace(millis), null);
+        }
+
+        // 40, 10 và 90 đã bị ghi đè; 5 dưới ngưỡng
+        assertEquals(List.of(70.0, 60.0, 20.0), totals(recorder.snapshot(10)));
+        assertEquals(6, recorder.getRecordedCount());
+        assertEquals(2, recorder.snapshot(2).size());
+    }
+
+    @Test
+    void anEarlierSlowBurstAgesOut() {
+        SlowVerificationRecorder recorder = recorder(2);
+        recorder.record(trace(5000), null);
+        recorder.record(trace(4000), null);
+
+        // chậm vừa phải nhưng là hiện tại: vẫn được giữ dù nhanh hơn đợt chậm lúc khởi động
+        recorder.record(trace(30), null);
+        recorder.record(trace(20), null);
+        assertEquals(List.of(30.0, 20.0), totals(recorder.snapshot(10)));
+    }
+
+    @Test
+    void clearEmptiesTheRing() {
+        SlowVerificationRecorder recorder = recorder(2);
+        recorder.record(trace(100), null);
+        recorder.record(trace(200), null);
+        recorder.clear();
+        assertTrue(recorder.snapshot(10).isEmpty());
+
+        recorder.record(trace(50), null);
+        assertEquals(List.of(50.0), totals(recorder.snapshot(10)));
+    }
+
+    @Test
+    void rejectsNonPositiveCapacity() {
+        SlowVerificationRecorder recorder = new SlowVerificationRecorder();
+        ReflectionTestUtils.setField(recorder, "threshold", Duration.ZERO);
+        ReflectionTestUtils.setField(recorder, "capacity", 0);
+
+        assertThrows(IllegalStateException.class, () -> ReflectionTestUtils.invokeMethod(recorder, "init"));
+    }
+
+    private static SlowVerificationRecorder recorder(int capacity) {
+        SlowVerificationRecorder recorder = new SlowVerificationRecorder();
+        ReflectionTestUtils.setField(recorder, "threshold", Duration.ofMillis(8));
+        ReflectionTestUtils.setField(recorder, "capacity", capacity);
+        ReflectionTestUtils.invokeMethod(recorder, "init");
+        return recorder;
+    }
+
+    private static List<Double> totals(List<SlowVerification> entries) {
+        List<Double> totals = new ArrayList<>();
+        for (SlowVerification entry : entries) {
+            totals.add(entry.getTotalMillis());
+        }
+        return totals;
+    }
+
+    private static VerificationTrace trace(long totalMillis) {
+        VerificationTrace trace = new VerificationTrace("test", "doc-" + totalMillis + ".pdf", 0,
+                VerificationMode.FULL);
+        ReflectionTestUtils.setField(trace, "totalNanos", Duration.ofMillis(totalMillis).toNanos());
+        return trace;
+    }
+}
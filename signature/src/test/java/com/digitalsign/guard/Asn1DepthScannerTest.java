@@ -0,0 +1,84 @@
+package com.digitalsign.guard;
+
+import org.bouncycastle.asn1.ASN1Encodable;
+import org.bouncycastle.asn1.ASN1Encoding;
+import org.bouncycastle.asn1.ASN1Integer;
+import org.bouncycastle.asn1.ASN1Primitive;
+import org.bouncycastle.asn1.BERSequence;
+import org.bouncycastle.asn1.DEROctetString;
+import org.bouncycastle.asn1.DERSequence;
+import org.bouncycastle.asn1.DERTaggedObject;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class Asn1DepthScannerTest {
+    private static final int LIMIT = 64;
+
+    @Test
+    void countsDefiniteLengthNesting() throws Exception {
+        assertEquals(1, Asn1DepthScanner.measure(new ASN1Integer(1).getEncoded(), LIMIT));
+        assertEquals(4, Asn1DepthScanner.measure(nest(3).getEncoded(ASN1Encoding.DER), LIMIT));
+    }
+
+    @Test
+    void followsIndefiniteLengthAndContinuesAfterEndOfContents() throws Exception {
+        // SEQUENCE(indef) { SEQUENCE(indef) { INTEGER }, SEQUENCE { SEQUENCE { INTEGER } } }
+        BERSequence ber = new BERSequence(new ASN1Encodable[] {
+                new BERSequence(new ASN1Integer(1)), nest(2)});
+        byte[] encoded = ber.getEncoded(ASN1Encoding.BER);
+        assertEquals((byte) 0x80, encoded[1]);
+
+        assertEquals(4, Asn1DepthScanner.measure(encoded, LIMIT));
+    }
+
+    @Test
+    void descendsIntoOctetStringsThatWrapASequence() throws Exception {
+        byte[] wrapped = new DEROctetString(nest(5)).getEncoded();
+        assertEquals(7, Asn1DepthScanner.measure(wrapped, LIMIT));
+
+        // nội dung không bắt đầu bằng SEQUENCE/SET là dữ liệu thô
+        byte[] opaque = new DEROctetString(new byte[] {0x02, 0x01, 0x01}).getEncoded();
+        assertEquals(1, Asn1DepthScanner.measure(opaque, LIMIT));
+    }
+
+    @Test
+    void skipsMultiByteTagNumbers() throws Exception {
+        byte[] encoded = new DERTaggedObject(true, 200, nest(2)).getEncoded();
+        assertEquals((byte) 0xbf, encoded[0]);
+        assertEquals((byte) 0x81, encoded[1]);
+
+        assertEquals(4, Asn1DepthScanner.measure(encoded, LIMIT));
+    }
+
+    @Test
+    void readsLongFormLengthsAndStopsOnOversizedLengthFields() {
+        byte[] longForm = {0x30, (byte) 0x82, 0x00, 0x03, 0x02, 0x01, 0x01};
+        assertEquals(2, Asn1DepthScanner.measure(longForm, LIMIT));
+
+        // 5 byte độ dài: để BouncyCastle báo lỗi, không duyệt tiếp
+        byte[] oversized = {0x30, (byte) 0x85, 0x00, 0x00, 0x00, 0x00, 0x03, 0x02, 0x01, 0x01};
+        assertEquals(1, Asn1DepthScanner.measure(oversized, LIMIT));
+    }
+
+    @Test
+    void stopsAtTheFirstLevelBeyondTheLimit() throws Exception {
+        // 100000 SEQUENCE độ dài không xác định lồng nhau, không có 00 00: phải dừng trước khi tràn stack
+        byte[] encoded = new byte[200_000];
+        for (int i = 0; i < encoded.length; i += 2) {
+            encoded[i] = 0x30;
+            encoded[i + 1] = (byte) 0x80;
+        }
+
+        assertEquals(9, Asn1DepthScanner.measure(encoded, 8));
+        assertEquals(9, Asn1DepthScanner.measure(nest(20).getEncoded(), 8));
+    }
+
+    private static ASN1Primitive nest(int levels) {
+        ASN1Primitive value = new ASN1Integer(1);
+        for (int i = 0; i < levels; i++) {
+            value = new DERSequence(value);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,106 @@
+package com.digitalsign.guard;
+
+import com.digitalsign.exception.BudgetExceededException;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VerificationBudgetTest {
+
+    static ResourceBudgets budgets(long maxInflatedBytes, int maxContainerEntries, Duration wallClock) {
+        ResourceBudgets budgets = new ResourceBudgets();
+        ReflectionTestUtils.setField(budgets, "maxSignatures", 4);
+        ReflectionTestUtils.setField(budgets, "maxInflatedBytes", maxInflatedBytes);
+        ReflectionTestUtils.setField(budgets, "maxAsn1Depth", 8);
+        ReflectionTestUtils.setField(budgets, "maxXmlEntityExpansions", 100);
+        ReflectionTestUtils.setField(budgets, "maxContainerEntries", maxContainerEntries);
+        ReflectionTestUtils.setField(budgets, "maxNestingDepth", 2);
+        ReflectionTestUtils.setField(budgets, "cpuTime", Duration.ofSeconds(10));
+        ReflectionTestUtils.setField(budgets, "wallClock", wallClock);
+        return budgets;
+    }
+
+    @Test
+    void childSharesInflatedBytesWithParent() throws Exception {
+        VerificationBudget parent = budgets(100, 10, Duration.ofSeconds(30)).newBudget();
+        parent.addInflatedBytes(60);
+
+        VerificationBudget child = CompletableFuture.supplyAsync(parent::child).get();
+        BudgetExceededException e = assertThrows(BudgetExceededException.class, () -> child.addInflatedBytes(50));
+        assertEquals(ResourceGuard.INFLATED_BYTES, e.getGuard());
+        assertEquals(0, parent.getRemainingInflatedBytes());
+    }
+
+    @Test
+    void childSharesContainerEntryCount() throws Exception {
+        VerificationBudget parent = budgets(100, 2, Duration.ofSeconds(30)).newBudget();
+        parent.addContainerEntry();
+        parent.child().addContainerEntry();
+
+        BudgetExceededException e = assertThrows(BudgetExceededException.class, parent::addContainerEntry);
+        assertEquals(ResourceGuard.CONTAINER_ENTRIES, e.getGuard());
+    }
+
+    @Test
+    void childKeepsTheParentsAbsoluteDeadline() throws Exception {
+        VerificationBudget parent = budgets(100, 10, Duration.ofMillis(50)).newBudget();
+        Thread.sleep(80);
+
+        VerificationBudget child = parent.child();
+        assertTrue(child.getRemainingWallClockNanos() < 0);
+        BudgetExceededException e = assertThrows(BudgetExceededException.class, child::checkDeadline);
+        assertEquals(ResourceGuard.WALL_CLOCK, e.getGuard());
+    }
+
+    @Test
+    void inflatedStreamStopsPastTheLimit() throws Exception {
+        ResourceBudgets budgets = budgets(100, 10, Duration.ofSeconds(30));
+        VerificationBudget budget = budgets.newBudget();
+
+        InputStream exact = budget.limitInflated(new ByteArrayInputStream(new byte[60]));
+        assertEquals(60, exact.readAllBytes().length);
+        assertEquals(40, budget.getRemainingInflatedBytes());
+
+        InputStream inflated = budget.limitInflated(new ByteArrayInputStream(new byte[200]));
+        IOException e = assertThrows(IOException.class, () -> inflated.read(new byte[64]));
+        BudgetExceededException cause = assertInstanceOf(BudgetExceededException.class, e.getCause());
+        assertEquals(ResourceGuard.INFLATED_BYTES, cause.getGuard());
+        assertEquals(1L, budgets.getTrippedCounts().get(ResourceGuard.INFLATED_BYTES));
+    }
+
+    @Test
+    void singleByteReadsAreCountedToo() throws Exception {
+        VerificationBudget budget = budgets(2, 10, Duration.ofSeconds(30)).newBudget();
+        InputStream inflated = budget.limitInflated(new ByteArrayInputStream(new byte[3]));
+        inflated.read();
+        inflated.read();
+
+        assertThrows(IOException.class, inflated::read);
+    }
+
+    @Test
+    void deepAsn1IsRejectedBeforeDecoding() {
+        VerificationBudget budget = budgets(100, 10, Duration.ofSeconds(30)).newBudget();
+        byte[] shallow = {0x30, 0x03, 0x02, 0x01, 0x01};
+        byte[] deep = new byte[40];
+        for (int i = 0; i < 20; i++) {
+            deep[i * 2] = 0x30;
+            deep[i * 2 + 1] = (byte) (38 - i * 2);
+        }
+
+        assertDoesNotThrow(() -> budget.checkAsn1Depth(shallow));
+        BudgetExceededException e = assertThrows(BudgetExceededException.class, () -> budget.checkAsn1Depth(deep));
+        assertEquals(ResourceGuard.ASN1_DEPTH, e.getGuard());
+    }
+}
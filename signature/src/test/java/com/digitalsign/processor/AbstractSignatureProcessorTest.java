@@ -0,0 +1,178 @@
+package com.digitalsign.processor;
+
+import com.digitalsign.TestCertificates;
+import com.digitalsign.TestCertificates.Issued;
+import com.digitalsign.diagnostics.VerificationTrace;
+import com.digitalsign.model.SignatureInfo;
+import com.digitalsign.model.VerificationMode;
+import com.digitalsign.model.VerificationStatus;
+import com.digitalsign.processor.detached.DetachedSignatureProcessor;
+import com.digitalsign.trust.TrustStoreSnapshot;
+import com.digitalsign.util.AlgorithmRegistry;
+import com.digitalsign.util.CertificateUtils;
+import com.digitalsign.util.CryptoUtils;
+import org.bouncycastle.asn1.ASN1EncodableVector;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.DERSet;
+import org.bouncycastle.asn1.cms.Attribute;
+import org.bouncycastle.asn1.cms.AttributeTable;
+import org.bouncycastle.asn1.cms.CMSAttributes;
+import org.bouncycastle.asn1.cms.CMSObjectIdentifiers;
+import org.bouncycastle.cert.jcajce.JcaCertStore;
+import org.bouncycastle.cms.CMSProcessableByteArray;
+import org.bouncycastle.cms.CMSSignedDataGenerator;
+import org.bouncycastle.cms.DefaultSignedAttributeTableGenerator;
+import org.bouncycastle.cms.jcajce.JcaSignerInfoGeneratorBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AbstractSignatureProcessorTest {
+    private static final byte[] CONTENT = "hop dong so 42".getBytes(StandardCharsets.UTF_8);
+
+    private DetachedSignatureProcessor processor;
+    private Issued root;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        processor = new DetachedSignatureProcessor();
+        ReflectionTestUtils.setField(processor, "algorithmRegistry", new AlgorithmRegistry());
+        ReflectionTestUtils.setField(processor, "cryptoUtils", new CryptoUtils());
+        CertificateUtils certificateUtils = new CertificateUtils();
+        ReflectionTestUtils.setField(certificateUtils, "cryptoUtils", new CryptoUtils());
+        ReflectionTestUtils.setField(processor, "certificateUtils", certificateUtils);
+        root = TestCertificates.rootCa("Root");
+    }
+
+    @Test
+    void acceptsValidDetachedSignature() throws Exception {
+        Issued signer = TestCertificates.endEntity("Signer", root);
+        byte[] signature = TestCertificates.signCms(CONTENT, signer, false);
+
+        assertEquals(VerificationStatus.VALID, verify(signature, CONTENT));
+    }
+
+    @Test
+    void acceptsValidEncapsulatedSignature() throws Exception {
+        Issued signer = TestCertificates.endEntity("Signer", root);
+        byte[] signature = TestCertificates.signCms(CONTENT, signer, true);
+
+        assertEquals(VerificationStatus.VALID, verify(signature, CONTENT));
+    }
+
+    @Test
+    void rejectsTamperedContentAtDigestCheck() throws Exception {
+        Issued signer = TestCertificates.endEntity("Signer", root);
+        byte[] signature = TestCertificates.signCms(CONTENT, signer, false);
+
+        byte[] tampered = CONTENT.clone();
+        tampered[0] ^= 1;
+        SignatureInfo sigInfo = verifyInfo(signature, tampered);
+        assertEquals(VerificationStatus.INVALID, sigInfo.getStatus());
+        assertEquals("Content digest does not match the signed messageDigest", sigInfo.getStatusMessage());
+    }
+
+    @Test
+    void rejectsSigningTimeOutsideCertificateValidity() throws Exception {
+        // chứng thư chỉ có hiệu lực từ ngày mai, signingTime mặc định là thời điểm ký
+        Instant notBefore = Instant.now().plus(Duration.ofDays(1));
+        Issued signer = TestCertificates.endEntity("Signer", root, notBefore, notBefore.plus(Duration.ofDays(30)));
+        byte[] signature = TestCertificates.signCms(CONTENT, signer, false);
+
+        assertEquals(VerificationStatus.INVALID, verify(signature, CONTENT));
+    }
+
+    @Test
+    void rejectsContentTypeAttributeNotMatchingEncapsulatedType() throws Exception {
+        Issued signer = TestCertificates.endEntity("Signer", root);
+        byte[] signature = signWithContentType(CONTENT, signer, CMSObjectIdentifiers.signedData.getId());
+
+        assertEquals(VerificationStatus.INVALID, verify(signature, CONTENT));
+    }
+
+    @Test
+    void cacheHitVerifiesWithoutDecodingTheSignatureAgain() throws Exception {
+        Issued signer = TestCertificates.endEntity("Signer", root);
+        byte[] signature = TestCertificates.signCms(CONTENT, signer, false);
+        // khoá cache trỏ tới byte không phải CMS: chỉ qua được nếu bước xác minh dùng lại bản đã giải mã
+        byte[] opaque = "not a CMS structure".getBytes(StandardCharsets.UTF_8);
+        ParsedSignatureCache cache = new ParsedSignatureCache();
+        ReflectionTestUtils.setField(cache, "maxEntries", 16);
+        ReflectionTestUtils.setField(cache, "maxBytes", 1_000_000L);
+        cache.getOrParse(opaque, data -> processor.parseSignature(signature));
+        ReflectionTestUtils.setField(processor, "parsedSignatureCache", cache);
+
+        VerificationContext context = new VerificationContext("test.p7s", VerificationMode.STATUS_ONLY,
+                new VerificationTrace("test", "test.p7s", opaque.length, VerificationMode.STATUS_ONLY),
+                TrustStoreSnapshot.unconfigured("acme"), null);
+        context.setOriginalContent(CONTENT);
+        SignatureInfo sigInfo = processor.processSignature(opaque, context, 0);
+
+        assertEquals(VerificationStatus.VALID, sigInfo.getStatus());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void statusOnlyStillCarriesTheCertificateSerialAndThumbprint() throws Exception {
+        Issued signer = TestCertificates.endEntity("Signer", root);
+        byte[] signature = TestCertificates.signCms(CONTENT, signer, false);
+        ParsedSignatureCache cache = new ParsedSignatureCache();
+        ReflectionTestUtils.setField(cache, "maxEntries", 16);
+        ReflectionTestUtils.setField(cache, "maxBytes", 1_000_000L);
+        cache.getOrParse(signature, processor::parseSignature);
+        ReflectionTestUtils.setField(processor, "parsedSignatureCache", cache);
+
+        VerificationContext context = new VerificationContext("test.p7s", VerificationMode.STATUS_ONLY,
+                new VerificationTrace("test", "test.p7s", signature.length, VerificationMode.STATUS_ONLY),
+                TrustStoreSnapshot.unconfigured("acme"), null);
+        context.setOriginalContent(CONTENT);
+        SignatureInfo sigInfo = processor.processSignature(signature, context, 0);
+
+        assertNull(sigInfo.getCertificate());
+        assertEquals(signer.getCertificate().getSerialNumber().toString(16).toUpperCase(),
+                sigInfo.getCertificateSerialNumber());
+        assertEquals(new CryptoUtils().getCertificateThumbPrint(signer.getCertificate()),
+                sigInfo.getCertificateThumbprint());
+    }
+
+    private VerificationStatus verify(byte[] signature, byte[] signedContent) throws Exception {
+        return verifyInfo(signature, signedContent).getStatus();
+    }
+
+    private SignatureInfo verifyInfo(byte[] signature, byte[] signedContent) throws Exception {
+        ParsedSignature parsed = processor.parseSignature(signature);
+        VerificationContext context = new VerificationContext("test.p7s", VerificationMode.FULL, null, null, null);
+        context.setOriginalContent(signedContent);
+
+        SignatureInfo sigInfo = new SignatureInfo();
+        processor.verifyCMSSignature(parsed, signedContent, context, sigInfo);
+        return sigInfo;
+    }
+
+    // thuộc tính contentType đặt sẵn được giữ nguyên thay vì lấy từ eContentType
+    private static byte[] signWithContentType(byte[] content, Issued signer, String contentTypeOid) throws Exception {
+        ASN1EncodableVector attributes = new ASN1EncodableVector();
+        attributes.add(new Attribute(CMSAttributes.contentType,
+                new DERSet(new ASN1ObjectIdentifier(contentTypeOid))));
+
+        CMSSignedDataGenerator generator = new CMSSignedDataGenerator();
+        generator.addSignerInfoGenerator(new JcaSignerInfoGeneratorBuilder(
+                new JcaDigestCalculatorProviderBuilder().setProvider("BC").build())
+                .setSignedAttributeGenerator(new DefaultSignedAttributeTableGenerator(new AttributeTable(attributes)))
+                .build(new JcaContentSignerBuilder("SHA256withECDSA").setProvider("BC").build(signer.getPrivateKey()),
+                        signer.getCertificate()));
+        generator.addCertificates(new JcaCertStore(List.of(signer.getCertificate())));
+        return generator.generate(new CMSProcessableByteArray(content), false).getEncoded();
+    }
+}
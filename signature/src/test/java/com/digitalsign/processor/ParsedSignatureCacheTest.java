@@ -0,0 +1,111 @@
+package com.digitalsign.processor;
+
+import com.digitalsign.TestCertificates;
+import com.digitalsign.TestCertificates.Issued;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ParsedSignatureCacheTest {
+    // mọi mục có cùng kích thước ước tính: 3 x 1000 byte DER
+    private static final int ENCODED_LENGTH = 1000;
+    private static final long ENTRY_SIZE = 3L * ENCODED_LENGTH;
+
+    private static Issued signer;
+    private static ParsedSignature template;
+
+    private ParsedSignatureCache cache;
+    private final List<byte[]> parsed = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        if (signer == null) {
+            signer = TestCertificates.endEntity("Signer", TestCertificates.rootCa("Root"));
+            template = ParsedSignatureTest.parse(signature("template"), signer);
+        }
+        cache = cache(3, 1_000_000);
+    }
+
+    @Test
+    void hitReturnsTheSameParseWithoutCallingTheParser() throws Exception {
+        byte[] signature = signature("a");
+        ParsedSignature first = cache.getOrParse(signature, this::parse);
+        // khoá là nội dung, không phải định danh mảng
+        ParsedSignature second = cache.getOrParse(signature.clone(), this::parse);
+
+        assertSame(first, second);
+        assertEquals(1, parsed.size());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntry() throws Exception {
+        byte[] a = signature("a");
+        byte[] b = signature("b");
+        byte[] c = signature("c");
+        ParsedSignature parsedA = cache.getOrParse(a, this::parse);
+        cache.getOrParse(b, this::parse);
+        cache.getOrParse(c, this::parse);
+        // a vừa được dùng nên b là mục cũ nhất
+        cache.getOrParse(a, this::parse);
+        cache.getOrParse(signature("d"), this::parse);
+
+        assertEquals(3, cache.size());
+        assertSame(parsedA, cache.getOrParse(a, this::parse));
+        cache.getOrParse(b, this::parse);
+        assertEquals(5, parsed.size());
+    }
+
+    @Test
+    void byteLimitEvictsAndOversizedEntriesAreNotCached() throws Exception {
+        byte[] a = signature("a");
+        cache = cache(100, ENTRY_SIZE * 2);
+
+        cache.getOrParse(a, this::parse);
+        cache.getOrParse(signature("b"), this::parse);
+        cache.getOrParse(signature("c"), this::parse);
+        assertEquals(2, cache.size());
+        assertEquals(ENTRY_SIZE * 2, cache.getCurrentBytes());
+
+        cache = cache(100, ENTRY_SIZE - 1);
+        cache.getOrParse(a, this::parse);
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getCurrentBytes());
+    }
+
+    @Test
+    void zeroEntriesDisablesTheCache() throws Exception {
+        cache = cache(0, 1_000_000);
+        byte[] a = signature("a");
+
+        assertNotSame(cache.getOrParse(a, this::parse), cache.getOrParse(a, this::parse));
+        assertEquals(0, cache.getMisses());
+        assertEquals(0, cache.size());
+    }
+
+    private ParsedSignature parse(byte[] signatureData) throws Exception {
+        parsed.add(signatureData);
+        return new ParsedSignature(null, template.getSigner(), template.getCertificateHolder(),
+                template.getCertificate(), List.of(), null, null, ENCODED_LENGTH);
+    }
+
+    private static byte[] signature(String content) throws Exception {
+        return TestCertificates.signCms(("document " + content).getBytes(StandardCharsets.UTF_8), signer, false);
+    }
+
+    private static ParsedSignatureCache cache(int maxEntries, long maxBytes) {
+        ParsedSignatureCache cache = new ParsedSignatureCache();
+        ReflectionTestUtils.setField(cache, "maxEntries", maxEntries);
+        ReflectionTestUtils.setField(cache, "maxBytes", maxBytes);
+        return cache;
+    }
+}
@@ -0,0 +1,63 @@
+package com.digitalsign.processor;
+
+import com.digitalsign.TestCertificates;
+import com.digitalsign.TestCertificates.Issued;
+import com.digitalsign.util.CryptoUtils;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cms.CMSSignedData;
+import org.bouncycastle.cms.SignerInformation;
+import org.bouncycastle.cms.jcajce.JcaSimpleSignerInfoVerifierBuilder;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParsedSignatureTest {
+    private static final byte[] CONTENT = "hop dong so 42".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void thumbprintIsComputedLazilyFromTheEmbeddedEncoding() throws Exception {
+        Issued signer = TestCertificates.endEntity("Signer", TestCertificates.rootCa("Root"));
+        ParsedSignature parsed = parse(TestCertificates.signCms(CONTENT, signer, true), signer);
+
+        assertNull(ReflectionTestUtils.getField(parsed, "certificateThumbprint"));
+        String thumbprint = parsed.getCertificateThumbprint();
+        assertEquals(new CryptoUtils().getCertificateThumbPrint(signer.getCertificate()), thumbprint);
+        assertSame(thumbprint, parsed.getCertificateThumbprint());
+    }
+
+    @Test
+    void eachCallerVerifiesItsOwnSignerCopy() throws Exception {
+        Issued signer = TestCertificates.endEntity("Signer", TestCertificates.rootCa("Root"));
+        ParsedSignature parsed = parse(TestCertificates.signCms(CONTENT, signer, true), signer);
+
+        SignerInformation first = parsed.getSigner();
+        assertNotSame(first, parsed.getSigner());
+        assertTrue(first.verify(new JcaSimpleSignerInfoVerifierBuilder().setProvider("BC")
+                .build(signer.getCertificate())));
+        assertNotNull(first.getContentDigest());
+
+        // digest của lần verify trước không lọt sang bản dùng chung
+        assertThrows(IllegalStateException.class, () -> parsed.getSigner().getContentDigest());
+        assertEquals(first.getSID(), parsed.getSigner().getSID());
+    }
+
+    static ParsedSignature parse(byte[] signature, Issued signer) throws Exception {
+        CMSSignedData signedData = new CMSSignedData(signature);
+        SignerInformation signerInfo = signedData.getSignerInfos().getSigners().iterator().next();
+        X509CertificateHolder holder = new X509CertificateHolder(signer.getCertificate().getEncoded());
+        byte[] encapsulated = signedData.getSignedContent() != null
+                ? (byte[]) signedData.getSignedContent().getContent() : null;
+        return new ParsedSignature(signedData.toASN1Structure(), signerInfo, holder, signer.getCertificate(), List.of(), null, encapsulated,
+                signature.length);
+    }
+}
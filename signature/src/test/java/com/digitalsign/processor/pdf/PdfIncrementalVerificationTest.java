@@ -0,0 +1,45 @@
+package com.digitalsign.processor.pdf;
+
+import com.digitalsign.model.SignatureVerificationResult;
+import com.digitalsign.model.VerificationMode;
+import com.digitalsign.model.VerificationStatus;
+import com.digitalsign.processor.ParsedSignatureCache;
+import com.digitalsign.trust.TrustStoreSnapshot;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class PdfIncrementalVerificationTest {
+    // hash do service truyền vào, cố ý khác SHA-256 thật để thấy processor không tự băm lại cả file
+    private static final String FILE_HASH = "00".repeat(32);
+
+    @Autowired
+    private PdfSignatureProcessor processor;
+
+    @Autowired
+    private ParsedSignatureCache parsedSignatureCache;
+
+    @Test
+    void revisionIsStoredAndReusedUnderTheFileHashFromTheService() throws Exception {
+        byte[] content = new ClassPathResource("warm-up/ecdsa.pdf").getContentAsByteArray();
+        TrustStoreSnapshot trustStore = TrustStoreSnapshot.unconfigured("acme");
+
+        SignatureVerificationResult first = processor.verifySignatures(content, "ecdsa.pdf", VerificationMode.FULL,
+                trustStore, FILE_HASH);
+        assertEquals(VerificationStatus.VALID, first.getOverallStatus());
+        assertEquals(FILE_HASH, first.getFileHash());
+
+        // lần hai chỉ tìm thấy revision đã lưu nếu khoá vẫn là hash được truyền vào: không giải mã lại chữ ký
+        parsedSignatureCache.clear();
+        long misses = parsedSignatureCache.getMisses();
+        SignatureVerificationResult second = processor.verifySignatures(content, "ecdsa.pdf", VerificationMode.FULL,
+                trustStore, FILE_HASH);
+        assertEquals(VerificationStatus.VALID, second.getOverallStatus());
+        assertEquals(FILE_HASH, second.getFileHash());
+        assertEquals(misses, parsedSignatureCache.getMisses());
+    }
+}
@@ -0,0 +1,63 @@
+package com.digitalsign.processor.pdf;
+
+import com.digitalsign.model.SignatureInfo;
+import com.digitalsign.model.VerificationStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PdfSignatureProcessorTest {
+    private final PdfSignatureProcessor processor = new PdfSignatureProcessor();
+
+    @Test
+    void statusOnlyResultWithExpiredCertificateBecomesInvalid() {
+        // STATUS_ONLY: kết quả không có CertificateInfo, hạn chứng thư lấy từ VerifiedRevision
+        SignatureInfo signature = signature(VerificationStatus.VALID);
+
+        assertTrue(processor.revalidate(signature, Instant.now().minus(Duration.ofDays(1))));
+        assertEquals(VerificationStatus.INVALID, signature.getStatus());
+    }
+
+    @Test
+    void validResultWithUnexpiredCertificateIsReused() {
+        SignatureInfo signature = signature(VerificationStatus.VALID);
+
+        assertTrue(processor.revalidate(signature, Instant.now().plus(Duration.ofDays(1))));
+        assertEquals(VerificationStatus.VALID, signature.getStatus());
+    }
+
+    @Test
+    void validResultWithoutKnownExpiryIsNotReused() {
+        assertFalse(processor.revalidate(signature(VerificationStatus.VALID), null));
+    }
+
+    @Test
+    void failedResultIsReusedWithoutExpiry() {
+        assertTrue(processor.revalidate(signature(VerificationStatus.INVALID), null));
+    }
+
+    @Test
+    void revisionKeepsExpiryThroughTheRemoteCacheEncoding() throws Exception {
+        Instant validTo = Instant.parse("2030-01-01T00:00:00Z");
+        VerifiedRevision revision = new VerifiedRevision();
+        revision.getSignatures().put("0:100:200:300", signature(VerificationStatus.VALID));
+        revision.getValidTo().put("0:100:200:300", validTo);
+
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        VerifiedRevision decoded = objectMapper.readValue(objectMapper.writeValueAsBytes(revision),
+                VerifiedRevision.class);
+        assertEquals(validTo, decoded.getValidTo().get("0:100:200:300"));
+    }
+
+    private static SignatureInfo signature(VerificationStatus status) {
+        SignatureInfo signature = new SignatureInfo();
+        signature.setStatus(status);
+        return signature;
+    }
+}
@@ -0,0 +1,108 @@
+package com.digitalsign.service;
+
+import com.digitalsign.exception.AdmissionRejectedException;
+import com.digitalsign.model.VerificationLane;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AdmissionControllerTest {
+    private AdmissionController admission;
+
+    @BeforeEach
+    void setUp() {
+        admission = new AdmissionController();
+        ReflectionTestUtils.setField(admission, "bytesPerMicro", 200L);
+        ReflectionTestUtils.setField(admission, "perSignatureMicros", 2000L);
+        ReflectionTestUtils.setField(admission, "maxInflatedBytes", 1_000_000L);
+        ReflectionTestUtils.setField(admission, "interactiveMaxCostMicros", 50_000L);
+        // 2 thread x 10 ms = 20 000 us ngân sách chờ cho mỗi luồng
+        ReflectionTestUtils.setField(admission, "interactiveExecutor", executor(2));
+        ReflectionTestUtils.setField(admission, "bulkExecutor", executor(2));
+        ReflectionTestUtils.setField(admission, "interactiveMaxQueueDelayMillis", 10L);
+        ReflectionTestUtils.setField(admission, "bulkMaxQueueDelayMillis", 10L);
+    }
+
+    @Test
+    void shedsWhenPendingCostWouldExceedTheLaneCapacity() throws Exception {
+        assertEquals(20_000, admission.capacity(VerificationLane.INTERACTIVE));
+        admission.admit(VerificationLane.INTERACTIVE, 15_000);
+
+        assertThrows(AdmissionRejectedException.class, () -> admission.admit(VerificationLane.INTERACTIVE, 6_000));
+        assertEquals(15_000, admission.getPendingCost(VerificationLane.INTERACTIVE));
+        // luồng bulk có ngân sách riêng
+        admission.admit(VerificationLane.BULK, 6_000);
+
+        admission.release(VerificationLane.INTERACTIVE, 15_000);
+        admission.admit(VerificationLane.INTERACTIVE, 6_000);
+        assertEquals(6_000, admission.getPendingCost(VerificationLane.INTERACTIVE));
+    }
+
+    @Test
+    void idleLaneAcceptsAFileLargerThanItsBudget() throws Exception {
+        admission.admit(VerificationLane.BULK, 1_000_000);
+        assertEquals(1_000_000, admission.getPendingCost(VerificationLane.BULK));
+
+        assertThrows(AdmissionRejectedException.class, () -> admission.admit(VerificationLane.BULK, 1));
+    }
+
+    @Test
+    void expensiveOrBulkRequestsUseTheBulkLane() {
+        assertEquals(VerificationLane.INTERACTIVE, admission.selectLane(VerificationLane.INTERACTIVE, 50_000));
+        assertEquals(VerificationLane.BULK, admission.selectLane(VerificationLane.INTERACTIVE, 50_001));
+        assertEquals(VerificationLane.BULK, admission.selectLane(VerificationLane.BULK, 1));
+    }
+
+    @Test
+    void zipCostCountsDeclaredInflatedSizeAndEntries() throws Exception {
+        // 400 KB số 0 nén còn vài trăm byte
+        byte[] zip = zip(new byte[400_000], new byte[400_000], new byte[10]);
+
+        assertArrayEquals(new long[]{3, 800_010}, admission.scanCentralDirectory(zip));
+        assertEquals((zip.length + 800_010) / 200 + 3 * 2000, admission.estimateCost(zip, "batch.zip"));
+    }
+
+    @Test
+    void zipInflatedSizeIsCappedByTheLimit() throws Exception {
+        byte[] zip = zip(new byte[900_000], new byte[900_000]);
+
+        assertEquals((zip.length + 1_000_000) / 200 + 2 * 2000, admission.estimateCost(zip, "bomb.zip"));
+    }
+
+    @Test
+    void truncatedZipHasNoCentralDirectory() throws Exception {
+        byte[] zip = zip(new byte[1000]);
+        byte[] truncated = new byte[zip.length / 2];
+        System.arraycopy(zip, 0, truncated, 0, truncated.length);
+
+        assertNull(admission.scanCentralDirectory(truncated));
+    }
+
+    private static ThreadPoolExecutor executor(int threads) {
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+    }
+
+    private static byte[] zip(byte[]... entries) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (int i = 0; i < entries.length; i++) {
+                zip.putNextEntry(new ZipEntry("entry-" + i + ".bin"));
+                zip.write(entries[i]);
+                zip.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,153 @@
+package com.digitalsign.service.impl;
+
+import com.digitalsign.audit.VerificationAuditLog;
+import com.digitalsign.cache.InMemoryRemoteCacheStore;
+import com.digitalsign.cache.VerificationCache;
+import com.digitalsign.exception.VerificationTimeoutException;
+import com.digitalsign.model.SignatureVerificationResult;
+import com.digitalsign.model.VerificationLane;
+import com.digitalsign.model.VerificationMode;
+import com.digitalsign.model.VerificationStatus;
+import com.digitalsign.processor.SignatureProcessor;
+import com.digitalsign.service.AdmissionController;
+import com.digitalsign.trust.TrustStoreRegistry;
+import com.digitalsign.trust.TrustStoreSnapshot;
+import com.digitalsign.util.CryptoUtils;
+import com.digitalsign.util.UploadedContent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.pdfbox.util.filetypedetector.FileType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SignatureVerificationServiceImplTest {
+    private static final byte[] CONTENT = "tai lieu".getBytes(StandardCharsets.UTF_8);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ThreadPoolExecutor interactive;
+    private ThreadPoolExecutor bulk;
+    private AdmissionController admissionController;
+    private SignatureVerificationServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        interactive = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>(4));
+        bulk = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>(4));
+        admissionController = new AdmissionController();
+        ReflectionTestUtils.setField(admissionController, "interactiveExecutor", interactive);
+        ReflectionTestUtils.setField(admissionController, "bulkExecutor", bulk);
+        ReflectionTestUtils.setField(admissionController, "bytesPerMicro", 200L);
+        ReflectionTestUtils.setField(admissionController, "perSignatureMicros", 2000L);
+        ReflectionTestUtils.setField(admissionController, "interactiveMaxCostMicros", 500_000L);
+        ReflectionTestUtils.setField(admissionController, "maxInflatedBytes", 1_000_000L);
+        ReflectionTestUtils.setField(admissionController, "interactiveMaxQueueDelayMillis", 2000L);
+        ReflectionTestUtils.setField(admissionController, "bulkMaxQueueDelayMillis", 2000L);
+
+        VerificationCache verificationCache = new VerificationCache();
+        ReflectionTestUtils.setField(verificationCache, "remoteCacheStore", new InMemoryRemoteCacheStore());
+        ReflectionTestUtils.setField(verificationCache, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(verificationCache, "enabled", true);
+        ReflectionTestUtils.setField(verificationCache, "nodeId", "node");
+        ReflectionTestUtils.setField(verificationCache, "nearMaxEntries", 16);
+        ReflectionTestUtils.setField(verificationCache, "nearMaxPartitions", 4);
+        ReflectionTestUtils.setField(verificationCache, "resultsTtl", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(verificationCache, "certificatesTtl", Duration.ofMinutes(1));
+        ReflectionTestUtils.invokeMethod(verificationCache, "init");
+
+        service = new SignatureVerificationServiceImpl();
+        ReflectionTestUtils.setField(service, "processors", List.of(new BlockingProcessor()));
+        ReflectionTestUtils.setField(service, "admissionController", admissionController);
+        ReflectionTestUtils.setField(service, "verificationCache", verificationCache);
+        ReflectionTestUtils.setField(service, "cryptoUtils", new CryptoUtils());
+        ReflectionTestUtils.setField(service, "auditLog", new VerificationAuditLog());
+        ReflectionTestUtils.setField(service, "trustStoreRegistry", new TrustStoreRegistry());
+        ReflectionTestUtils.setField(service, "verificationTimeout", Duration.ofMillis(100));
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        interactive.shutdownNow();
+        bulk.shutdownNow();
+    }
+
+    @Test
+    void synchronousVerifyGivesUpAfterTheTimeout() {
+        assertThrows(VerificationTimeoutException.class,
+                () -> service.verify(CONTENT, "a.bin", VerificationMode.FULL, null));
+    }
+
+    @Test
+    void asyncVerifyFailsTheFutureWithoutBlockingTheCaller() throws Exception {
+        CompletableFuture<SignatureVerificationResult> future;
+        try (UploadedContent content = UploadedContent.inMemory("a.bin", CONTENT)) {
+            future = service.verifyAsync(content, VerificationMode.FULL, null);
+        }
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(VerificationTimeoutException.class, e.getCause());
+
+        // công việc đã nhận chạy tiếp và trả lại chi phí đã giữ khi kết thúc
+        release.countDown();
+        interactive.shutdown();
+        interactive.awaitTermination(5, TimeUnit.SECONDS);
+        assertEquals(0, admissionController.getPendingCost(VerificationLane.INTERACTIVE));
+    }
+
+    @Test
+    void finishedResultIsReturnedAndCached() throws Exception {
+        ReflectionTestUtils.setField(service, "verificationTimeout", Duration.ofSeconds(5));
+        release.countDown();
+        SignatureVerificationResult result = service.verify(CONTENT, "a.bin", VerificationMode.FULL, null);
+        assertEquals(VerificationStatus.VALID, result.getOverallStatus());
+
+        CompletableFuture<SignatureVerificationResult> cached;
+        try (UploadedContent content = UploadedContent.inMemory("b.bin", CONTENT)) {
+            cached = service.verifyAsync(content, VerificationMode.FULL, null);
+        }
+        assertEquals("b.bin", cached.getNow(null).getFileName());
+    }
+
+    // chờ tín hiệu của test trước khi trả kết quả
+    private final class BlockingProcessor implements SignatureProcessor {
+        @Override
+        public SignatureVerificationResult verifySignatures(byte[] fileContent, String fileName, VerificationMode mode,
+                                                            TrustStoreSnapshot trustStore) throws Exception {
+            release.await();
+            SignatureVerificationResult result = new SignatureVerificationResult(fileName, "application/octet-stream");
+            result.setOverallStatus(VerificationStatus.VALID);
+            return result;
+        }
+
+        @Override
+        public boolean supports(FileType fileType) {
+            return true;
+        }
+
+        @Override
+        public String getProcessorName() {
+            return "blocking";
+        }
+
+        @Override
+        public boolean validateFileFormat(ByteBuffer fileContent, String fileName) {
+            return true;
+        }
+    }
+}
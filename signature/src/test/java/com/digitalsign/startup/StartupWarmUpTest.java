@@ -0,0 +1,37 @@
+package com.digitalsign.startup;
+
+import com.digitalsign.diagnostics.SlowVerificationRecorder;
+import com.digitalsign.processor.ParsedSignatureCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// warm-up chạy trong ApplicationRunner: file mẫu nào không VALID thì context không khởi động được
+@SpringBootTest(properties = {
+        "signature.startup.warm-up.enabled=true",
+        "signature.startup.warm-up.iterations=3",
+        "signature.diagnostics.slow.threshold=PT0S"
+})
+class StartupWarmUpTest {
+    @Autowired
+    private StartupTimings startupTimings;
+
+    @Autowired
+    private ParsedSignatureCache parsedSignatureCache;
+
+    @Autowired
+    private SlowVerificationRecorder slowVerifications;
+
+    @Test
+    void verifiesTheBundledFixturesWithoutLeavingState() {
+        assertTrue(startupTimings.getWarmUpMillis() >= 0);
+        assertEquals(-1, startupTimings.getFirstVerificationMillis());
+        assertEquals(0, parsedSignatureCache.size());
+        // ba file CMS được giải mã lại ở mỗi vòng
+        assertTrue(parsedSignatureCache.getMisses() >= 3 * 3);
+        assertTrue(slowVerifications.snapshot(10).isEmpty());
+    }
+}
@@ -0,0 +1,143 @@
+package com.digitalsign.stream;
+
+import com.digitalsign.TestCertificates;
+import com.digitalsign.TestCertificates.Issued;
+import com.digitalsign.model.VerificationMode;
+import com.digitalsign.service.SignatureVerificationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * So sánh thông lượng: nhiều file CMS nhỏ qua một phiên streaming trong process so với các lần gọi REST multipart
+ * tuần tự. Không chạy mặc định:
+ * {@code mvn -o test -Dtest=StreamingVerificationBenchmark -Dbenchmark=true [-Dbenchmark.documents=400]}
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class StreamingVerificationBenchmark {
+    private static final int WINDOW = 8;
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    @Autowired
+    private SignatureVerificationService signatureVerificationService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private StreamBufferBudget bufferBudget;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void streamingVersusRest() throws Exception {
+        int count = Integer.getInteger("benchmark.documents", 400);
+        Issued signer = TestCertificates.endEntity("Benchmark signer", TestCertificates.rootCa("Benchmark root"));
+        // nội dung khác nhau cho mỗi lượt để cache kết quả không ảnh hưởng
+        List<byte[]> warmUp = documents(signer, "warm-up", 50);
+        List<byte[]> streamed = documents(signer, "stream", count);
+        List<byte[]> posted = documents(signer, "rest", count);
+
+        stream(warmUp);
+        rest(warmUp);
+
+        long start = System.nanoTime();
+        stream(streamed);
+        long streamNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        rest(posted);
+        long restNanos = System.nanoTime() - start;
+
+        System.out.printf("%d documents: stream (window %d) %d ms, REST sequential %d ms%n", count, WINDOW,
+                TimeUnit.NANOSECONDS.toMillis(streamNanos), TimeUnit.NANOSECONDS.toMillis(restNanos));
+    }
+
+    private void stream(List<byte[]> documents) throws Exception {
+        Semaphore credits = new Semaphore(0);
+        CountDownLatch results = new CountDownLatch(documents.size());
+        StreamingVerificationSession session = new StreamingVerificationSession(signatureVerificationService,
+                objectMapper, new LatchSink(credits, results), bufferBudget, null, WINDOW, Integer.MAX_VALUE);
+        session.start();
+
+        // onFrame chỉ được gọi từ luồng này, giống luồng đọc của WebSocket
+        for (int i = 0; i < documents.size(); i++) {
+            byte[] document = documents.get(i);
+            credits.acquire();
+            session.onFrame(StreamFrames.open(i + 1, "doc-" + i + ".p7s", VerificationMode.STATUS_ONLY,
+                    document.length));
+            for (int offset = 0; offset < document.length; offset += CHUNK_SIZE) {
+                session.onFrame(StreamFrames.chunk(i + 1, document, offset,
+                        Math.min(CHUNK_SIZE, document.length - offset)));
+            }
+            session.onFrame(StreamFrames.end(i + 1));
+        }
+        assertTrue(results.await(5, TimeUnit.MINUTES));
+        session.close();
+    }
+
+    private void rest(List<byte[]> documents) throws Exception {
+        for (int i = 0; i < documents.size(); i++) {
+            mockMvc.perform(multipart("/api/signatures/verify")
+                            .file(new MockMultipartFile("file", "doc-" + i + ".p7s", "application/pkcs7-signature",
+                                    documents.get(i)))
+                            .param("mode", VerificationMode.STATUS_ONLY.name()))
+                    .andExpect(status().isOk());
+        }
+    }
+
+    private static List<byte[]> documents(Issued signer, String prefix, int count) throws Exception {
+        List<byte[]> documents = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] content = (prefix + " document " + i).getBytes(StandardCharsets.UTF_8);
+            documents.add(TestCertificates.signCms(content, signer, true));
+        }
+        return documents;
+    }
+
+    private static final class LatchSink implements StreamingVerificationSession.FrameSink {
+        private final Semaphore credits;
+        private final CountDownLatch results;
+
+        private LatchSink(Semaphore credits, CountDownLatch results) {
+            this.credits = credits;
+            this.results = results;
+        }
+
+        @Override
+        public void send(ByteBuffer frame, Consumer<Throwable> callback) {
+            StreamFrameType type = StreamFrameType.fromCode(frame.get(0));
+            if (type == StreamFrameType.CREDIT) {
+                credits.release(frame.getInt(StreamFrames.HEADER_SIZE));
+            } else {
+                results.countDown();
+            }
+            callback.accept(null);
+        }
+
+        @Override
+        public void close(String reason) {
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package com.digitalsign.stream;
+
+import com.digitalsign.model.SignatureVerificationResult;
+import com.digitalsign.model.VerificationLane;
+import com.digitalsign.model.VerificationMode;
+import com.digitalsign.model.VerificationStatus;
+import com.digitalsign.service.SignatureVerificationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingVerificationSessionTest {
+    private static final int WINDOW = 2;
+
+    private RecordingSink sink;
+    private RecordingService service;
+    private StreamBufferBudget bufferBudget;
+    private StreamingVerificationSession session;
+
+    @BeforeEach
+    void setUp() {
+        sink = new RecordingSink();
+        service = new RecordingService();
+        bufferBudget = new StreamBufferBudget();
+        ReflectionTestUtils.setField(bufferBudget, "maxBufferedBytes", 1024L);
+        session = new StreamingVerificationSession(service, new ObjectMapper().findAndRegisterModules(), sink,
+                bufferBudget, "tenant-a", WINDOW, 1024);
+        session.start();
+    }
+
+    @Test
+    void grantsTheWindowOnStart() {
+        assertEquals(List.of("CREDIT 0 2"), sink.describe());
+    }
+
+    @Test
+    void verifiesChunkedDocumentAndReturnsTheCredit() throws Exception {
+        byte[] content = "chunked document".getBytes(StandardCharsets.UTF_8);
+        session.onFrame(StreamFrames.open(7, "a.p7s", VerificationMode.STATUS_ONLY));
+        session.onFrame(StreamFrames.chunk(7, content, 0, 7));
+        session.onFrame(StreamFrames.chunk(7, content, 7, content.length - 7));
+        session.onFrame(StreamFrames.end(7));
+
+        assertArrayEquals(content, service.contents.get(0));
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content)),
+                service.hashes.get(0));
+        assertEquals(List.of("CREDIT 0 2"), sink.describe());
+
+        service.futures.get(0).complete(result("a.p7s"));
+        assertEquals(List.of("CREDIT 0 2", "RESULT 7", "CREDIT 0 1"), sink.describe());
+        assertEquals(0, session.getInFlight());
+        assertEquals(0, bufferBudget.getReservedBytes());
+    }
+
+    @Test
+    void declaredLengthIsAllocatedOnceAndPassedWithoutCopy() {
+        byte[] content = new byte[100];
+        session.onFrame(StreamFrames.open(1, "a.pdf", VerificationMode.FULL, content.length));
+        assertEquals(100, bufferBudget.getReservedBytes());
+
+        session.onFrame(StreamFrames.chunk(1, content, 0, content.length));
+        session.onFrame(StreamFrames.end(1));
+        assertEquals(100, service.contents.get(0).length);
+        assertEquals(100, bufferBudget.getReservedBytes());
+
+        service.futures.get(0).complete(result("a.pdf"));
+        assertEquals(0, bufferBudget.getReservedBytes());
+    }
+
+    @Test
+    void chunkBeyondDeclaredLengthFailsOnlyThatStream() {
+        session.onFrame(StreamFrames.open(1, "a.pdf", VerificationMode.FULL, 4));
+        session.onFrame(StreamFrames.chunk(1, new byte[8], 0, 8));
+
+        assertEquals(List.of("CREDIT 0 2", "ERROR 1 LENGTH_MISMATCH", "CREDIT 0 1"), sink.describe());
+        assertNull(sink.closeReason);
+        assertEquals(0, bufferBudget.getReservedBytes());
+    }
+
+    @Test
+    void openBeyondTheGlobalBufferBudgetIsRejectedAsBusy() {
+        session.onFrame(StreamFrames.open(1, "a.pdf", VerificationMode.FULL, 500));
+        session.onFrame(StreamFrames.open(2, "b.pdf", VerificationMode.FULL, 600));
+
+        assertEquals(List.of("CREDIT 0 2", "ERROR 2 SERVER_BUSY", "CREDIT 0 1"), sink.describe());
+        assertEquals(500, bufferBudget.getReservedBytes());
+        assertEquals(1, session.getOpenDocuments());
+    }
+
+    @Test
+    void openingPastTheWindowIsAProtocolError() {
+        session.onFrame(StreamFrames.open(1, "a.pdf", VerificationMode.FULL, 10));
+        session.onFrame(StreamFrames.open(2, "b.pdf", VerificationMode.FULL, 10));
+        session.onFrame(StreamFrames.open(3, "c.pdf", VerificationMode.FULL, 10));
+
+        assertEquals(List.of("CREDIT 0 2", "ERROR 3 PROTOCOL_ERROR"), sink.describe());
+        assertTrue(sink.closeReason.contains("window"));
+        assertEquals(0, bufferBudget.getReservedBytes());
+
+        // frame sau lỗi giao thức bị bỏ qua
+        session.onFrame(StreamFrames.end(1));
+        assertTrue(service.contents.isEmpty());
+    }
+
+    @Test
+    void cancelReturnsTheCreditAndBufferWithoutVerifying() {
+        session.onFrame(StreamFrames.open(1, "a.pdf", VerificationMode.FULL));
+        session.onFrame(StreamFrames.chunk(1, new byte[300], 0, 300));
+        assertTrue(bufferBudget.getReservedBytes() >= 300);
+
+        session.onFrame(StreamFrames.cancel(1));
+        assertEquals(List.of("CREDIT 0 2", "CREDIT 0 1"), sink.describe());
+        assertEquals(0, bufferBudget.getReservedBytes());
+        assertTrue(service.contents.isEmpty());
+    }
+
+    @Test
+    void resultsAreQueuedWhileAFrameIsStillBeingSent() {
+        sink.completeImmediately = false;
+        session.onFrame(StreamFrames.open(1, "a.pdf", VerificationMode.FULL));
+        session.onFrame(StreamFrames.end(1));
+
+        // RESULT vẫn đang gửi: CREDIT chỉ vào hàng đợi, worker hoàn tất mà không bị chặn
+        service.futures.get(0).complete(result("a.pdf"));
+        assertEquals(List.of("CREDIT 0 2", "RESULT 1"), sink.describe());
+
+        sink.completePending(null);
+        assertEquals(List.of("CREDIT 0 2", "RESULT 1", "CREDIT 0 1"), sink.describe());
+    }
+
+    @Test
+    void failedSendClosesTheSession() {
+        sink.completeImmediately = false;
+        session.onFrame(StreamFrames.open(1, "a.pdf", VerificationMode.FULL, 10));
+        session.onFrame(StreamFrames.open(2, "b.pdf", VerificationMode.FULL));
+        session.onFrame(StreamFrames.end(2));
+        service.futures.get(0).complete(result("b.pdf"));
+        sink.completePending(new IOException("send timed out"));
+
+        assertEquals("Result frame could not be delivered", sink.closeReason);
+        assertEquals(0, bufferBudget.getReservedBytes());
+        session.onFrame(StreamFrames.end(1));
+        assertEquals(1, service.contents.size());
+    }
+
+    @Test
+    void sendFailureWhileAChunkIsArrivingReleasesEveryBuffer() throws Exception {
+        PausingBudget budget = new PausingBudget();
+        ReflectionTestUtils.setField(budget, "maxBufferedBytes", 1L << 30);
+        FailingSink failingSink = new FailingSink();
+        StreamingVerificationSession streaming = new StreamingVerificationSession(service, new ObjectMapper(),
+                failingSink, budget, "tenant-a", WINDOW, 1 << 24);
+        // CREDIT ban đầu còn treo: callback lỗi của nó đóng phiên trên luồng khác
+        streaming.start();
+        streaming.onFrame(StreamFrames.open(1, "a.pdf", VerificationMode.FULL));
+        streaming.onFrame(StreamFrames.open(2, "b.pdf", VerificationMode.FULL));
+        streaming.onFrame(StreamFrames.chunk(2, new byte[512], 0, 512));
+
+        // chunk đầu của stream 1 dừng lại giữa lúc giữ chỗ bộ đệm, đúng lúc gửi thất bại
+        budget.pauseNextReserve();
+        AtomicReference<Throwable> frameError = new AtomicReference<>();
+        Thread frames = new Thread(() -> streaming.onFrame(StreamFrames.chunk(1, new byte[512], 0, 512)));
+        frames.setUncaughtExceptionHandler((thread, e) -> frameError.set(e));
+        frames.start();
+        budget.reserving.await();
+
+        Thread closer = new Thread(() -> {
+            failingSink.fail(new IOException("client went away"));
+            budget.resume.countDown();
+        });
+        closer.start();
+        frames.join();
+        closer.join();
+
+        assertNull(frameError.get());
+        assertEquals("Result frame could not be delivered", failingSink.closeReason);
+        assertEquals(0, streaming.getOpenDocuments());
+        assertEquals(0, budget.getReservedBytes());
+
+        // đóng lần nữa (onClose sau callback lỗi) không trả lại phần giữ chỗ lần thứ hai
+        streaming.close();
+        assertEquals(0, budget.getReservedBytes());
+    }
+
+    private static SignatureVerificationResult result(String fileName) {
+        SignatureVerificationResult result = new SignatureVerificationResult(fileName, "application/pdf");
+        result.setOverallStatus(VerificationStatus.VALID);
+        return result;
+    }
+
+    private static final class RecordingSink implements StreamingVerificationSession.FrameSink {
+        private final List<ByteBuffer> frames = new ArrayList<>();
+        private final List<Consumer<Throwable>> pending = new ArrayList<>();
+        private boolean completeImmediately = true;
+        private String closeReason;
+
+        @Override
+        public void send(ByteBuffer frame, Consumer<Throwable> callback) {
+            frames.add(frame);
+            if (completeImmediately) {
+                callback.accept(null);
+            } else {
+                pending.add(callback);
+            }
+        }
+
+        @Override
+        public void close(String reason) {
+            closeReason = reason;
+        }
+
+        void completePending(Throwable error) {
+            pending.remove(0).accept(error);
+        }
+
+        List<String> describe() {
+            List<String> described = new ArrayList<>();
+            for (ByteBuffer frame : frames) {
+                ByteBuffer view = frame.duplicate();
+                StreamFrameType type = StreamFrameType.fromCode(view.get());
+                int streamId = view.getInt();
+                String text = type + " " + streamId;
+                if (type == StreamFrameType.CREDIT) {
+                    text += " " + view.getInt();
+                } else if (type == StreamFrameType.ERROR) {
+                    text += " " + StreamFrames.readString(view);
+                }
+                described.add(text);
+            }
+            return described;
+        }
+    }
+
+    private static final class PausingBudget extends StreamBufferBudget {
+        private final CountDownLatch reserving = new CountDownLatch(1);
+        private final CountDownLatch resume = new CountDownLatch(1);
+        private volatile boolean pause;
+
+        void pauseNextReserve() {
+            pause = true;
+        }
+
+        @Override
+        public boolean tryReserve(long bytes) {
+            if (pause) {
+                pause = false;
+                reserving.countDown();
+                try {
+                    // phiên đúng phải chặn close() cho tới khi chunk xong, nên chỉ chờ có giới hạn
+                    resume.await(500, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return super.tryReserve(bytes);
+        }
+    }
+
+    private static final class FailingSink implements StreamingVerificationSession.FrameSink {
+        private volatile Consumer<Throwable> pending;
+        private volatile String closeReason;
+
+        @Override
+        public void send(ByteBuffer frame, Consumer<Throwable> callback) {
+            pending = callback;
+        }
+
+        @Override
+        public void close(String reason) {
+            closeReason = reason;
+        }
+
+        void fail(Throwable error) {
+            pending.accept(error);
+        }
+    }
+
+    private static final class RecordingService implements SignatureVerificationService {
+        private final List<byte[]> contents = new ArrayList<>();
+        private final List<String> hashes = new ArrayList<>();
+        private final List<CompletableFuture<SignatureVerificationResult>> futures = new ArrayList<>();
+
+        @Override
+        public SignatureVerificationResult verify(byte[] content, String fileName, VerificationMode mode,
+                                                  String tenantId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<SignatureVerificationResult> submit(byte[] content, String fileName,
+                                                                     VerificationMode mode, VerificationLane lane,
+                                                                     String tenantId, String fileHash) {
+            assertEquals(VerificationLane.BULK, lane);
+            assertEquals("tenant-a", tenantId);
+            contents.add(content);
+            hashes.add(fileHash);
+            CompletableFuture<SignatureVerificationResult> future = new CompletableFuture<>();
+            futures.add(future);
+            return future;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.digitalsign.trust;
+
+import com.digitalsign.TestCertificates;
+import com.digitalsign.cache.InMemoryRemoteCacheStore;
+import com.digitalsign.cache.VerificationCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrustStoreRegistryTest {
+    private TrustStoreRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        VerificationCache cache = new VerificationCache();
+        ReflectionTestUtils.setField(cache, "remoteCacheStore", new InMemoryRemoteCacheStore());
+        ReflectionTestUtils.setField(cache, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "nodeId", "node");
+        ReflectionTestUtils.setField(cache, "nearMaxEntries", 16);
+        ReflectionTestUtils.setField(cache, "nearMaxPartitions", 4);
+        ReflectionTestUtils.setField(cache, "resultsTtl", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(cache, "certificatesTtl", Duration.ofMinutes(1));
+        ReflectionTestUtils.invokeMethod(cache, "init");
+
+        registry = new TrustStoreRegistry();
+        ReflectionTestUtils.setField(registry, "verificationCache", cache);
+    }
+
+    @Test
+    void withoutTrustDirectoryEveryTenantSharesTheUnconfiguredSnapshot() {
+        ReflectionTestUtils.setField(registry, "directory", "");
+
+        TrustStoreSnapshot snapshot = registry.getSnapshot("made-up");
+        assertFalse(snapshot.isConfigured());
+        assertEquals(TrustStoreRegistry.DEFAULT_TENANT, snapshot.getTenantId());
+        assertSame(snapshot, registry.getSnapshot("another-made-up"));
+    }
+
+    @Test
+    void knownTenantGetsItsOwnSnapshot() throws Exception {
+        ReflectionTestUtils.setField(registry, "directory", "/etc/trust");
+        TrustStoreSnapshot acme = registry.update("acme",
+                List.of(TestCertificates.rootCa("Acme root").getCertificate()));
+
+        assertSame(acme, registry.getSnapshot("acme"));
+    }
+
+    @Test
+    void unknownTenantFallsBackToDefaultSnapshot() throws Exception {
+        ReflectionTestUtils.setField(registry, "directory", "/etc/trust");
+        TrustStoreSnapshot defaults = registry.update(TrustStoreRegistry.DEFAULT_TENANT,
+                List.of(TestCertificates.rootCa("Default root").getCertificate()));
+        registry.update("acme", List.of(TestCertificates.rootCa("Acme root").getCertificate()));
+
+        assertSame(defaults, registry.getSnapshot("made-up"));
+        assertSame(defaults, registry.getSnapshot(null));
+        assertSame(defaults, registry.getSnapshot(" "));
+    }
+
+    @Test
+    void unknownTenantFailsClosedWhenDefaultTenantHasNoTrustStore() throws Exception {
+        ReflectionTestUtils.setField(registry, "directory", "/etc/trust");
+        registry.update("acme", List.of(TestCertificates.rootCa("Acme root").getCertificate()));
+
+        TrustStoreSnapshot snapshot = registry.getSnapshot("made-up");
+        assertTrue(snapshot.isConfigured());
+        assertTrue(snapshot.getTrustAnchors().isEmpty());
+        assertEquals(TrustStoreRegistry.DEFAULT_TENANT, snapshot.getTenantId());
+    }
+
+    @Test
+    void removedTenantFallsBackToDefault() throws Exception {
+        ReflectionTestUtils.setField(registry, "directory", "/etc/trust");
+        TrustStoreSnapshot defaults = registry.update(TrustStoreRegistry.DEFAULT_TENANT,
+                List.of(TestCertificates.rootCa("Default root").getCertificate()));
+        registry.update("acme", List.of(TestCertificates.rootCa("Acme root").getCertificate()));
+        registry.remove("acme");
+
+        assertSame(defaults, registry.getSnapshot("acme"));
+    }
+}
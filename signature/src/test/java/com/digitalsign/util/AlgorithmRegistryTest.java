@@ -0,0 +1,135 @@
+package com.digitalsign.util;
+
+import com.digitalsign.config.SecurityConfig;
+import org.bouncycastle.asn1.edec.EdECObjectIdentifiers;
+import org.bouncycastle.asn1.nist.NISTObjectIdentifiers;
+import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x9.X9ObjectIdentifiers;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.cms.CMSProcessableByteArray;
+import org.bouncycastle.cms.CMSSignedData;
+import org.bouncycastle.cms.CMSSignedDataGenerator;
+import org.bouncycastle.cms.SignerInformation;
+import org.bouncycastle.cms.jcajce.JcaSignerInfoGeneratorBuilder;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AlgorithmRegistryTest {
+    static {
+        SecurityConfig.registerProviders();
+    }
+
+    // {thuật toán khoá, thuật toán ký khi tạo CMS, tên JCA mong đợi, thuật toán băm mong đợi}
+    private static final String[][] SIGNERS = {
+            {"RSA", "SHA256withRSA", "SHA256withRSA", "SHA-256"},
+            {"RSA", "SHA512withRSA", "SHA512withRSA", "SHA-512"},
+            {"RSA", "SHA3-256withRSA", "SHA3-256withRSA", "SHA3-256"},
+            {"RSA", "SHA384withRSAandMGF1", "SHA384withRSAandMGF1", "SHA-384"},
+            {"EC", "SHA256withECDSA", "SHA256withECDSA", "SHA-256"},
+            {"EC", "SHA3-384withECDSA", "SHA3-384withECDSA", "SHA3-384"},
+            {"Ed25519", "Ed25519", "Ed25519", "SHA-512"}
+    };
+
+    private final AlgorithmRegistry registry = new AlgorithmRegistry();
+
+    @Test
+    void resolvesTheOidsThatCmsSignersCarryAndTheNameVerifies() throws Exception {
+        for (String[] expected : SIGNERS) {
+            KeyPair keyPair = keyPair(expected[0]);
+            SignerInformation signer = sign(keyPair, expected[1]);
+
+            AlgorithmDescriptor descriptor = registry.resolveSignature(signer.getDigestAlgOID(),
+                    signer.getEncryptionAlgOID());
+            assertEquals(expected[2], descriptor.getJcaName(), expected[1]);
+            assertEquals(expected[3], descriptor.getDigestAlgorithm(), expected[1]);
+            assertEquals(expected[3], registry.digestName(signer.getDigestAlgOID()), expected[1]);
+
+            // tên JCA tra được phải kiểm tra được chữ ký thật trên signed attributes
+            Signature verifier = Signature.getInstance(descriptor.getJcaName(), "BC");
+            verifier.initVerify(keyPair.getPublic());
+            verifier.update(signer.getEncodedSignedAttributes());
+            assertTrue(verifier.verify(signer.getSignature()), expected[1]);
+        }
+    }
+
+    @Test
+    void keyTypeOidIsCombinedWithTheSignersDigest() {
+        String rsaEncryption = PKCSObjectIdentifiers.rsaEncryption.getId();
+
+        AlgorithmDescriptor sha256 = registry.resolveSignature(NISTObjectIdentifiers.id_sha256.getId(), rsaEncryption);
+        assertSame(registry.lookup(PKCSObjectIdentifiers.sha256WithRSAEncryption.getId()), sha256);
+
+        AlgorithmDescriptor sha3 = registry.resolveSignature(NISTObjectIdentifiers.id_sha3_512.getId(), rsaEncryption);
+        assertEquals(NISTObjectIdentifiers.id_rsassa_pkcs1_v1_5_with_sha3_512.getId(), sha3.getOid());
+        assertEquals(256, sha3.getSecurityStrength());
+
+        AlgorithmDescriptor ecdsa = registry.resolveSignature(NISTObjectIdentifiers.id_sha384.getId(),
+                X9ObjectIdentifiers.id_ecPublicKey.getId());
+        assertEquals("SHA384withECDSA", ecdsa.getJcaName());
+        assertEquals("EC", ecdsa.getKeyType());
+    }
+
+    @Test
+    void lookupAcceptsOidsJcaNamesAndLegacyAliases() {
+        AlgorithmDescriptor sha256 = registry.lookup(NISTObjectIdentifiers.id_sha256.getId());
+        assertSame(sha256, registry.lookup("SHA-256"));
+        assertSame(sha256, registry.lookup("sha256"));
+        assertSame(sha256, registry.lookup(" SHA256 "));
+        assertEquals("Ed448", registry.lookup(EdECObjectIdentifiers.id_Ed448.getId()).getJcaName());
+        assertEquals(0, registry.lookup(PKCSObjectIdentifiers.md5.getId()).getSecurityStrength());
+    }
+
+    @Test
+    void unknownOrMismatchedInputsResolveToNull() {
+        assertNull(registry.lookup("1.2.3.4.5"));
+        assertNull(registry.lookup(null));
+        assertNull(registry.digestName("1.2.3.4.5"));
+        assertNull(registry.resolveSignature(NISTObjectIdentifiers.id_sha256.getId(), null));
+        // OID của thuật toán băm không phải là thuật toán chữ ký
+        assertNull(registry.resolveSignature(null, NISTObjectIdentifiers.id_sha256.getId()));
+    }
+
+    private static KeyPair keyPair(String algoristhm) throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance(algoristhm, "BC");
+        if ("RSA".equals(algoristhm)) {
+            generator.initialize(2048);
+        } else if ("EC".equals(algoristhm)) {
+            generator.initialize(256);
+        }
+        return generator.generateKeyPair();
+    }
+
+    private static SignerInformation sign(KeyPair keyPair, String algoristhm) throws Exception {
+        ContentSigner contentSigner = new JcaContentSignerBuilder(algoristhm).setProvider("BC")
+                .build(keyPair.getPrivate());
+        X500Name subject = new X500Name("CN=" + algoristhm + ",O=Test");
+        X509CertificateHolder certificate = new JcaX509v3CertificateBuilder(subject, BigInteger.ONE,
+                Date.from(Instant.now().minus(Duration.ofDays(1))), Date.from(Instant.now().plus(Duration.ofDays(1))),
+                subject, keyPair.getPublic()).build(contentSigner);
+
+        CMSSignedDataGenerator generator = new CMSSignedDataGenerator();
+        generator.addSignerInfoGenerator(new JcaSignerInfoGeneratorBuilder(
+                new JcaDigestCalculatorProviderBuilder().setProvider("BC").build()).build(contentSigner, certificate));
+        CMSSignedData signedData = generator.generate(
+                new CMSProcessableByteArray("noi dung".getBytes(StandardCharsets.UTF_8)), false);
+        return signedData.getSignerInfos().getSigners().iterator().next();
+    }
+}
@@ -0,0 +1,69 @@
+package com.digitalsign.util;
+
+import com.digitalsign.TestCertificates;
+import com.digitalsign.TestCertificates.Issued;
+import com.digitalsign.model.CertificateInfo;
+import org.bouncycastle.asn1.DEROctetString;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.asn1.x509.GeneralNames;
+import org.bouncycastle.asn1.x509.KeyUsage;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateHolder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.cert.X509Certificate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CertificateFieldExtractorTest {
+    private CertificateFieldExtractor extractor;
+    private CertificateUtils certificateUtils;
+
+    @BeforeEach
+    void setUp() {
+        extractor = new CertificateFieldExtractor();
+        certificateUtils = new CertificateUtils();
+        ReflectionTestUtils.setField(certificateUtils, "cryptoUtils", new CryptoUtils());
+        ReflectionTestUtils.setField(certificateUtils, "certificateFieldExtractor", extractor);
+    }
+
+    @Test
+    void readsFieldsFromTheDecodedCertificate() throws Exception {
+        Issued issued = TestCertificates.selfSigned("CN=Nguyen Van A,O=Cong ty ABC,C=VN",
+                new Extension(Extension.keyUsage, true,
+                        new DEROctetString(new KeyUsage(KeyUsage.digitalSignature | KeyUsage.nonRepudiation))));
+        X509Certificate certificate = issued.getCertificate();
+
+        CertificateInfo info = certificateUtils.extractCertificateInfo(certificate);
+        assertEquals("Nguyen Van A", info.getSubjectName());
+        assertEquals("Nguyen Van A", info.getIssuerName());
+        assertEquals(certificate.getSerialNumber().toString(16).toUpperCase(), info.getSerialNumber());
+        assertEquals("Digital Signature, Non Repudiation", info.getKeyUsage());
+        assertEquals(new CryptoUtils().getCertificateThumbPrint(certificate), info.getThumbprint());
+    }
+
+    @Test
+    void subjectWithoutCommonNameFallsBackToTheRfc2253Name() throws Exception {
+        X509Certificate certificate = TestCertificates.selfSigned("O=Cong ty ABC,OU=Ke toan,C=VN").getCertificate();
+
+        CertificateInfo info = certificateUtils.extractCertificateInfo(certificate);
+        assertEquals(certificate.getSubjectX500Principal().getName(), info.getSubjectName());
+        assertEquals("Not specified", info.getKeyUsage());
+    }
+
+    @Test
+    void stringHelpersShareTheExtractor() throws Exception {
+        Issued issued = TestCertificates.selfSigned("CN=Signer,O=Cong ty ABC",
+                new Extension(Extension.subjectAlternativeName, false, new DEROctetString(
+                        new GeneralNames(new GeneralName(GeneralName.rfc822Name, "signer@example.vn")))));
+        String dn = issued.getCertificate().getSubjectX500Principal().getName();
+
+        assertEquals("Signer", certificateUtils.extractCommonName(dn));
+        assertEquals("Cong ty ABC", certificateUtils.extractOrganization(dn));
+        assertEquals("O=Cong ty ABC", certificateUtils.extractCommonName("O=Cong ty ABC"));
+        assertEquals("signer@example.vn", certificateUtils.extractEmailFromCertificate(issued.getCertificate()));
+        assertEquals("signer@example.vn", extractor.email(new JcaX509CertificateHolder(issued.getCertificate())));
+    }
+}
@@ -0,0 +1,109 @@
+package com.digitalsign.util;
+
+import com.digitalsign.TestCertificates;
+import com.digitalsign.model.CertificateInfo;
+import org.bouncycastle.asn1.ASN1Encoding;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x500.style.BCStyle;
+import org.bouncycastle.asn1.x500.style.IETFUtils;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateHolder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.management.ManagementFactory;
+import java.security.MessageDigest;
+import java.security.cert.X509Certificate;
+import java.time.ZoneId;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Đo số byte cấp phát mỗi lần dựng CertificateInfo: đọc từ holder đã giải mã khi parse CMS so với cách cũ
+ * (chuỗi DN của X500Principal parse lại bằng X500Name, Date, boolean[] keyUsage, thumbprint từ getEncoded()).
+ * Không chạy mặc định: {@code mvn -o test -Dtest=CertificateInfoAllocationBenchmark -Dbenchmark=true}
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CertificateInfoAllocationBenchmark {
+    private static final int ITERATIONS = 20_000;
+    private static final String[] KEY_USAGE_NAMES = {
+            "Digital Signature", "Non Repudiation", "Key Encipherment", "Data Encipherment",
+            "Key Agreement", "Key Cert Sign", "CRL Sign", "Encipher Only", "Decipher Only"
+    };
+
+    private final CryptoUtils cryptoUtils = new CryptoUtils();
+    private final CertificateFieldExtractor extractor = new CertificateFieldExtractor();
+    private Object sink;
+
+    @Test
+    void extractorAllocatesLessThanTheStringPath() throws Exception {
+        X509Certificate certificate = TestCertificates.endEntity("Nguyen Van A",
+                TestCertificates.rootCa("Benchmark root")).getCertificate();
+        X509CertificateHolder holder = new JcaX509CertificateHolder(certificate);
+        CertificateUtils certificateUtils = new CertificateUtils();
+        ReflectionTestUtils.setField(certificateUtils, "cryptoUtils", cryptoUtils);
+        ReflectionTestUtils.setField(certificateUtils, "certificateFieldExtractor", extractor);
+
+        // chạy nóng cả hai đường trước khi đo
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink = legacy(certificate);
+            sink = extract(holder, certificate);
+        }
+
+        long legacyBytes = allocatedPerOperation(() -> sink = legacy(certificate));
+        long extractorBytes = allocatedPerOperation(() -> sink = extract(holder, certificate));
+        System.out.printf("CertificateInfo: string path %d B/op, extractor %d B/op%n", legacyBytes, extractorBytes);
+        assertTrue(extractorBytes < legacyBytes);
+    }
+
+    // giống ParsedSignature: holder có sẵn từ CMS, thumbprint băm lại cấu trúc đã giải mã
+    private CertificateInfo extract(X509CertificateHolder holder, X509Certificate certificate) throws Exception {
+        String thumbprint = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-1")
+                .digest(holder.toASN1Structure().getEncoded(ASN1Encoding.DER)));
+        return extractor.extractCertificateInfo(holder, certificate, thumbprint);
+    }
+
+    // tái hiện CertificateUtils.extractCertificateInfo trước khi có CertificateFieldExtractor
+    private CertificateInfo legacy(X509Certificate certificate) throws Exception {
+        CertificateInfo info = new CertificateInfo();
+        info.setSubjectName(commonName(certificate.getSubjectX500Principal().getName()));
+        info.setIssuerName(commonName(certificate.getIssuerX500Principal().getName()));
+        info.setSerialNumber(certificate.getSerialNumber().toString(16).toUpperCase());
+        info.setAlgoristhm(certificate.getSigAlgName());
+        info.setValidFrom(certificate.getNotBefore().toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime());
+        info.setValidTo(certificate.getNotAfter().toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime());
+        info.setThumbprint(cryptoUtils.getCertificateThumbPrint(certificate));
+
+        boolean[] keyUsage = certificate.getKeyUsage();
+        StringBuilder usage = new StringBuilder();
+        for (int i = 0; keyUsage != null && i < keyUsage.length && i < KEY_USAGE_NAMES.length; i++) {
+            if (keyUsage[i]) {
+                if (usage.length() > 0) usage.append(", ");
+                usage.append(KEY_USAGE_NAMES[i]);
+            }
+        }
+        info.setKeyUsage(usage.length() > 0 ? usage.toString() : "Not specified");
+        return info;
+    }
+
+    private static String commonName(String distinguishedName) {
+        X500Name x500Name = new X500Name(distinguishedName);
+        return IETFUtils.valueToString(x500Name.getRDNs(BCStyle.CN)[0].getFirst().getValue());
+    }
+
+    private static long allocatedPerOperation(Operation operation) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            operation.run();
+        }
+        return (threads.getThreadAllocatedBytes(threadId) - before) / ITERATIONS;
+    }
+
+    private interface Operation {
+        void run() throws Exception;
+    }
+}
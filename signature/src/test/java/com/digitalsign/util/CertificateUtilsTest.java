@@ -0,0 +1,164 @@
+package com.digitalsign.util;
+
+import com.digitalsign.TestCertificates;
+import com.digitalsign.TestCertificates.Issued;
+import com.digitalsign.trust.TrustStoreSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.cert.CertPathBuilderException;
+import java.security.cert.CertificateExpiredException;
+import java.security.cert.PKIXCertPathBuilderResult;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CertificateUtilsTest {
+    private CertificateUtils certificateUtils;
+
+    @BeforeEach
+    void setUp() {
+        certificateUtils = new CertificateUtils();
+        ReflectionTestUtils.setField(certificateUtils, "cryptoUtils", new CryptoUtils());
+    }
+
+    @Test
+    void trustsSignerIssuedDirectlyByAnchor() throws Exception {
+        Issued root = TestCertificates.rootCa("Root");
+        Issued signer = TestCertificates.endEntity("Signer", root);
+
+        assertTrue(certificateUtils.isTrusted(signer.getCertificate(), List.of(), snapshot(root)));
+    }
+
+    @Test
+    void trustsSignerThroughCaIntermediate() throws Exception {
+        Issued root = TestCertificates.rootCa("Root");
+        Issued intermediate = TestCertificates.intermediateCa("Issuing CA", root);
+        Issued signer = TestCertificates.endEntity("Signer", intermediate);
+
+        assertTrue(certificateUtils.isTrusted(signer.getCertificate(), List.of(intermediate.getCertificate()),
+                snapshot(root)));
+    }
+
+    @Test
+    void rejectsSignerIssuedByEndEntityIntermediate() throws Exception {
+        Issued root = TestCertificates.rootCa("Root");
+        Issued endEntity = TestCertificates.endEntity("Ordinary user", root);
+        // end-entity hợp lệ tự phát hành một chứng thư "signer" bằng khoá của mình
+        Issued forged = TestCertificates.endEntity("Forged signer", endEntity);
+
+        assertFalse(certificateUtils.isTrusted(forged.getCertificate(), List.of(endEntity.getCertificate()),
+                snapshot(root)));
+    }
+
+    @Test
+    void rejectsChainEndingAtExpiredAnchor() throws Exception {
+        Issued expiredRoot = TestCertificates.rootCa("Expired root",
+                Instant.now().minus(Duration.ofDays(400)), Instant.now().minus(Duration.ofDays(1)));
+        Issued signer = TestCertificates.endEntity("Signer", expiredRoot);
+
+        assertFalse(certificateUtils.isTrusted(signer.getCertificate(), List.of(), snapshot(expiredRoot)));
+        assertThrows(CertificateExpiredException.class, () -> certificateUtils.validateTrustChain(
+                signer.getCertificate(), List.of(), snapshot(expiredRoot), new Date()));
+    }
+
+    @Test
+    void rejectsExpiredIntermediate() throws Exception {
+        Issued root = TestCertificates.rootCa("Root");
+        Issued expiredIntermediate = TestCertificates.issue("Old CA", root, true,
+                Instant.now().minus(Duration.ofDays(400)), Instant.now().minus(Duration.ofDays(1)));
+        Issued signer = TestCertificates.endEntity("Signer", expiredIntermediate);
+
+        assertFalse(certificateUtils.isTrusted(signer.getCertificate(),
+                List.of(expiredIntermediate.getCertificate()), snapshot(root)));
+    }
+
+    @Test
+    void rejectsSignerFromUnrelatedRoot() throws Exception {
+        Issued root = TestCertificates.rootCa("Root");
+        Issued otherRoot = TestCertificates.rootCa("Root");
+        Issued signer = TestCertificates.endEntity("Signer", otherRoot);
+
+        assertFalse(certificateUtils.isTrusted(signer.getCertificate(), List.of(otherRoot.getCertificate()),
+                snapshot(root)));
+    }
+
+    @Test
+    void rejectsRevokedSignerAndAcceptsWhenCrlDoesNotListIt() throws Exception {
+        Issued root = TestCertificates.rootCa("Root");
+        Issued signer = TestCertificates.endEntity("Signer", root);
+        Issued other = TestCertificates.endEntity("Other", root);
+
+        TrustStoreSnapshot revoking = TrustStoreSnapshot.of("acme", List.of(root.getCertificate()),
+                List.of(TestCertificates.crl(root, signer.getCertificate())));
+        TrustStoreSnapshot notRevoking = TrustStoreSnapshot.of("acme", List.of(root.getCertificate()),
+                List.of(TestCertificates.crl(root, other.getCertificate())));
+
+        assertFalse(certificateUtils.isTrusted(signer.getCertificate(), List.of(), revoking));
+        assertTrue(certificateUtils.isTrusted(signer.getCertificate(), List.of(), notRevoking));
+    }
+
+    @Test
+    void rejectsEverythingWhenTenantHasNoAnchors() throws Exception {
+        Issued root = TestCertificates.rootCa("Root");
+        Issued signer = TestCertificates.endEntity("Signer", root);
+        TrustStoreSnapshot empty = TrustStoreSnapshot.of("acme", List.<X509Certificate>of());
+
+        assertThrows(CertPathBuilderException.class, () -> certificateUtils.validateTrustChain(
+                signer.getCertificate(), List.of(), empty, new Date()));
+    }
+
+    @Test
+    void buildsThePathToTheAnchorFromUnorderedIntermediates() throws Exception {
+        Issued root = TestCertificates.rootCa("Root");
+        Issued policyCa = TestCertificates.intermediateCa("Policy CA", root);
+        Issued issuingCa = TestCertificates.intermediateCa("Issuing CA", policyCa);
+        Issued signer = TestCertificates.endEntity("Signer", issuingCa);
+        Issued unrelated = TestCertificates.intermediateCa("Unrelated CA", TestCertificates.rootCa("Other root"));
+
+        PKIXCertPathBuilderResult result = certificateUtils.validateTrustChain(signer.getCertificate(),
+                List.of(unrelated.getCertificate(), policyCa.getCertificate(), issuingCa.getCertificate()),
+                snapshot(root), new Date());
+
+        assertEquals(root.getCertificate(), result.getTrustAnchor().getTrustedCert());
+        assertEquals(List.of(signer.getCertificate(), issuingCa.getCertificate(), policyCa.getCertificate()),
+                result.getCertPath().getCertificates());
+    }
+
+    @Test
+    void validatesAtTheGivenDate() throws Exception {
+        Issued root = TestCertificates.rootCa("Root", Instant.now().minus(Duration.ofDays(200)),
+                Instant.now().plus(Duration.ofDays(200)));
+        Instant notAfter = Instant.now().minus(Duration.ofDays(10));
+        Issued expiredSigner = TestCertificates.endEntity("Signer", root,
+                Instant.now().minus(Duration.ofDays(100)), notAfter);
+
+        certificateUtils.validateTrustChain(expiredSigner.getCertificate(), List.of(), snapshot(root),
+                Date.from(notAfter.minus(Duration.ofDays(1))));
+        assertThrows(CertPathBuilderException.class, () -> certificateUtils.validateTrustChain(
+                expiredSigner.getCertificate(), List.of(), snapshot(root), new Date()));
+    }
+
+    @Test
+    void missingIntermediateBreaksThePath() throws Exception {
+        Issued root = TestCertificates.rootCa("Root");
+        Issued issuingCa = TestCertificates.intermediateCa("Issuing CA", root);
+        Issued signer = TestCertificates.endEntity("Signer", issuingCa);
+
+        assertFalse(certificateUtils.isTrusted(signer.getCertificate(), List.of(), snapshot(root)));
+        assertThrows(CertPathBuilderException.class, () -> certificateUtils.validateTrustChain(
+                signer.getCertificate(), List.of(), snapshot(root), new Date()));
+    }
+
+    private TrustStoreSnapshot snapshot(Issued root) throws Exception {
+        return TrustStoreSnapshot.of("acme", List.of(root.getCertificate()));
+    }
+}
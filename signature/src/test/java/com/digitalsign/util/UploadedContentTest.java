@@ -0,0 +1,88 @@
+package com.digitalsign.util;
+
+import com.digitalsign.TestCertificates;
+import com.digitalsign.processor.container.ContainerSignatureProcessor;
+import com.digitalsign.processor.detached.DetachedSignatureProcessor;
+import com.digitalsign.processor.pdf.PdfSignatureProcessor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UploadedContentTest {
+    @TempDir
+    Path spoolDirectory;
+
+    @Test
+    void spooledUploadIsHashedWithoutMovingTheBuffer() throws Exception {
+        byte[] bytes = "noi dung can bam".getBytes(StandardCharsets.UTF_8);
+        CryptoUtils cryptoUtils = new CryptoUtils();
+
+        try (UploadedContent content = spool("a.bin", bytes)) {
+            ByteBuffer buffer = content.asByteBuffer();
+            assertArrayEquals(cryptoUtils.calculateSHA256(bytes), cryptoUtils.calculateSHA256(buffer));
+            assertEquals(0, buffer.position());
+        }
+    }
+
+    @Test
+    void processorsSniffTheMappedBuffer() throws Exception {
+        byte[] signature = TestCertificates.signCms("hop dong".getBytes(StandardCharsets.UTF_8),
+                TestCertificates.endEntity("Signer", TestCertificates.rootCa("Root")), false);
+        byte[] pdf = "%PDF-1.7\n1 0 obj << /Type /EmbeddedFile >> stream\n".getBytes(StandardCharsets.US_ASCII);
+
+        DetachedSignatureProcessor detached = new DetachedSignatureProcessor();
+        PdfSignatureProcessor pdfProcessor = new PdfSignatureProcessor();
+        ContainerSignatureProcessor container = new ContainerSignatureProcessor();
+        ReflectionTestUtils.setField(container, "pdfProcessor", pdfProcessor);
+
+        try (UploadedContent cms = spool("a.p7s", signature);
+             UploadedContent attachments = spool("a.pdf", pdf);
+             UploadedContent zip = spool("a.zip", zip("a.txt"));
+             UploadedContent docx = spool("a.docx", zip("[Content_Types].xml"))) {
+            assertTrue(detached.validateFileFormat(cms.asByteBuffer(), cms.getFileName()));
+            assertFalse(pdfProcessor.validateFileFormat(cms.asByteBuffer(), cms.getFileName()));
+            assertTrue(pdfProcessor.validateFileFormat(attachments.asByteBuffer(), attachments.getFileName()));
+            assertTrue(container.validateFileFormat(attachments.asByteBuffer(), attachments.getFileName()));
+            assertTrue(container.validateFileFormat(zip.asByteBuffer(), zip.getFileName()));
+            assertFalse(container.validateFileFormat(docx.asByteBuffer(), docx.getFileName()));
+        }
+    }
+
+    @Test
+    void sniffingIsRelativeToTheBufferPosition() {
+        byte[] framed = "xx%PDF-1.4".getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer buffer = ByteBuffer.wrap(framed);
+        buffer.position(2);
+
+        assertTrue(new PdfSignatureProcessor().validateFileFormat(buffer, "a.pdf"));
+        assertEquals(2, buffer.position());
+    }
+
+    private UploadedContent spool(String fileName, byte[] bytes) throws Exception {
+        Path spoolFile = Files.write(Files.createTempFile(spoolDirectory, "upload-", ".spool"), bytes);
+        return UploadedContent.spooled(fileName, spoolFile);
+    }
+
+    private static byte[] zip(String entryName) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry(entryName));
+            zip.write("entry".getBytes(StandardCharsets.US_ASCII));
+            zip.closeEntry();
+        }
+        return out.toByteArray();
+    }
+}